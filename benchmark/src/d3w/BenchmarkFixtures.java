@@ -0,0 +1,145 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import d3w.model.YamlInfo;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ベンチマークで使用するフィクスチャ
+ * <p>
+ * 同梱のテストデータ（src/test/resources の templates、configs）だけを使用し、ネットワークには接続しない。
+ * 場所はシステムプロパティ d3w.fixtures で変更できる（既定はプロジェクトルートからの相対パス）。
+ * <p>
+ * 雛型は2種類を用意する。
+ * small: 同梱の雛型をそのまま使用する
+ * large: 同梱の雛型のw1のdatasourceフィールドを5,000件に増やした雛型を一時ディレクトリに生成する
+ */
+final class BenchmarkFixtures {
+
+    /** フィクスチャの場所を指定するシステムプロパティ */
+    static final String FIXTURES_PROPERTY = "d3w.fixtures";
+
+    /** 大きい雛型のdatasourceフィールド数 */
+    static final int LARGE_FIELD_COUNT = 5_000;
+
+    private static final String TEMPLATE_FILE_NAME = "Box20251229184004.d3w";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 同梱のテストデータのディレクトリを取得する
+     */
+    static Path resources() {
+        Path resources = Paths.get(System.getProperty(FIXTURES_PROPERTY, "src/test/resources"));
+        if (!Files.isDirectory(resources.resolve("templates"))) {
+            throw new IllegalStateException("フィクスチャが見つかりません: " + resources.toAbsolutePath()
+                    + "（プロジェクトルートで実行するか、-D" + FIXTURES_PROPERTY + "で指定してください）");
+        }
+        return resources;
+    }
+
+    /**
+     * 雛型の.d3wファイルを用意する
+     *
+     * @param template small または large
+     * @param workDir  large の雛型を生成するディレクトリ
+     * @return 雛型の.d3wファイルのパス
+     */
+    static Path template(String template, Path workDir) throws IOException {
+        Path bundled = resources().resolve("templates").resolve(TEMPLATE_FILE_NAME);
+        switch (template) {
+            case "small":
+                return bundled;
+            case "large":
+                D3wArchive archive = D3wArchive.read(bundled);
+                archive.put("w1", JsonEditor.toJsonBytes(widen(JsonEditor.readJson(archive.get("w1")))));
+                Path large = workDir.resolve("large.d3w");
+                D3wBuilder.build(archive, large.toString());
+                return large;
+            default:
+                throw new IllegalArgumentException("不明な雛型です: " + template);
+        }
+    }
+
+    /**
+     * 雛型のワーク（w1）の内容を取得する
+     */
+    static byte[] work(Path templateD3w) throws IOException {
+        return D3wArchive.read(templateD3w).get("w1");
+    }
+
+    /**
+     * 同梱のYAMLファイルを順に繰り返して、指定件数分のYAMLファイルを生成する
+     * ワーク名は重複できないため、2巡目以降はワーク名に連番を付ける
+     *
+     * @param workCount ワーク数
+     * @param workDir   YAMLファイルを生成するディレクトリ
+     * @return YAMLファイルのパス
+     */
+    static List<String> yamlPaths(int workCount, Path workDir) throws IOException {
+        List<Path> bundled = bundledYamls();
+        Yaml yaml = new Yaml();
+        Path configs = Files.createDirectories(workDir.resolve("configs"));
+        List<String> yamlPaths = new ArrayList<>(workCount);
+        for (int i = 0; i < workCount; i++) {
+            Path source = bundled.get(i % bundled.size());
+            if (i < bundled.size()) {
+                yamlPaths.add(source.toString());
+                continue;
+            }
+            Map<String, Object> data;
+            try (InputStream in = Files.newInputStream(source)) {
+                data = yaml.load(in);
+            }
+            data.put("workName", data.get("workName") + "_" + i);
+            Path target = configs.resolve(String.format("%05d_%s", i, source.getFileName()));
+            Files.write(target, yaml.dump(data).getBytes(StandardCharsets.UTF_8));
+            yamlPaths.add(target.toString());
+        }
+        return yamlPaths;
+    }
+
+    /**
+     * 同梱の1件目のYAMLファイルを読み込む
+     */
+    static YamlInfo yamlInfo() throws Exception {
+        return YamlInfoLoader.loadFromYaml(bundledYamls().get(0).toString());
+    }
+
+    /**
+     * 同梱のYAMLファイルをファイル名順に取得する
+     */
+    static List<Path> bundledYamls() throws IOException {
+        try (Stream<Path> stream = Files.list(resources().resolve("configs"))) {
+            return stream.filter(path -> path.getFileName().toString().endsWith(".yaml"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * datasourceフィールドをLARGE_FIELD_COUNT件に増やす
+     */
+    private static JsonObject widen(JsonObject work) {
+        JsonArray fields = new JsonArray();
+        for (int i = 0; i < LARGE_FIELD_COUNT; i++) {
+            fields.add("項目" + i);
+        }
+        work.getAsJsonObject("content").getAsJsonObject("datasource").add("fields", fields);
+        return work;
+    }
+}
@@ -0,0 +1,67 @@
+package d3w;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雛型の.d3wファイルの解凍を計測するベンチマーク
+ * <p>
+ * extract: ZipInputStreamでディレクトリに展開する（D3wExtractor#extract）
+ * readArchive: ヒープに読み込んで圧縮済みのまま保持し、全エントリを解凍する（D3wExtractor#readArchive）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractBenchmark {
+
+    @Param({"small", "large"})
+    public String template;
+
+    private TempDirectory tempDirectory;
+    private Path templateD3w;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tempDirectory = TempDirectory.create("d3w_bench_extract_");
+        templateD3w = BenchmarkFixtures.template(template, tempDirectory.getPath());
+        outputDir = tempDirectory.getPath().resolve("extracted");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tempDirectory.close();
+    }
+
+    @Benchmark
+    public Path extract() throws Exception {
+        return D3wExtractor.extract(templateD3w.toString(), outputDir.toString());
+    }
+
+    @Benchmark
+    public int readArchive() throws Exception {
+        D3wArchive archive = D3wExtractor.readArchive(templateD3w.toString());
+        int size = 0;
+        for (String name : archive.findJsonEntryNames()) {
+            size += archive.get(name).length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,103 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+import d3w.model.YamlInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ワーク1件分のJSON編集を計測するベンチマーク
+ * <p>
+ * 個々の操作（readJson、deepCopy、applyYamlInfo、toJson、toJsonBytes）に加え、
+ * ワーク1件の生成方式を比較する。
+ * readAndApply: ワークごとに雛型を解析して適用する（従来方式）
+ * deepCopyAndApply: 解析済みの雛型をディープコピーして適用する
+ * newInstanceAndApply: 解析済みの雛型のコピーオンライトなコピーに適用し、JSONのバイト列にする
+ * render: 雛型をトークン単位で書き写しながら適用する（WorkTemplate#render、現在の生成方式）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonEditorBenchmark {
+
+    @Param({"small", "large"})
+    public String template;
+
+    private byte[] workContent;
+    private JsonObject work;
+    private WorkTemplate workTemplate;
+    private YamlInfo yamlInfo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        try (TempDirectory tempDirectory = TempDirectory.create("d3w_bench_json_")) {
+            workContent = BenchmarkFixtures.work(BenchmarkFixtures.template(template, tempDirectory.getPath()));
+        }
+        work = JsonEditor.readJson(workContent);
+        workTemplate = WorkTemplate.compile(workContent);
+        yamlInfo = BenchmarkFixtures.yamlInfo();
+    }
+
+    @Benchmark
+    public JsonObject readJson() {
+        return JsonEditor.readJson(workContent);
+    }
+
+    @Benchmark
+    public JsonObject deepCopy() {
+        return JsonEditor.deepCopy(work);
+    }
+
+    @Benchmark
+    public JsonObject applyYamlInfo() {
+        return JsonEditor.applyYamlInfo(workTemplate.newInstance(), yamlInfo);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonEditor.toJson(work);
+    }
+
+    @Benchmark
+    public byte[] toJsonBytes() {
+        return JsonEditor.toJsonBytes(work);
+    }
+
+    @Benchmark
+    public JsonObject readAndApply() {
+        return JsonEditor.applyYamlInfo(JsonEditor.readJson(workContent), yamlInfo);
+    }
+
+    @Benchmark
+    public JsonObject deepCopyAndApply() {
+        return JsonEditor.applyYamlInfo(workTemplate.newDeepInstance(), yamlInfo);
+    }
+
+    @Benchmark
+    public byte[] newInstanceAndApply() {
+        return JsonEditor.toJsonBytes(JsonEditor.applyYamlInfo(workTemplate.newInstance(), yamlInfo));
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(workTemplate.size() + 1024);
+        workTemplate.render(yamlInfo, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package d3w;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * .d3wファイルの構築と、生成処理全体（End-to-End）を計測するベンチマーク
+ * <p>
+ * build: ワーク数分のwNを持つD3wArchiveをZIP化する（D3wBuilder#build、逐次処理）
+ * process: 雛型とワーク数分のYAMLファイルから.d3wファイルを生成する（D3wProcessor#process、進捗は表示しない）
+ * <p>
+ * 1回の実行が長いため、1回ずつの実行時間（SingleShotTime）を計測する。
+ * large × 10000 は出力が数百MBになるため、ディスクの空きに注意すること。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"small", "large"})
+    public String template;
+
+    @Param({"1", "100", "10000"})
+    public int works;
+
+    private TempDirectory tempDirectory;
+    private Path templateD3w;
+    private List<String> yamlPaths;
+    private D3wArchive archive;
+    private Path output;
+    private ProcessOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tempDirectory = TempDirectory.create("d3w_bench_pipeline_");
+        templateD3w = BenchmarkFixtures.template(template, tempDirectory.getPath());
+        yamlPaths = BenchmarkFixtures.yamlPaths(works, tempDirectory.getPath());
+        output = tempDirectory.getPath().resolve("output.d3w");
+        options = new ProcessOptions();
+        options.setProgressListener(ProgressListener.SILENT);
+
+        // 雛型のw1をワーク数分に複製したD3wArchive（buildの入力）
+        archive = D3wArchive.read(templateD3w);
+        byte[] work = archive.get("w1");
+        for (int i = 2; i <= works; i++) {
+            archive.put("w" + i, work);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        archive = null;
+        tempDirectory.close();
+    }
+
+    @Benchmark
+    public void build() throws Exception {
+        D3wBuilder.build(archive, output.toString(), 1);
+    }
+
+    @Benchmark
+    public void process() throws Exception {
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, output.toString(), options);
+    }
+}
@@ -0,0 +1,128 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import d3w.model.YamlInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YAMLの反映方法ごとのワーク1件あたりのコストを計測するベンチマーク
+ * <p>
+ * 従来の手書きの反映（項目ごとにhas/getAsJsonObject/getOrCreateObjectで階層を辿る）と、
+ * 対応表をコンパイルした木（WorkMapping#apply）を比較する。
+ * どちらも WorkTemplate#newInstance で払い出したコピーに反映する。
+ * 計測前に両者の結果が一致することを確認する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkMappingBenchmark {
+
+    @Param({"small", "large"})
+    public String template;
+
+    private WorkMapping mapping;
+    private WorkTemplate workTemplate;
+    private YamlInfo yamlInfo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        try (TempDirectory tempDirectory = TempDirectory.create("d3w_bench_mapping_")) {
+            workTemplate = WorkTemplate.compile(
+                    BenchmarkFixtures.work(BenchmarkFixtures.template(template, tempDirectory.getPath())));
+        }
+        mapping = WorkMapping.getDefault();
+        yamlInfo = BenchmarkFixtures.yamlInfo();
+
+        JsonObject expected = handWritten(workTemplate.newInstance(), yamlInfo);
+        JsonObject actual = mapping.apply(workTemplate.newInstance(), yamlInfo);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("反映結果が一致しません:\n" + expected + "\n" + actual);
+        }
+    }
+
+    @Benchmark
+    public JsonObject handWritten() {
+        return handWritten(workTemplate.newInstance(), yamlInfo);
+    }
+
+    @Benchmark
+    public JsonObject compiled() {
+        return mapping.apply(workTemplate.newInstance(), yamlInfo);
+    }
+
+    /**
+     * 対応表を導入する前の JsonEditor#applyYamlInfo と同じ手書きの反映（documentNameの反映を加えたもの）
+     */
+    static JsonObject handWritten(JsonObject jsonObject, YamlInfo yamlInfo) {
+        if (yamlInfo.getWorkName() != null) {
+            jsonObject.addProperty("name", yamlInfo.getWorkName());
+        }
+        if (yamlInfo.getMemoText() != null) {
+            jsonObject.addProperty("note", yamlInfo.getMemoText());
+        }
+
+        JsonObject content = getOrCreateObject(jsonObject, "content");
+        if (yamlInfo.getSubject() != null) {
+            content.addProperty("subject", yamlInfo.getSubject());
+        }
+
+        JsonObject datasource = getOrCreateObject(content, "datasource");
+        if (yamlInfo.getDatasourceFields() != null && !yamlInfo.getDatasourceFields().isEmpty()) {
+            JsonArray fieldsArray = new JsonArray();
+            for (String field : yamlInfo.getDatasourceFields()) {
+                fieldsArray.add(field);
+            }
+            datasource.add("fields", fieldsArray);
+        }
+
+        JsonObject document = getOrCreateObject(content, "document");
+        if (yamlInfo.getDocumentName() != null) {
+            document.addProperty("name", yamlInfo.getDocumentName());
+        }
+
+        JsonObject template = getOrCreateObject(document, "template");
+        if (yamlInfo.getTemplateName() != null) {
+            template.addProperty("name", yamlInfo.getTemplateName());
+        }
+
+        if (yamlInfo.getTextDatasetFields() != null && !yamlInfo.getTextDatasetFields().isEmpty()) {
+            JsonArray params = template.has("params") && template.get("params").isJsonArray()
+                    ? template.getAsJsonArray("params")
+                    : new JsonArray();
+            JsonObject baseParam = null;
+            if (!params.isEmpty() && params.get(0).isJsonObject()) {
+                baseParam = params.get(0).getAsJsonObject();
+            }
+            JsonArray newParams = new JsonArray();
+            newParams.add(JsonEditor.newTextDatasetParam(baseParam, yamlInfo.getTextDatasetFields()));
+            template.add("params", newParams);
+        }
+        return jsonObject;
+    }
+
+    private static JsonObject getOrCreateObject(JsonObject parent, String key) {
+        if (parent.has(key) && parent.get(key).isJsonObject()) {
+            return parent.getAsJsonObject(key);
+        }
+        JsonObject newObject = new JsonObject();
+        parent.add(key, newObject);
+        return newObject;
+    }
+}
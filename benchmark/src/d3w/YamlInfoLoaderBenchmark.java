@@ -0,0 +1,75 @@
+package d3w;
+
+import d3w.model.YamlInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YAMLファイルの読み込みを計測するベンチマーク
+ * <p>
+ * loadFromYaml: 同梱のYAMLファイル1件の読み込み
+ * loadAll: ワーク数分のYAMLファイルの読み込み（同梱の5件を元に生成する。逐次処理）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YamlInfoLoaderBenchmark {
+
+    private String yamlPath;
+
+    @Setup
+    public void setUp() throws Exception {
+        yamlPath = BenchmarkFixtures.bundledYamls().get(0).toString();
+    }
+
+    @Benchmark
+    public YamlInfo loadFromYaml() throws Exception {
+        return YamlInfoLoader.loadFromYaml(yamlPath);
+    }
+
+    @Benchmark
+    public List<YamlInfo> loadAll(Works works) throws Exception {
+        return YamlInfoLoader.loadAll(works.yamlPaths, 1);
+    }
+
+    /**
+     * ワーク数分のYAMLファイルのパス
+     */
+    @State(Scope.Benchmark)
+    public static class Works {
+
+        @Param({"1", "100", "10000"})
+        public int works;
+
+        private TempDirectory tempDirectory;
+        private List<String> yamlPaths;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            tempDirectory = TempDirectory.create("d3w_bench_yaml_");
+            yamlPaths = BenchmarkFixtures.yamlPaths(works, tempDirectory.getPath());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            tempDirectory.close();
+        }
+    }
+}
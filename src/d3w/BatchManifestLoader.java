@@ -0,0 +1,97 @@
+package d3w;
+
+import d3w.model.BatchJob;
+import org.yaml.snakeyaml.LoaderOptions;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * バッチ処理のマニフェスト（YAML）からBatchJobのリストを読み込むユーティリティクラス
+ * <p>
+ * マニフェストの形式:
+ * <pre>
+ * jobs:
+ *   - output: out/groupA.d3w
+ *     yamls:
+ *       - configs/a1.yml
+ *       - configs/a2.yml
+ *   - output: out/groupB.d3w
+ *     yamls:
+ *       - configs/b1.yml
+ * </pre>
+ * 相対パスはマニフェストファイルのあるディレクトリを基準に解決する。
+ */
+public class BatchManifestLoader {
+
+    /**
+     * マニフェストファイルからBatchJobのリストを読み込む
+     *
+     * @param manifestPath マニフェストファイルのパス
+     * @return BatchJobのリスト（記載順）
+     * @throws Exception 読み込みに失敗した場合、またはマニフェストの形式が不正な場合
+     */
+    public static List<BatchJob> load(String manifestPath) throws Exception {
+        Path manifest = Paths.get(manifestPath).toAbsolutePath();
+        Map<String, Object> data;
+        try (InputStream inputStream = Files.newInputStream(manifest)) {
+            data = YamlInfoLoader.newSafeYaml(new LoaderOptions()).load(inputStream);
+        }
+        if (data == null || !(data.get("jobs") instanceof List)) {
+            throw new IllegalArgumentException("エラー: マニフェストにjobsのリストがありません: " + manifestPath);
+        }
+
+        Path baseDir = manifest.getParent();
+        List<BatchJob> jobs = new ArrayList<>();
+        Set<String> outputs = new HashSet<>();
+        for (Object item : (List<?>) data.get("jobs")) {
+            BatchJob job = mapToBatchJob(item, baseDir, jobs.size() + 1);
+            if (!outputs.add(job.getOutput())) {
+                throw new IllegalArgumentException("エラー: 出力ファイルが重複しています: " + job.getOutput());
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * マニフェストのジョブ1件をBatchJobオブジェクトに変換
+     *
+     * @param item     マニフェストから読み込んだジョブ
+     * @param baseDir  相対パスの基準ディレクトリ
+     * @param jobIndex ジョブの番号（1始まり、エラーメッセージ用）
+     * @return BatchJobオブジェクト
+     */
+    private static BatchJob mapToBatchJob(Object item, Path baseDir, int jobIndex) {
+        if (!(item instanceof Map)) {
+            throw new IllegalArgumentException("エラー: " + jobIndex + "番目のジョブの形式が不正です");
+        }
+        Map<?, ?> map = (Map<?, ?>) item;
+
+        Object output = map.get("output");
+        if (!(output instanceof String) || ((String) output).isEmpty()) {
+            throw new IllegalArgumentException("エラー: " + jobIndex + "番目のジョブにoutputがありません");
+        }
+        Object yamls = map.get("yamls");
+        if (!(yamls instanceof List) || ((List<?>) yamls).isEmpty()) {
+            throw new IllegalArgumentException("エラー: " + jobIndex + "番目のジョブにyamlsがありません");
+        }
+
+        List<String> yamlPaths = new ArrayList<>();
+        for (Object yaml : (List<?>) yamls) {
+            yamlPaths.add(resolve(baseDir, String.valueOf(yaml)));
+        }
+        return new BatchJob(resolve(baseDir, (String) output), yamlPaths);
+    }
+
+    private static String resolve(Path baseDir, String path) {
+        return baseDir.resolve(path).normalize().toString();
+    }
+}
@@ -0,0 +1,117 @@
+package d3w;
+
+import d3w.model.BatchJob;
+
+import java.util.List;
+
+/**
+ * 1つの雛型から複数の.d3wファイルを生成するバッチ処理クラス
+ * <p>
+ * 雛型の読み込み・検証・w1の解析は最初に1回だけ行い（PreparedTemplate）、
+ * 各ジョブはそれを共有して並行に実行する。
+ * ジョブが失敗しても他のジョブは継続し、最後にジョブごとの成否を集計する。
+ */
+public class BatchProcessor {
+
+    /**
+     * バッチ処理を実行する
+     * ProcessOptions#parallelism の数だけジョブを並行に実行する
+     *
+     * @param templateD3wPath 雛型となる.d3wファイルのパス
+     * @param jobs            ジョブのリスト
+     * @param options         処理オプション
+     * @return ジョブごとの結果（ジョブと同じ順序）
+     * @throws Exception 雛型の読み込み・検証に失敗した場合
+     */
+    public static List<Result> run(String templateD3wPath, List<BatchJob> jobs, ProcessOptions options)
+            throws Exception {
+        ProgressListener listener = options.getProgressListener();
+        listener.message(null, "\n=== 雛型準備 ===");
+        PreparedTemplate template = PreparedTemplate.prepare(templateD3wPath, listener);
+
+        // ジョブ間で並列度を分け合う（ジョブ数が並列度より少ない場合は、残りをジョブ内の処理に割り当てる）
+        int parallelism = Math.max(1, options.getParallelism());
+        int concurrentJobs = Math.max(1, Math.min(parallelism, jobs.size()));
+        ProcessOptions jobOptions = options.copy();
+        jobOptions.setInMemory(true);
+        jobOptions.setParallelism(Math.max(1, parallelism / concurrentJobs));
+
+        List<Result> results = ParallelMapper.map(jobs, concurrentJobs,
+                (index, job) -> runJob(template, job, jobOptions));
+        printSummary(results, listener);
+        return results;
+    }
+
+    /**
+     * ジョブを1件実行する（例外は結果として返す）
+     */
+    private static Result runJob(PreparedTemplate template, BatchJob job, ProcessOptions options) {
+        long start = System.nanoTime();
+        try {
+            D3wProcessor.process(template, job.getYamls(), job.getOutput(), options);
+            return new Result(job, null, elapsedMillis(start));
+        } catch (Exception e) {
+            return new Result(job, e, elapsedMillis(start));
+        }
+    }
+
+    /**
+     * ジョブごとの成否を通知する
+     */
+    private static void printSummary(List<Result> results, ProgressListener listener) {
+        int failed = 0;
+        listener.message(null, "\n=== バッチ処理結果 ===");
+        for (Result result : results) {
+            String output = result.getJob().getOutput();
+            if (result.isSuccess()) {
+                listener.message(output, "  ✓ " + output
+                        + " (" + result.getJob().getYamls().size() + "個のワーク, " + result.getMillis() + " ms)");
+            } else {
+                failed++;
+                listener.message(output, "  ✗ " + output + ": " + result.getError().getMessage());
+            }
+        }
+        listener.message(null, "成功: " + (results.size() - failed) + "件, 失敗: " + failed + "件");
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * ジョブ1件分の結果
+     */
+    public static class Result {
+        private final BatchJob job;
+        private final Exception error;
+        private final long millis;
+
+        Result(BatchJob job, Exception error, long millis) {
+            this.job = job;
+            this.error = error;
+            this.millis = millis;
+        }
+
+        public BatchJob getJob() {
+            return job;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * 失敗した場合の例外（成功した場合はnull）
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * ジョブの所要時間（ミリ秒）
+         */
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
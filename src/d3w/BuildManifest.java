@@ -0,0 +1,174 @@
+package d3w;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 差分ビルド用に、出力した.d3wファイルの入力（雛型とYAMLのハッシュ）を記録するマニフェスト
+ * <p>
+ * 「出力ファイル名.manifest.json」として出力ファイルと並べて保存する。
+ * ワークの内容は雛型のw1、YAMLの内容、対応表（work-mapping.yml）だけで決まるため、次回のビルドでは
+ * 雛型と対応表のハッシュが同じで、YAMLのハッシュが一致するワークを前回の出力から圧縮済みのまま再利用できる。
+ */
+public class BuildManifest {
+
+    /**
+     * マニフェストの形式、およびワークの生成方法のバージョン
+     * YAMLからワークへの反映方法を変更した場合は値を上げ、前回の出力を再利用しないようにする
+     * （2: documentNameをcontent.document.nameに反映するようにした）
+     */
+    static final int VERSION = 2;
+
+    private final String templateHash;
+    private final String mappingHash;
+    private final List<WorkRecord> works;
+
+    /**
+     * @param templateHash 雛型.d3wファイルのSHA-256
+     * @param mappingHash  対応表のハッシュ（WorkMapping#hash）
+     * @param works        ワークごとの記録（出力順）
+     */
+    public BuildManifest(String templateHash, String mappingHash, List<WorkRecord> works) {
+        this.templateHash = templateHash;
+        this.mappingHash = mappingHash;
+        this.works = works;
+    }
+
+    /**
+     * 出力ファイルに対応するマニフェストのパスを取得する
+     */
+    public static Path pathFor(String outputD3wPath) {
+        return Paths.get(outputD3wPath + ".manifest.json");
+    }
+
+    /**
+     * マニフェストを読み込む
+     *
+     * @param manifestPath マニフェストのパス
+     * @return 読み込んだマニフェスト（存在しない場合、またはバージョンが異なる場合はnull）
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public static BuildManifest read(Path manifestPath) throws IOException {
+        if (!Files.exists(manifestPath)) {
+            return null;
+        }
+        JsonObject json = JsonEditor.readJson(manifestPath);
+        if (!json.has("version") || json.get("version").getAsInt() != VERSION) {
+            return null;
+        }
+
+        List<WorkRecord> works = new ArrayList<>();
+        for (JsonElement element : json.getAsJsonArray("works")) {
+            JsonObject work = element.getAsJsonObject();
+            works.add(new WorkRecord(
+                    getString(work, "path"),
+                    getString(work, "yamlHash"),
+                    getString(work, "workName"),
+                    getString(work, "contentClass"),
+                    getString(work, "name")));
+        }
+        return new BuildManifest(getString(json, "templateHash"), getString(json, "mappingHash"), works);
+    }
+
+    /**
+     * マニフェストを書き込む
+     *
+     * @param manifestPath マニフェストのパス
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void write(Path manifestPath) throws IOException {
+        JsonArray workArray = new JsonArray();
+        for (WorkRecord work : works) {
+            JsonObject workObj = new JsonObject();
+            workObj.addProperty("path", work.path);
+            workObj.addProperty("yamlHash", work.yamlHash);
+            workObj.addProperty("workName", work.workName);
+            workObj.addProperty("contentClass", work.contentClass);
+            workObj.addProperty("name", work.name);
+            workArray.add(workObj);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("version", VERSION);
+        json.addProperty("templateHash", templateHash);
+        json.addProperty("mappingHash", mappingHash);
+        json.add("works", workArray);
+
+        String text = new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(json);
+        Files.write(manifestPath, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getTemplateHash() {
+        return templateHash;
+    }
+
+    public String getMappingHash() {
+        return mappingHash;
+    }
+
+    public List<WorkRecord> getWorks() {
+        return Collections.unmodifiableList(works);
+    }
+
+    private static String getString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * ワーク1件分の記録
+     */
+    public static class WorkRecord {
+        private final String path;
+        private final String yamlHash;
+        private final String workName;
+        private final String contentClass;
+        private final String name;
+
+        /**
+         * @param path         エントリ名（w1, w2...）
+         * @param yamlHash     YAMLファイルのSHA-256
+         * @param workName     YAMLのワーク名（重複チェック用）
+         * @param contentClass _ファイルのworksに記載するcontent_class
+         * @param name         _ファイルのworksに記載するname
+         */
+        public WorkRecord(String path, String yamlHash, String workName, String contentClass, String name) {
+            this.path = path;
+            this.yamlHash = yamlHash;
+            this.workName = workName;
+            this.contentClass = contentClass;
+            this.name = name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getYamlHash() {
+            return yamlHash;
+        }
+
+        public String getWorkName() {
+            return workName;
+        }
+
+        public String getContentClass() {
+            return contentClass;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package d3w;
+
+/**
+ * 処理の中断を要求するためのトークン（ProcessOptions#cancellationToken で指定する）
+ * <p>
+ * D3wProcessorは、YAMLファイル1件ごと、ワーク1件ごと、ZIPエントリの解凍・書き込み1件ごとに
+ * throwIfCancelled を呼び、中断が要求されていればProcessCancelledExceptionを投げて処理を終える。
+ * 一時ディレクトリと途中まで書き込んだ出力ファイルは、例外が伝わる途中で削除される。
+ * <p>
+ * cancel は任意のスレッドから呼べる。制限時間付きのトークン（withTimeout）は、
+ * 元のトークンが中断された場合か、作成してから制限時間が経過した場合に中断されたものとして扱う。
+ */
+public class CancellationToken {
+
+    /** 中断されることのないトークン（ProcessOptionsの既定。cancel は呼べない） */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel(String reason) {
+            throw new UnsupportedOperationException("CancellationToken.NONE は中断できません");
+        }
+    };
+
+    private final CancellationToken parent;
+    private final long timeoutMillis;
+    private final long deadlineNanos;
+    private volatile String reason;
+
+    public CancellationToken() {
+        this(null, 0);
+    }
+
+    private CancellationToken(CancellationToken parent, long timeoutMillis) {
+        this.parent = parent;
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = System.nanoTime() + timeoutMillis * 1_000_000;
+    }
+
+    /**
+     * このトークンの中断に加えて、現在から制限時間が経過した場合にも中断されるトークンを作成する
+     *
+     * @param timeoutMillis 制限時間（ミリ秒、0以下の場合は制限しない）
+     * @return 制限時間付きのトークン（制限しない場合はこのトークン）
+     */
+    public CancellationToken withTimeout(long timeoutMillis) {
+        return timeoutMillis > 0 ? new CancellationToken(this, timeoutMillis) : this;
+    }
+
+    /**
+     * 中断を要求する
+     */
+    public void cancel() {
+        cancel("キャンセルされました");
+    }
+
+    /**
+     * 理由を指定して中断を要求する（すでに中断されている場合は最初の理由のままにする）
+     *
+     * @param reason 中断の理由（ProcessCancelledExceptionのメッセージに含める）
+     */
+    public void cancel(String reason) {
+        synchronized (this) {
+            if (this.reason == null) {
+                this.reason = reason;
+            }
+        }
+    }
+
+    /**
+     * 中断が要求されたか（制限時間を超えた場合を含む）
+     */
+    public boolean isCancelled() {
+        return getReason() != null;
+    }
+
+    /**
+     * 中断の理由（中断されていない場合はnull）
+     */
+    public String getReason() {
+        String cancelled = reason;
+        if (cancelled == null && parent != null) {
+            cancelled = parent.getReason();
+        }
+        if (cancelled == null && timeoutMillis > 0 && System.nanoTime() - deadlineNanos >= 0) {
+            cancelled = String.format("制限時間（%,d ミリ秒）を超えました", timeoutMillis);
+        }
+        return cancelled;
+    }
+
+    /**
+     * 中断が要求されていれば例外を投げる
+     *
+     * @throws ProcessCancelledException 中断が要求された場合
+     */
+    public void throwIfCancelled() {
+        String cancelled = getReason();
+        if (cancelled != null) {
+            throw new ProcessCancelledException(cancelled);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package d3w;
+
+import java.util.zip.Deflater;
+
+/**
+ * ZIPエントリ1件分の圧縮レベル
+ */
+public enum CompressionLevel {
+    /** 無圧縮（STORED） */
+    STORED(0),
+    /** 高速なDEFLATE圧縮 */
+    FAST(Deflater.BEST_SPEED),
+    /** 標準のDEFLATE圧縮（ZipOutputStreamのデフォルトと同じ） */
+    DEFAULT(Deflater.DEFAULT_COMPRESSION),
+    /** 最大のDEFLATE圧縮 */
+    MAX(Deflater.BEST_COMPRESSION);
+
+    private final int deflaterLevel;
+
+    CompressionLevel(int deflaterLevel) {
+        this.deflaterLevel = deflaterLevel;
+    }
+
+    /**
+     * このレベルでデータを圧縮してエントリを生成する
+     *
+     * @param name    エントリ名
+     * @param content 圧縮前のデータ
+     * @return 圧縮済みのエントリ
+     */
+    public RawZipEntry compress(String name, byte[] content) {
+        if (this == STORED) {
+            return RawZipEntry.store(name, content);
+        }
+        return RawZipEntry.deflate(name, content, deflaterLevel);
+    }
+}
@@ -0,0 +1,17 @@
+package d3w;
+
+/**
+ * ZIPエントリごとに圧縮レベルを選択するポリシー
+ */
+@FunctionalInterface
+public interface CompressionPolicy {
+
+    /**
+     * エントリの圧縮レベルを選択する
+     *
+     * @param name    エントリ名
+     * @param content 圧縮前のデータ
+     * @return 圧縮レベル
+     */
+    CompressionLevel select(String name, byte[] content);
+}
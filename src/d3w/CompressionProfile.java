@@ -0,0 +1,104 @@
+package d3w;
+
+import java.util.zip.Deflater;
+
+/**
+ * 用途別の圧縮ポリシー
+ * <p>
+ * エントリのサイズと、先頭を試しに圧縮して求めた圧縮率の推定値から圧縮レベルを選択する。
+ * <ul>
+ *   <li>DEFAULT: 常に標準のDEFLATE圧縮（従来と同じ）</li>
+ *   <li>LATENCY: CPU時間を優先。小さいエントリや圧縮が効かないエントリは無圧縮、それ以外は高速圧縮</li>
+ *   <li>SIZE: 出力サイズを優先。圧縮が効かないエントリ以外は最大圧縮</li>
+ *   <li>BALANCED: 小さいエントリは無圧縮、中程度は高速圧縮、大きいエントリは標準圧縮</li>
+ * </ul>
+ */
+public enum CompressionProfile implements CompressionPolicy {
+
+    DEFAULT {
+        @Override
+        public CompressionLevel select(String name, byte[] content) {
+            return CompressionLevel.DEFAULT;
+        }
+    },
+
+    LATENCY {
+        @Override
+        public CompressionLevel select(String name, byte[] content) {
+            if (content.length < 8 * 1024 || estimateRatio(content) > INCOMPRESSIBLE_RATIO) {
+                return CompressionLevel.STORED;
+            }
+            return CompressionLevel.FAST;
+        }
+    },
+
+    SIZE {
+        @Override
+        public CompressionLevel select(String name, byte[] content) {
+            if (content.length >= SAMPLE_SIZE && estimateRatio(content) > INCOMPRESSIBLE_RATIO) {
+                return CompressionLevel.STORED;
+            }
+            return CompressionLevel.MAX;
+        }
+    },
+
+    BALANCED {
+        @Override
+        public CompressionLevel select(String name, byte[] content) {
+            if (content.length < 512 || estimateRatio(content) > INCOMPRESSIBLE_RATIO) {
+                return CompressionLevel.STORED;
+            }
+            if (content.length < 64 * 1024) {
+                return CompressionLevel.FAST;
+            }
+            return CompressionLevel.DEFAULT;
+        }
+    };
+
+    /** 圧縮率の推定に使用する先頭のバイト数 */
+    private static final int SAMPLE_SIZE = 4 * 1024;
+    /** 推定圧縮率（圧縮後/圧縮前）がこれを超える場合は圧縮が効かないとみなす */
+    private static final double INCOMPRESSIBLE_RATIO = 0.9;
+
+    /**
+     * データの先頭（最大4KB）を高速圧縮して圧縮率を推定する
+     *
+     * @param content データ
+     * @return 推定圧縮率（圧縮後/圧縮前。小さいほどよく圧縮できる）
+     */
+    static double estimateRatio(byte[] content) {
+        int sampleLength = Math.min(content.length, SAMPLE_SIZE);
+        if (sampleLength == 0) {
+            return 1.0;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(content, 0, sampleLength);
+            deflater.finish();
+            byte[] buffer = new byte[sampleLength + 64];
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < buffer.length) {
+                compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+            }
+            return (double) compressedLength / sampleLength;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 名前（大文字小文字を区別しない）からプロファイルを取得する
+     *
+     * @param name プロファイル名（default, latency, size, balanced）
+     * @return プロファイル（該当しない場合はnull）
+     */
+    public static CompressionProfile fromName(String name) {
+        for (CompressionProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package d3w;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ZIP構築時のエントリごとの圧縮結果（圧縮レベル、バイト数、所要時間）を記録するクラス
+ * <p>
+ * 合計は追加のたびに集計する。ストリーミング生成のようにエントリ数の上限がない場合は、
+ * エントリごとの結果を保持しない（keepEntries = false）ことで、件数によらず一定のメモリで集計できる。
+ */
+public class CompressionReport {
+
+    /** 雛型から解凍・再圧縮せずに書き写したエントリのレベル表記 */
+    public static final String PASS_THROUGH = "PASS_THROUGH";
+
+    private final List<Entry> entries;
+    private int entryCount;
+    private long totalSize;
+    private long totalCompressedSize;
+    private long totalNanos;
+
+    public CompressionReport() {
+        this(true);
+    }
+
+    /**
+     * @param keepEntries エントリごとの結果を保持するか（falseの場合は合計のみ集計する）
+     */
+    public CompressionReport(boolean keepEntries) {
+        this.entries = keepEntries ? new ArrayList<>() : null;
+    }
+
+    /**
+     * エントリの圧縮結果を追加する（ZIPへの書き込み順に呼び出す）
+     */
+    public void add(Entry entry) {
+        if (entries != null) {
+            entries.add(entry);
+        }
+        entryCount++;
+        totalSize += entry.size;
+        totalCompressedSize += entry.compressedSize;
+        totalNanos += entry.nanos;
+    }
+
+    /**
+     * エントリごとの圧縮結果を取得する（ZIPへの書き込み順、保持しない場合は空）
+     */
+    public List<Entry> getEntries() {
+        return entries == null ? Collections.<Entry>emptyList() : Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * エントリ数
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 圧縮前の合計バイト数
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * 圧縮後の合計バイト数
+     */
+    public long getTotalCompressedSize() {
+        return totalCompressedSize;
+    }
+
+    /**
+     * 圧縮に要した合計時間（ミリ秒、各スレッドの所要時間の合計）
+     */
+    public double getTotalMillis() {
+        return totalNanos / 1_000_000.0;
+    }
+
+    /**
+     * 集計結果を1行の文字列で返す
+     */
+    public String summary() {
+        return String.format("%d個のエントリ, %,d → %,d bytes, %.1f ms",
+                entryCount, getTotalSize(), getTotalCompressedSize(), getTotalMillis());
+    }
+
+    /**
+     * JSON形式でファイルに書き込む
+     *
+     * @param reportPath 書き込み先のパス
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void writeJson(Path reportPath) throws IOException {
+        JsonArray entryArray = new JsonArray();
+        for (Entry entry : getEntries()) {
+            JsonObject entryObj = new JsonObject();
+            entryObj.addProperty("name", entry.name);
+            entryObj.addProperty("level", entry.level);
+            entryObj.addProperty("size", entry.size);
+            entryObj.addProperty("compressedSize", entry.compressedSize);
+            entryObj.addProperty("millis", entry.nanos / 1_000_000.0);
+            entryArray.add(entryObj);
+        }
+
+        JsonObject report = new JsonObject();
+        report.addProperty("entryCount", entryCount);
+        report.addProperty("totalSize", getTotalSize());
+        report.addProperty("totalCompressedSize", getTotalCompressedSize());
+        report.addProperty("totalMillis", getTotalMillis());
+        report.add("entries", entryArray);
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        Files.write(reportPath, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * エントリ1件分の圧縮結果
+     */
+    public static class Entry {
+        private final String name;
+        private final String level;
+        private final long size;
+        private final long compressedSize;
+        private final long nanos;
+
+        /**
+         * @param name           エントリ名
+         * @param level          圧縮レベル（CompressionLevelの名前、またはPASS_THROUGH）
+         * @param size           圧縮前のバイト数
+         * @param compressedSize 圧縮後のバイト数
+         * @param nanos          圧縮に要した時間（ナノ秒）
+         */
+        public Entry(String name, String level, long size, long compressedSize, long nanos) {
+            this.name = name;
+            this.level = level;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.nanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package d3w;
+
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 進捗をコンソールに表示するリスナー（ProcessOptionsの既定）
+ * <p>
+ * ワークの生成は1件ごとには表示せず、一定間隔（既定は1秒）ごとと最後の1件で、
+ * 生成済みのワーク数、ワーク/秒、残り時間の見込みを表示する（ワーク数が不明な場合は、生成済みのワーク数とワーク/秒のみ）。
+ * 出力先を指定しない場合は、表示するたびにその時点の System.out に書き込む
+ * （System.setOut で出力を取り込む場合に対応するため）。
+ */
+public class ConsoleProgressListener implements ProgressListener {
+
+    /** ワークの生成の進捗を表示する間隔の既定値（ミリ秒） */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+
+    private final PrintStream out;
+    private final long intervalNanos;
+    /** 出力ファイルごとのワークの生成の進捗（ワーク生成のフェーズの間だけ保持する） */
+    private final Map<String, Rate> rates = new HashMap<>();
+
+    /**
+     * System.out に既定の間隔で表示する
+     */
+    public ConsoleProgressListener() {
+        this(null, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param out            出力先（nullの場合は表示するたびにその時点の System.out）
+     * @param intervalMillis ワークの生成の進捗を表示する間隔（ミリ秒、0の場合は1件ごとに表示する）
+     */
+    public ConsoleProgressListener(PrintStream out, long intervalMillis) {
+        this.out = out;
+        this.intervalNanos = intervalMillis * 1_000_000;
+    }
+
+    @Override
+    public synchronized void phaseStarted(String output, String phase) {
+        if (ProcessMetrics.GENERATE.equals(phase)) {
+            rates.put(output, new Rate(System.nanoTime()));
+        }
+        String label = label(phase);
+        if (label != null) {
+            out().println("\n--- " + label + " ---");
+        }
+    }
+
+    @Override
+    public synchronized void phaseFinished(String output, String phase, long nanos) {
+        if (ProcessMetrics.GENERATE.equals(phase)) {
+            Rate rate = rates.remove(output);
+            if (rate != null && rate.completed > 0) {
+                out().printf("✓ 生成完了: %,d個のワーク（%.1f ms, %,.1f ワーク/秒）%n",
+                        rate.completed, nanos / 1_000_000.0, rate.completed * 1e9 / Math.max(1, nanos));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void workGenerated(String output, int completed, int total, int workNumber,
+                                           String workName) {
+        Rate rate = rates.get(output);
+        if (rate == null) {
+            // フェーズの外で呼ばれた場合（差分ビルド等）も進捗を表示できるようにする
+            rate = new Rate(System.nanoTime());
+            rates.put(output, rate);
+        }
+        rate.completed = Math.max(rate.completed, completed);
+        long now = System.nanoTime();
+        boolean last = total >= 0 && completed >= total;
+        if (!last && now - rate.lastPrinted < intervalNanos) {
+            return;
+        }
+        rate.lastPrinted = now;
+
+        double seconds = (now - rate.start) / 1e9;
+        double perSecond = seconds > 0 ? completed / seconds : 0;
+        StringBuilder line = new StringBuilder(total < 0
+                ? String.format("[%d] %,.1f ワーク/秒", completed, perSecond)
+                : String.format("[%d/%d] %5.1f%%  %,.1f ワーク/秒",
+                completed, total, completed * 100.0 / Math.max(1, total), perSecond));
+        if (!last && total >= 0 && perSecond > 0) {
+            line.append("  残り約 ").append(formatDuration((long) ((total - completed) / perSecond)));
+        }
+        line.append("  ").append(workName);
+        out().println(line);
+    }
+
+    @Override
+    public void bytesWritten(String output, String path, long bytes) {
+        out().printf("✓ 書き込み完了: %s（%,d バイト）%n", Paths.get(path).getFileName(), bytes);
+    }
+
+    @Override
+    public void message(String output, String message) {
+        out().println(message);
+    }
+
+    private PrintStream out() {
+        return out != null ? out : System.out;
+    }
+
+    /**
+     * フェーズの見出し（見出しを表示しないフェーズはnull）
+     */
+    private static String label(String phase) {
+        switch (phase) {
+            case ProcessMetrics.GENERATE:
+                return "ワークファイル生成";
+            case ProcessMetrics.MAIN:
+                return "メインファイル編集";
+            case ProcessMetrics.BUILD:
+                return "D3Wファイル構築";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 秒数を h:mm:ss（1時間未満は m:ss）で表す
+     */
+    static String formatDuration(long seconds) {
+        long hours = seconds / 3600;
+        long minutes = seconds / 60 % 60;
+        long secs = seconds % 60;
+        return hours > 0
+                ? String.format("%d:%02d:%02d", hours, minutes, secs)
+                : String.format("%d:%02d", minutes, secs);
+    }
+
+    /**
+     * 出力ファイル1つ分のワークの生成の進捗
+     */
+    private static class Rate {
+        final long start;
+        long lastPrinted;
+        int completed;
+
+        Rate(long start) {
+            this.start = start;
+            this.lastPrinted = start;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package d3w;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 雛型・YAMLの内容のハッシュ（SHA-256）を計算するユーティリティクラス
+ * 雛型キャッシュのキーや、差分ビルドでの変更検出に使用する
+ */
+public class ContentHash {
+
+    /**
+     * バイト列のSHA-256を16進数の文字列で返す
+     *
+     * @param content バイト列
+     * @return SHA-256（小文字の16進数64文字）
+     */
+    public static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256はすべてのJava実装で利用できる
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package d3w;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * D3Wファイル（ZIP形式）の内容をメモリ上に保持するクラス
+ * <p>
+ * エントリ名（_, w1, e1, s1...）とその内容を読み込み順に保持する。
+ * 一時ディレクトリを経由せずに解凍・編集・再構築を行うために使用する。
+ * <p>
+ * 雛型から読み込んだエントリは圧縮済みのまま保持し、内容が必要になった時点で解凍する。
+ * 内容を置き換えていないエントリは、D3wBuilderで解凍・再圧縮せずにそのまま出力される。
+ * <p>
+ * JSONエントリは種別（_, w, e, s）と番号で索引付けしており、
+ * 「w1が存在し、w2以降が存在しない」といった検証は解凍せずに行える。
+ */
+public class D3wArchive {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<D3wEntryName.Kind, Map<Integer, D3wEntryName>> index = new EnumMap<>(D3wEntryName.Kind.class);
+
+    /**
+     * .d3wファイルをヒープに読み込み、各エントリを圧縮済みのまま保持するD3wArchiveを作成する
+     * メモリマップは使用しない（マッピングはGCで回収されるまで解放できず、その間Windowsではファイルを
+     * 削除・上書きできないため）。読み込んだ後は、ファイルを削除・上書きしても内容は変わらない。
+     *
+     * @param d3wFile .d3wファイルのパス
+     * @return 読み込んだD3wArchive
+     * @throws IOException 読み込みに失敗した場合、またはZIPの形式が不正な場合
+     */
+    public static D3wArchive read(Path d3wFile) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(d3wFile)));
+    }
+
+    /**
+     * ZIPの内容を保持するバッファのセントラルディレクトリを読み込み、D3wArchiveを作成する
+     * 各エントリはバッファの一部を圧縮済みのまま参照する
+     *
+     * @param zipContent ZIPファイルの内容（先頭から末尾まで）
+     * @return 読み込んだD3wArchive
+     * @throws IOException ZIPの形式が不正な場合
+     */
+    public static D3wArchive read(ByteBuffer zipContent) throws IOException {
+        D3wArchive archive = new D3wArchive();
+        for (RawZipEntry entry : RawZipReader.read(zipContent)) {
+            archive.putRaw(entry);
+        }
+        return archive;
+    }
+
+    /**
+     * エントリを共有したコピーを作成する
+     * 圧縮済みのデータと解凍済みの内容は共有し、エントリの追加・置き換え・削除はコピー元に影響しない
+     *
+     * @return コピーしたD3wArchive
+     */
+    public D3wArchive copy() {
+        D3wArchive copy = new D3wArchive();
+        for (Entry entry : entries.values()) {
+            copy.putEntry(new Entry(entry.name, entry.content, entry.raw));
+        }
+        return copy;
+    }
+
+    /**
+     * エントリの内容を取得する
+     * 圧縮済みのまま保持しているエントリは、この時点で解凍する
+     *
+     * @param name エントリ名
+     * @return エントリの内容（存在しない場合はnull）
+     * @throws IOException 解凍に失敗した場合
+     */
+    public byte[] get(String name) throws IOException {
+        Entry entry = entries.get(name);
+        return entry != null ? entry.getContent() : null;
+    }
+
+    /**
+     * 種別と番号を指定してエントリ名を取得する
+     *
+     * @param kind   種別
+     * @param number 番号（_の場合は0）
+     * @return エントリ名（存在しない場合はnull）
+     */
+    public D3wEntryName find(D3wEntryName.Kind kind, int number) {
+        Map<Integer, D3wEntryName> names = index.get(kind);
+        return names != null ? names.get(number) : null;
+    }
+
+    /**
+     * 指定した種別のエントリ名を番号順に取得する（解凍は行わない）
+     *
+     * @param kind 種別
+     * @return エントリ名のリスト
+     */
+    public List<D3wEntryName> findEntries(D3wEntryName.Kind kind) {
+        Map<Integer, D3wEntryName> names = index.get(kind);
+        List<D3wEntryName> result = names != null ? new ArrayList<>(names.values()) : new ArrayList<>();
+        result.sort(null);
+        return result;
+    }
+
+    /**
+     * 圧縮済みのエントリを取得する
+     *
+     * @param name エントリ名
+     * @return 雛型から読み込んだまま内容を置き換えていないエントリ（それ以外はnull）
+     */
+    public RawZipEntry getRaw(String name) {
+        Entry entry = entries.get(name);
+        return entry != null ? entry.raw : null;
+    }
+
+    /**
+     * エントリを追加または置き換える
+     *
+     * @param name    エントリ名
+     * @param content エントリの内容
+     */
+    public void put(String name, byte[] content) {
+        putEntry(new Entry(name, content, null));
+    }
+
+    /**
+     * 圧縮済みのエントリを追加または置き換える
+     *
+     * @param raw 圧縮済みのエントリ
+     */
+    public void putRaw(RawZipEntry raw) {
+        putEntry(new Entry(raw.getName(), null, raw));
+    }
+
+    /**
+     * エントリを削除する
+     *
+     * @param name エントリ名
+     * @return 削除したエントリの内容（存在しない場合はnull）
+     * @throws IOException 解凍に失敗した場合
+     */
+    public byte[] remove(String name) throws IOException {
+        Entry entry = entries.remove(name);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.entryName != null) {
+            index.get(entry.entryName.getKind()).remove(entry.entryName.getNumber(), entry.entryName);
+        }
+        return entry.getContent();
+    }
+
+    /**
+     * エントリが存在するか確認する
+     */
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * エントリ数を取得する
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * JSONファイル（_, w数字, e数字, s数字）のエントリ名を取得する
+     * D3wExtractor.findJsonFiles と同じ順序（_, e1, s1, w1, e2, s2, w2, ...）で返す
+     *
+     * @return エントリ名のリスト
+     */
+    public List<String> findJsonEntryNames() {
+        List<D3wEntryName> entryNames = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.entryName != null) {
+                entryNames.add(entry.entryName);
+            }
+        }
+        entryNames.sort(null);
+
+        List<String> names = new ArrayList<>(entryNames.size());
+        for (D3wEntryName entryName : entryNames) {
+            names.add(entryName.getName());
+        }
+        return names;
+    }
+
+    /**
+     * エントリを追加し、JSONエントリであれば索引に登録する
+     */
+    private void putEntry(Entry entry) {
+        Entry previous = entries.put(entry.name, entry);
+        if (previous != null && previous.entryName != null) {
+            index.get(previous.entryName.getKind()).remove(previous.entryName.getNumber(), previous.entryName);
+        }
+        if (entry.entryName != null) {
+            index.computeIfAbsent(entry.entryName.getKind(), kind -> new HashMap<>())
+                    .put(entry.entryName.getNumber(), entry.entryName);
+        }
+    }
+
+    /**
+     * エントリ1件分の内容
+     * content（解凍済みの内容）とraw（圧縮済みのエントリ）の少なくとも一方を保持する
+     */
+    private static class Entry {
+        private final String name;
+        /** 解析済みのエントリ名（JSONエントリでない場合はnull） */
+        private final D3wEntryName entryName;
+        private byte[] content;
+        private final RawZipEntry raw;
+
+        Entry(String name, byte[] content, RawZipEntry raw) {
+            this.name = name;
+            this.entryName = D3wEntryName.parse(name);
+            this.content = content;
+            this.raw = raw;
+        }
+
+        byte[] getContent() throws IOException {
+            if (content == null) {
+                content = raw.inflate();
+            }
+            return content;
+        }
+    }
+}
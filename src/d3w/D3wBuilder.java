@@ -2,39 +2,449 @@ package d3w;
 
 import java.io.*;
 import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 編集したJSONファイルをD3Wファイル（ZIP形式）に再構築するクラス
+ * <p>
+ * 並列度が2以上の場合、各エントリのDEFLATE圧縮を複数スレッドで並列に行い、
+ * 圧縮済みのエントリを元の順序でZIPに書き込む。
+ * <p>
+ * 圧縮ポリシー（CompressionPolicy）を指定した場合、エントリごとにサイズや圧縮率の推定値から
+ * 圧縮レベル（無圧縮・高速・標準・最大）を選択し、エントリごとの圧縮結果を返す。
+ * <p>
+ * エントリの一覧を事前に用意できない場合（ストリーミング生成）は、openStreaming で開いた
+ * StreamingWriterにエントリを1件ずつ渡す。
  */
 public class D3wBuilder {
-    
+
     /**
      * 指定ディレクトリ内のファイルをZIP化して.d3wファイルを作成する
-     * 
+     *
      * @param sourceDir ZIP化するディレクトリ
      * @param outputD3wPath 出力する.d3wファイルのパス
      * @throws IOException ZIP化に失敗した場合
      */
     public static void build(Path sourceDir, String outputD3wPath) throws IOException {
-        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(Paths.get(outputD3wPath)))) {
-            List<Path> files = D3wExtractor.findJsonFiles(sourceDir);
-            
-            for (Path file : files) {
-                String fileName = file.getFileName().toString();
-                
-                // ZIPエントリを作成
-                ZipEntry zipEntry = new ZipEntry(fileName);
-                zos.putNextEntry(zipEntry);
-                
-                // ファイル内容を書き込み
-                byte[] bytes = Files.readAllBytes(file);
-                zos.write(bytes);
-                zos.closeEntry();
+        build(sourceDir, outputD3wPath, 1);
+    }
+
+    /**
+     * 指定ディレクトリ内のファイルをZIP化して.d3wファイルを作成する
+     *
+     * @param sourceDir ZIP化するディレクトリ
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static void build(Path sourceDir, String outputD3wPath, int parallelism) throws IOException {
+        build(sourceDir, outputD3wPath, parallelism, CompressionProfile.DEFAULT);
+    }
+
+    /**
+     * 指定ディレクトリ内のファイルを、エントリごとに圧縮ポリシーで選択したレベルでZIP化する
+     *
+     * @param sourceDir ZIP化するディレクトリ
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @param policy 圧縮ポリシー
+     * @return エントリごとの圧縮結果
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static CompressionReport build(Path sourceDir, String outputD3wPath, int parallelism,
+                                          CompressionPolicy policy) throws IOException {
+        return build(sourceDir, outputD3wPath, parallelism, policy, CancellationToken.NONE);
+    }
+
+    /**
+     * 指定ディレクトリ内のファイルを、エントリごとに圧縮ポリシーで選択したレベルでZIP化する
+     * エントリ1件ごとに中断の要求を確認し、中断した場合は途中まで書き込んだ.d3wファイルを削除する
+     *
+     * @param sourceDir ZIP化するディレクトリ
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @param policy 圧縮ポリシー
+     * @param token 中断の要求を確認するトークン
+     * @return エントリごとの圧縮結果
+     * @throws ProcessCancelledException 中断が要求された場合
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static CompressionReport build(Path sourceDir, String outputD3wPath, int parallelism,
+                                          CompressionPolicy policy, CancellationToken token) throws IOException {
+        List<Callable<CompressedEntry>> tasks = new ArrayList<>();
+        for (Path file : D3wExtractor.findJsonFiles(sourceDir)) {
+            String fileName = file.getFileName().toString();
+            // ファイル内容を読み込んで圧縮
+            tasks.add(() -> compress(fileName, Files.readAllBytes(file), policy));
+        }
+
+        return write(tasks, outputD3wPath, parallelism, token);
+    }
+
+    /**
+     * メモリ上のD3wArchiveをZIP化して.d3wファイルを作成する
+     *
+     * @param archive ZIP化するD3wArchive
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static void build(D3wArchive archive, String outputD3wPath) throws IOException {
+        build(archive, outputD3wPath, 1);
+    }
+
+    /**
+     * メモリ上のD3wArchiveをZIP化して.d3wファイルを作成する
+     * 一時ディレクトリを経由せず、エントリの内容を直接ZIPに書き込む
+     * 雛型から読み込んだまま変更していないエントリ（e1, s1等）は、
+     * 解凍・再圧縮せずに圧縮済みのデータ、CRC、サイズをそのまま書き写す
+     *
+     * @param archive ZIP化するD3wArchive
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static void build(D3wArchive archive, String outputD3wPath, int parallelism) throws IOException {
+        build(archive, outputD3wPath, parallelism, CompressionProfile.DEFAULT);
+    }
+
+    /**
+     * メモリ上のD3wArchiveを、エントリごとに圧縮ポリシーで選択したレベルでZIP化する
+     * 変更していないエントリは圧縮ポリシーに関わらずそのまま書き写す
+     *
+     * @param archive ZIP化するD3wArchive
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @param policy 生成・編集したエントリの圧縮ポリシー
+     * @return エントリごとの圧縮結果
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static CompressionReport build(D3wArchive archive, String outputD3wPath, int parallelism,
+                                          CompressionPolicy policy) throws IOException {
+        return build(archive, outputD3wPath, parallelism, policy, CancellationToken.NONE);
+    }
+
+    /**
+     * メモリ上のD3wArchiveを、エントリごとに圧縮ポリシーで選択したレベルでZIP化する
+     * エントリ1件ごとに中断の要求を確認し、中断した場合は途中まで書き込んだ.d3wファイルを削除する
+     *
+     * @param archive ZIP化するD3wArchive
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @param policy 生成・編集したエントリの圧縮ポリシー
+     * @param token 中断の要求を確認するトークン
+     * @return エントリごとの圧縮結果
+     * @throws ProcessCancelledException 中断が要求された場合
+     * @throws IOException ZIP化に失敗した場合
+     */
+    public static CompressionReport build(D3wArchive archive, String outputD3wPath, int parallelism,
+                                          CompressionPolicy policy, CancellationToken token) throws IOException {
+        List<Callable<CompressedEntry>> tasks = new ArrayList<>();
+        for (String name : archive.findJsonEntryNames()) {
+            RawZipEntry raw = archive.getRaw(name);
+            if (raw != null) {
+                // 変更していないエントリはそのまま書き写す
+                CompressedEntry passThrough = new CompressedEntry(raw, CompressionReport.PASS_THROUGH, 0);
+                tasks.add(() -> passThrough);
+            } else {
+                // 生成・編集したエントリは圧縮して書き込む
+                byte[] content = archive.get(name);
+                tasks.add(() -> compress(name, content, policy));
             }
         }
+
+        return write(tasks, outputD3wPath, parallelism, token);
+    }
+
+    /**
+     * エントリを1件ずつ受け取ってZIPに書き込むライターを開く
+     * エントリ数の上限がない場合（ストリーミング生成）に使用する
+     *
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @param policy 生成・編集したエントリの圧縮ポリシー
+     * @param keepEntries エントリごとの圧縮結果を保持するか（falseの場合は合計のみ集計する）
+     * @param token 中断の要求を確認するトークン（エントリ1件ごとに確認する）
+     * @return ライター（finish を呼ばずに閉じた場合は、途中まで書き込んだ.d3wファイルを削除する）
+     * @throws IOException 出力ファイルを作成できない場合
+     */
+    public static StreamingWriter openStreaming(String outputD3wPath, int parallelism, CompressionPolicy policy,
+                                                boolean keepEntries, CancellationToken token) throws IOException {
+        return new StreamingWriter(Paths.get(outputD3wPath), parallelism, policy, keepEntries, token);
     }
 
+    /**
+     * エントリをZIPに書き込む（中断した場合は途中まで書き込んだファイルを残さない）
+     */
+    private static CompressionReport write(List<Callable<CompressedEntry>> tasks, String outputD3wPath,
+                                           int parallelism, CancellationToken token) throws IOException {
+        CompressionReport report = new CompressionReport();
+        try (RawZipWriter writer = new RawZipWriter(Files.newOutputStream(Paths.get(outputD3wPath)))) {
+            writeInOrder(writer, tasks, parallelism, report, token);
+        } catch (ProcessCancelledException e) {
+            Files.deleteIfExists(Paths.get(outputD3wPath));
+            throw e;
+        }
+        return report;
+    }
+
+    /**
+     * 圧縮ポリシーで選択したレベルでエントリを圧縮し、所要時間を計測する
+     * 所要時間にはレベルの選択（圧縮率の推定）も含める
+     */
+    private static CompressedEntry compress(String name, byte[] content, CompressionPolicy policy) {
+        long start = System.nanoTime();
+        CompressionLevel level = policy.select(name, content);
+        RawZipEntry entry = level.compress(name, content);
+        return new CompressedEntry(entry, level.name(), System.nanoTime() - start);
+    }
+
+    /**
+     * エントリの圧縮を並列に行い、元の順序でZIPに書き込む
+     * <p>
+     * 圧縮済みのエントリを保持するのは書き込み待ちの分（並列度の2倍まで）だけなので、
+     * エントリ数が多くてもメモリ使用量は増えない。
+     *
+     * @param writer 書き込み先
+     * @param tasks 圧縮済みのエントリを返す処理（書き込む順序）
+     * @param parallelism 圧縮の並列度（1以下の場合は逐次処理）
+     * @param report 書き込んだエントリの圧縮結果の記録先
+     * @param token 中断の要求を確認するトークン（エントリ1件ごとに確認する）
+     * @throws IOException 圧縮・書き込みに失敗した場合
+     */
+    private static void writeInOrder(RawZipWriter writer, List<Callable<CompressedEntry>> tasks, int parallelism,
+                                     CompressionReport report, CancellationToken token) throws IOException {
+        if (parallelism <= 1) {
+            for (Callable<CompressedEntry> task : tasks) {
+                token.throwIfCancelled();
+                write(writer, call(task), report);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Deque<Future<CompressedEntry>> pending = new ArrayDeque<>();
+            int window = parallelism * 2;
+            for (Callable<CompressedEntry> task : tasks) {
+                if (pending.size() >= window) {
+                    token.throwIfCancelled();
+                    write(writer, getResult(pending.removeFirst()), report);
+                }
+                pending.addLast(executor.submit(task));
+            }
+            while (!pending.isEmpty()) {
+                token.throwIfCancelled();
+                write(writer, getResult(pending.removeFirst()), report);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void write(RawZipWriter writer, CompressedEntry compressed, CompressionReport report)
+            throws IOException {
+        RawZipEntry entry = compressed.entry;
+        writer.write(entry);
+        report.add(new CompressionReport.Entry(entry.getName(), compressed.level, entry.getSize(),
+                entry.getCompressedSize(), compressed.nanos));
+    }
+
+    private static CompressedEntry call(Callable<CompressedEntry> task) throws IOException {
+        try {
+            return task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static CompressedEntry getResult(Future<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("ZIP構築が中断されました");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * エントリを1件ずつ受け取り、並列に圧縮しながら受け取った順序でZIPに書き込むライター
+     * <p>
+     * writeInOrder と同じく、圧縮済みのエントリを保持するのは書き込み待ちの分（並列度の2倍まで）だけで、
+     * 書き込み待ちが上限に達すると、put は先頭のエントリを書き込むまで待つ。
+     * エントリを渡すのは1つのスレッドから行うこと（内容を返す処理はワーカースレッドで呼ばれ、
+     * 書き込んだことの通知は put・drain・finish を呼んだスレッドで、エントリを渡した順序で呼ばれる）。
+     */
+    public static class StreamingWriter implements Closeable {
+        private final Path output;
+        private final RawZipWriter writer;
+        private final CompressionPolicy policy;
+        private final CancellationToken token;
+        private final CompressionReport report;
+        private final ExecutorService executor;
+        private final Deque<PendingEntry> pending = new ArrayDeque<>();
+        private final int window;
+        private boolean finished;
+
+        private StreamingWriter(Path output, int parallelism, CompressionPolicy policy, boolean keepEntries,
+                                CancellationToken token) throws IOException {
+            this.output = output;
+            this.writer = new RawZipWriter(Files.newOutputStream(output));
+            this.policy = policy;
+            this.token = token;
+            this.report = new CompressionReport(keepEntries);
+            this.executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+            this.window = parallelism * 2;
+        }
+
+        /**
+         * 雛型から読み込んだ圧縮済みのエントリを、解凍・再圧縮せずに書き写す
+         *
+         * @param raw 圧縮済みのエントリ
+         * @throws IOException 書き込みに失敗した場合
+         */
+        public void putRaw(RawZipEntry raw) throws IOException {
+            CompressedEntry passThrough = new CompressedEntry(raw, CompressionReport.PASS_THROUGH, 0);
+            submit(() -> passThrough, null);
+        }
+
+        /**
+         * エントリの内容を作成し、圧縮ポリシーで選択したレベルで圧縮して書き込む
+         *
+         * @param name エントリ名
+         * @param content エントリの内容を返す処理（並列度が2以上の場合はワーカースレッドで呼ばれる）
+         * @throws ProcessCancelledException 中断が要求された場合
+         * @throws IOException 内容の作成・圧縮・書き込みに失敗した場合
+         */
+        public void put(String name, Callable<byte[]> content) throws IOException {
+            put(name, content, null);
+        }
+
+        /**
+         * エントリの内容を作成し、圧縮ポリシーで選択したレベルで圧縮して書き込む
+         *
+         * @param name エントリ名
+         * @param content エントリの内容を返す処理（並列度が2以上の場合はワーカースレッドで呼ばれる）
+         * @param written エントリを書き込んだ後に呼ぶ処理（nullの場合は何もしない）
+         * @throws ProcessCancelledException 中断が要求された場合
+         * @throws IOException 内容の作成・圧縮・書き込みに失敗した場合
+         */
+        public void put(String name, Callable<byte[]> content, Runnable written) throws IOException {
+            submit(() -> compress(name, content.call(), policy), written);
+        }
+
+        private void submit(Callable<CompressedEntry> task, Runnable written) throws IOException {
+            token.throwIfCancelled();
+            if (executor == null) {
+                write(call(task), written);
+                return;
+            }
+            if (pending.size() >= window) {
+                writeFirst();
+            }
+            pending.addLast(new PendingEntry(executor.submit(task), written));
+        }
+
+        private void writeFirst() throws IOException {
+            PendingEntry first = pending.removeFirst();
+            write(getResult(first.future), first.written);
+        }
+
+        private void write(CompressedEntry compressed, Runnable written) throws IOException {
+            D3wBuilder.write(writer, compressed, report);
+            if (written != null) {
+                written.run();
+            }
+        }
+
+        /**
+         * 書き込み待ちのエントリをすべて書き込む
+         *
+         * @throws ProcessCancelledException 中断が要求された場合
+         * @throws IOException 圧縮・書き込みに失敗した場合
+         */
+        public void drain() throws IOException {
+            while (!pending.isEmpty()) {
+                token.throwIfCancelled();
+                writeFirst();
+            }
+        }
+
+        /**
+         * 書き込み待ちのエントリを書き込み、セントラルディレクトリを書き込んでZIPを完成させる
+         *
+         * @return 書き込んだエントリの圧縮結果
+         * @throws ProcessCancelledException 中断が要求された場合
+         * @throws IOException 圧縮・書き込みに失敗した場合
+         */
+        public CompressionReport finish() throws IOException {
+            drain();
+            writer.close();
+            finished = true;
+            return report;
+        }
+
+        /**
+         * 圧縮のスレッドを終了する（finish の前に閉じた場合は、途中まで書き込んだ.d3wファイルを削除する）
+         */
+        @Override
+        public void close() throws IOException {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (!finished) {
+                try {
+                    writer.close();
+                } finally {
+                    Files.deleteIfExists(output);
+                }
+            }
+        }
+
+        /**
+         * 圧縮中のエントリと、書き込んだ後に呼ぶ処理
+         */
+        private static class PendingEntry {
+            private final Future<CompressedEntry> future;
+            private final Runnable written;
+
+            PendingEntry(Future<CompressedEntry> future, Runnable written) {
+                this.future = future;
+                this.written = written;
+            }
+        }
+    }
+
+    /**
+     * 圧縮済みのエントリと、圧縮に使用したレベル・所要時間
+     */
+    private static class CompressedEntry {
+        private final RawZipEntry entry;
+        private final String level;
+        private final long nanos;
+
+        CompressedEntry(RawZipEntry entry, String level, long nanos) {
+            this.entry = entry;
+            this.level = level;
+            this.nanos = nanos;
+        }
+    }
 }
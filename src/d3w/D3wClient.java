@@ -0,0 +1,149 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 常駐しているD3wServerにジョブを送信する軽量クライアント
+ * <p>
+ * YAMLの解析やZIP処理は行わず、パスをサーバーに送信して結果を表示するだけのため、
+ * 起動時に読み込むクラスが少なく、既存のスクリプトからMainの代わりに呼び出せる。
+ * 使用方法:
+ *   java -cp d3w-processor.jar d3w.D3wClient [--port=N] [--output=FILE] <雛型.d3wファイル> <設定.ymlファイル1> [...]
+ *   java -cp d3w-processor.jar d3w.D3wClient [--port=N] --shutdown
+ * 出力ファイルを指定しない場合は、Mainと同じく雛型と同じディレクトリに output_yyyyMMddHHmmss.d3w を生成する。
+ */
+public class D3wClient {
+
+    public static void main(String[] args) {
+        int port = D3wServer.DEFAULT_PORT;
+        String output = null;
+        boolean shutdown = false;
+        final List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--output=")) {
+                output = arg.substring("--output=".length());
+            } else if (arg.equals("--shutdown")) {
+                shutdown = true;
+            } else {
+                arguments.add(arg);
+            }
+        }
+
+        try {
+            if (shutdown) {
+                post(port, "/shutdown", new JsonObject());
+                System.out.println("✓ サーバーを停止しました");
+                return;
+            }
+            if (arguments.size() < 2) {
+                System.err.println("使用方法: java -cp d3w-processor.jar d3w.D3wClient [--port=N] [--output=FILE]"
+                        + " <雛型.d3wファイル> <設定.ymlファイル1> [<設定.ymlファイル2> ...]");
+                System.exit(1);
+            }
+
+            Path template = Paths.get(arguments.get(0)).toAbsolutePath();
+            if (output == null) {
+                // Mainと同じく雛型と同じディレクトリに出力する
+                String timestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+                output = template.resolveSibling("output_" + timestamp + ".d3w").toString();
+            }
+            List<String> yamls = new ArrayList<>();
+            for (String yaml : arguments.subList(1, arguments.size())) {
+                yamls.add(Paths.get(yaml).toAbsolutePath().toString());
+            }
+
+            JsonObject response = process(port, template.toString(), yamls,
+                    Paths.get(output).toAbsolutePath().toString());
+            if (response.get("success").getAsBoolean()) {
+                System.out.println("✓ 生成ファイル: " + response.get("output").getAsString()
+                        + " (" + response.get("works").getAsInt() + "個のワーク, "
+                        + response.get("millis").getAsLong() + " ms)");
+            } else {
+                System.err.println("エラー: " + response.get("error").getAsString());
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("エラー: サーバーに接続できません（127.0.0.1:" + port + "）: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * ジョブを送信し、完了後の結果を返す
+     *
+     * @param port     サーバーのポート
+     * @param template 雛型.d3wファイルの絶対パス
+     * @param yamls    設定YAMLファイルの絶対パスのリスト
+     * @param output   出力する.d3wファイルの絶対パス
+     * @return サーバーのレスポンス（success, output, works, millis または success, errorType, error）
+     * @throws IOException 通信に失敗した場合
+     */
+    public static JsonObject process(int port, String template, List<String> yamls, String output)
+            throws IOException {
+        JsonObject request = new JsonObject();
+        request.addProperty("template", template);
+        JsonArray yamlArray = new JsonArray();
+        for (String yaml : yamls) {
+            yamlArray.add(yaml);
+        }
+        request.add("yamls", yamlArray);
+        request.addProperty("output", output);
+        return post(port, "/process", request);
+    }
+
+    /**
+     * JSONをPOSTし、レスポンスのJSONを返す（エラーのステータスでもレスポンスのJSONを返す）
+     *
+     * @param port    サーバーのポート
+     * @param path    エンドポイントのパス
+     * @param request 送信するJSON
+     * @return レスポンスのJSON
+     * @throws IOException 通信に失敗した場合
+     */
+    public static JsonObject post(int port, String path, JsonObject request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            int status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                return JsonParser.parseString(readAll(in)).getAsJsonObject();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            body.write(buffer, 0, length);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,123 @@
+package d3w;
+
+/**
+ * D3Wファイル内のJSONエントリ名（_, w数字, e数字, s数字）を種別と番号に分解したもの
+ * <p>
+ * 名前の解析は1回だけ行い、以降の比較・検索は種別と番号で行う。
+ */
+public final class D3wEntryName implements Comparable<D3wEntryName> {
+
+    /**
+     * エントリの種別
+     */
+    public enum Kind {
+        /** メインファイル（_） */
+        MAIN('_'),
+        /** ワーク（w） */
+        WORK('w'),
+        /** エンベロープ（e） */
+        ENVELOPE('e'),
+        /** サービス（s） */
+        SERVICE('s');
+
+        private final char prefix;
+
+        Kind(char prefix) {
+            this.prefix = prefix;
+        }
+
+        public char getPrefix() {
+            return prefix;
+        }
+
+        static Kind fromPrefix(char prefix) {
+            switch (prefix) {
+                case 'w':
+                    return WORK;
+                case 'e':
+                    return ENVELOPE;
+                case 's':
+                    return SERVICE;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final int number;
+
+    private D3wEntryName(String name, Kind kind, int number) {
+        this.name = name;
+        this.kind = kind;
+        this.number = number;
+    }
+
+    /**
+     * エントリ名を解析する
+     *
+     * @param name エントリ名
+     * @return 解析結果（JSONエントリ名でない場合はnull）
+     */
+    public static D3wEntryName parse(String name) {
+        if (name.equals("_")) {
+            return new D3wEntryName(name, Kind.MAIN, 0);
+        }
+        if (name.length() < 2 || name.length() > 10) {
+            return null;
+        }
+        Kind kind = Kind.fromPrefix(name.charAt(0));
+        if (kind == null) {
+            return null;
+        }
+
+        long number = 0;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            number = number * 10 + (c - '0');
+        }
+        if (number > Integer.MAX_VALUE) {
+            return null;
+        }
+        return new D3wEntryName(name, kind, (int) number);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 番号を取得する（_の場合は0）
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * D3wExtractor.findJsonFiles と同じ順序（_ が最初、以降は番号順、同じ番号は名前の先頭文字順）で比較する
+     */
+    @Override
+    public int compareTo(D3wEntryName other) {
+        if (kind == Kind.MAIN || other.kind == Kind.MAIN) {
+            return Boolean.compare(other.kind == Kind.MAIN, kind == Kind.MAIN);
+        }
+        if (number != other.number) {
+            return Integer.compare(number, other.number);
+        }
+        int result = Character.compare(kind.prefix, other.kind.prefix);
+        return result != 0 ? result : name.compareTo(other.name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
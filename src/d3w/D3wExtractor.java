@@ -4,6 +4,8 @@ import java.io.*;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -21,6 +23,21 @@ public class D3wExtractor {
      * @throws IOException 解凍処理に失敗した場合
      */
     public static Path extract(String d3wFilePath, String outputDir) throws IOException {
+        return extract(d3wFilePath, outputDir, CancellationToken.NONE);
+    }
+    
+    /**
+     * .d3wファイル(ZIP)を解凍して、指定ディレクトリに展開する（エントリ1件ごとに中断の要求を確認する）
+     * 中断した場合、解凍済みのファイルは解凍先ディレクトリに残る（一時ディレクトリの削除は呼び出し元で行う）
+     * 
+     * @param d3wFilePath 解凍対象の.d3wファイルのパス
+     * @param outputDir 解凍先ディレクトリ
+     * @param token 中断の要求を確認するトークン
+     * @return 解凍先ディレクトリのPath
+     * @throws ProcessCancelledException 中断が要求された場合
+     * @throws IOException 解凍処理に失敗した場合
+     */
+    public static Path extract(String d3wFilePath, String outputDir, CancellationToken token) throws IOException {
         Path outputPath = Paths.get(outputDir);
         
         // 出力ディレクトリが存在しない場合は作成
@@ -31,6 +48,7 @@ public class D3wExtractor {
         try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(Paths.get(d3wFilePath)))) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
+                token.throwIfCancelled();
                 Path filePath = outputPath.resolve(entry.getName());
                 
                 if (entry.isDirectory()) {
@@ -69,6 +87,21 @@ public class D3wExtractor {
         return extract(d3wFilePath, tempDir.toString());
     }
     
+    /**
+     * .d3wファイル(ZIP)をメモリ上に読み込む
+     * 一時ディレクトリへの書き出しは行わない
+     * セントラルディレクトリのみを解析し、各エントリは圧縮済みのまま保持して内容が必要になった時点で解凍する
+     * 読み込んだ雛型は処理の終了後も保持される場合がある（PreparedTemplate等）ため、ヒープへ読み込む
+     * （保持中もファイルを削除・上書きでき、上書きされても読み込んだ内容が変わらないように）
+     * 
+     * @param d3wFilePath 読み込み対象の.d3wファイルのパス
+     * @return 読み込んだD3wArchive
+     * @throws IOException 読み込み処理に失敗した場合
+     */
+    public static D3wArchive readArchive(String d3wFilePath) throws IOException {
+        return D3wArchive.read(Paths.get(d3wFilePath));
+    }
+    
     /**
      * 解凍したディレクトリ内のJSONファイル（拡張子なし）を検索する
      * ファイル名パターン: _, w1, e1, s1, w2, e2, s2, ...
@@ -78,52 +111,22 @@ public class D3wExtractor {
      * @throws IOException ファイル検索に失敗した場合
      */
     public static List<Path> findJsonFiles(Path extractedDir) throws IOException {
-        List<Path> jsonFiles = new ArrayList<>();
+        Map<D3wEntryName, Path> jsonFiles = new TreeMap<>();
         
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(extractedDir)) {
             for (Path path : stream) {
                 if (Files.isRegularFile(path)) {
-                    String fileName = path.getFileName().toString();
                     // _, w数字, e数字, s数字 のパターンにマッチするファイル
-                    if (fileName.equals("_") || 
-                        fileName.matches("[wes]\\d+")) {
-                        jsonFiles.add(path);
+                    // （名前は1回だけ解析し、ソートは解析済みの種別と番号で行う）
+                    D3wEntryName entryName = D3wEntryName.parse(path.getFileName().toString());
+                    if (entryName != null) {
+                        jsonFiles.put(entryName, path);
                     }
                 }
             }
         }
         
-        // ファイル名でソート（_, w1, e1, s1, w2, e2, s2, ... の順）
-        jsonFiles.sort((p1, p2) -> {
-            String name1 = p1.getFileName().toString();
-            String name2 = p2.getFileName().toString();
-            
-            // "_" は最初
-            if (name1.equals("_")) return -1;
-            if (name2.equals("_")) return 1;
-            
-            // w, e, s の順で、同じプレフィックスなら数字順
-            return compareFileNames(name1, name2);
-        });
-        
-        return jsonFiles;
-    }
-    
-    /**
-     * ファイル名を比較する（w1 < e1 < s1 < w2 < e2 < s2 の順）
-     */
-    private static int compareFileNames(String name1, String name2) {
-        char prefix1 = name1.charAt(0);
-        char prefix2 = name2.charAt(0);
-        
-        int num1 = Integer.parseInt(name1.substring(1));
-        int num2 = Integer.parseInt(name2.substring(1));
-        
-        if (num1 != num2) {
-            return Integer.compare(num1, num2);
-        }
-        
-        // 同じ番号の場合は w < e < s の順
-        return Character.compare(prefix1, prefix2);
+        // ファイル名でソート（_, e1, s1, w1, e2, s2, w2, ... の順）
+        return new ArrayList<>(jsonFiles.values());
     }
 }
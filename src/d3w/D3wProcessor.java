@@ -4,15 +4,26 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import d3w.model.YamlInfo;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * D3Wファイル処理のメインクラス
@@ -27,11 +38,27 @@ import java.util.Set;
  * 7. テンプレートファイルを削除
  * 8. _ファイル（メイン）を編集
  * 9. 編集後のすべてのファイルを1つの.d3wファイルに再構築
+ * <p>
+ * ProcessOptions#inMemory が有効な場合は一時ディレクトリを使用せず、
+ * 雛型のZIPエントリをメモリ上に読み込んで編集し、出力ZIPへ直接書き込む。
+ * <p>
+ * ProcessOptions#incremental が有効な場合は、前回の出力と「出力ファイル名.manifest.json」を使用し、
+ * YAMLが変更されたワークのみを生成する（変更のないワークは前回の出力から圧縮済みのまま書き写す）。
+ * <p>
+ * ProcessOptions#streaming が有効な場合は、YAMLを1件ずつ読み込み、生成したワークをすぐに出力ZIPへ書き込む
+ * （processStream）。ワークの内容は保持せず、_ファイル（メイン）は最後のエントリとして書き込む。
+ * 1つのYAMLファイルに `---` 区切りで複数のワーク設定を記載した場合（processDocuments）も、同じ方法で生成する。
  */
 public class D3wProcessor {
 
     private static final String TEMPLATE_FILE_NAME = "_template_work";
 
+    /**
+     * ストリーミング生成で、ワーク1件ごとの所要時間の標本として保持する件数の上限
+     * ワーク数に比例してメモリを使用しないよう、上限を超えた分はリザーバーサンプリングで間引く。
+     */
+    static final int STREAMING_LATENCY_SAMPLES = 10_000;
+
     /**
      * D3Wファイルを処理する（複数YAMLから1つの.d3wを生成）
      *
@@ -42,87 +69,788 @@ public class D3wProcessor {
      */
     public static void process(String templateD3wPath, List<String> yamlPaths, String outputD3wPath)
             throws Exception {
+        process(templateD3wPath, yamlPaths, outputD3wPath, new ProcessOptions());
+    }
+
+    /**
+     * D3Wファイルを処理する（複数YAMLから1つの.d3wを生成）
+     *
+     * @param templateD3wPath 雛型となる.d3wファイルのパス
+     * @param yamlPaths       設定YAMLファイルのパスリスト
+     * @param outputD3wPath   出力する.d3wファイルのパス
+     * @param options         処理オプション
+     * @throws ProcessCancelledException 中断が要求された場合（制限時間を超えた場合を含む）
+     * @throws Exception 処理に失敗した場合
+     */
+    public static void process(String templateD3wPath, List<String> yamlPaths, String outputD3wPath,
+                               ProcessOptions options) throws Exception {
 
-        System.out.println("\n=== 処理開始 ===");
+        ProcessMetrics metrics = new ProcessMetrics(templateD3wPath, outputD3wPath, options.getProgressListener());
+        try {
+            processFiles(templateD3wPath, yamlPaths, outputD3wPath, withDeadline(options), metrics);
+        } catch (ProcessCancelledException e) {
+            throw cancelled(metrics, e);
+        }
+    }
+
+    private static void processFiles(String templateD3wPath, List<String> yamlPaths, String outputD3wPath,
+                                     ProcessOptions options, ProcessMetrics metrics) throws Exception {
+        options.getCancellationToken().throwIfCancelled();
+        report(metrics, "\n=== 処理開始 ===");
+
+        if (options.isIncremental()) {
+            processIncremental(templateD3wPath, yamlPaths, outputD3wPath, options, metrics);
+            writeMetrics(metrics, outputD3wPath, options);
+            report(metrics, "\n=== 処理完了 ===");
+            return;
+        }
+
+        if (options.isStreaming()) {
+            // 雛型を読み込んだ後、YAMLファイルを1件ずつ読み込みながらワークを生成する
+            streamWorks(loadTemplate(templateD3wPath, metrics), YamlInfoLoader.iterate(yamlPaths),
+                    yamlPaths.size(), outputD3wPath, options, metrics);
+            writeMetrics(metrics, outputD3wPath, options);
+            report(metrics, "\n=== 処理完了 ===");
+            return;
+        }
 
         // 1. YAMLファイルを解析してYamlInfoリストを生成
-        List<YamlInfo> yamlInfos = loadYamlInfos(yamlPaths);
-        System.out.println("✓ 読み込み完了: " + yamlInfos.size() + "個のワーク設定");
+        List<YamlInfo> yamlInfos = loadYamls(yamlPaths, options, metrics);
         // ワーク名に重複がないかチェックする。
         hasDuplicateWorkName(yamlInfos);
 
+        if (options.isInMemory()) {
+            processInMemory(templateD3wPath, yamlInfos, outputD3wPath, options, metrics);
+        } else {
+            processOnDisk(templateD3wPath, yamlInfos, outputD3wPath, options, metrics);
+        }
+
+        writeMetrics(metrics, outputD3wPath, options);
+        report(metrics, "\n=== 処理完了 ===");
+    }
+
+    /**
+     * 読み込み・検証済みの雛型を使用してD3Wファイルを処理する（複数YAMLから1つの.d3wを生成）
+     * 雛型の読み込み・検証は行わないため、同じ雛型から複数の.d3wを生成する場合に使用する
+     * 処理はメモリ上で行う（ProcessOptions#inMemory の値は使用しない）
+     * ProcessOptions#streaming が有効な場合は、YAMLファイルを1件ずつ読み込みながら生成する
+     *
+     * @param template      読み込み・検証済みの雛型
+     * @param yamlPaths     設定YAMLファイルのパスリスト
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param options       処理オプション
+     * @throws ProcessCancelledException 中断が要求された場合（制限時間を超えた場合を含む）
+     * @throws Exception 処理に失敗した場合
+     */
+    public static void process(PreparedTemplate template, List<String> yamlPaths, String outputD3wPath,
+                               ProcessOptions options) throws Exception {
+
+        ProcessMetrics metrics = new ProcessMetrics(template.getPath(), outputD3wPath, options.getProgressListener());
+        ProcessOptions jobOptions = withDeadline(options);
+        try {
+            jobOptions.getCancellationToken().throwIfCancelled();
+            report(metrics, "\n=== 処理開始 ===");
+
+            if (jobOptions.isStreaming()) {
+                streamWorks(template, YamlInfoLoader.iterate(yamlPaths), yamlPaths.size(), outputD3wPath,
+                        jobOptions, metrics);
+                writeMetrics(metrics, outputD3wPath, jobOptions);
+                report(metrics, "\n=== 処理完了 ===");
+                return;
+            }
+
+            // 1. YAMLファイルを解析してYamlInfoリストを生成
+            List<YamlInfo> yamlInfos = loadYamls(yamlPaths, jobOptions, metrics);
+
+            processWorks(template, yamlInfos, outputD3wPath, jobOptions, metrics);
+        } catch (ProcessCancelledException e) {
+            throw cancelled(metrics, e);
+        }
+    }
+
+    /**
+     * 1つのYAMLファイルに `---` 区切りで記載した複数のワーク設定から.d3wファイルを生成する
+     * ワーク設定はドキュメントごとに読み込み、ストリーミング生成（processStream と同じ方法）で書き込むため、
+     * YAMLファイル全体の解析結果も、生成したワークの内容も保持しない
+     *
+     * @param templateD3wPath 雛型となる.d3wファイルのパス
+     * @param worksYamlPath   ワーク設定を記載したYAMLファイルのパス（ドキュメント1つが1ワーク）
+     * @param outputD3wPath   出力する.d3wファイルのパス
+     * @param options         処理オプション（inMemory、incremental、streaming の値は使用しない）
+     * @throws ProcessCancelledException 中断が要求された場合（制限時間を超えた場合を含む）
+     * @throws Exception 処理に失敗した場合（途中まで書き込んだ出力ファイルは削除する）
+     */
+    public static void processDocuments(String templateD3wPath, String worksYamlPath, String outputD3wPath,
+                                        ProcessOptions options) throws Exception {
+        ProcessMetrics metrics = new ProcessMetrics(templateD3wPath, outputD3wPath, options.getProgressListener());
+        ProcessOptions jobOptions = withDeadline(options);
+        try (YamlInfoLoader.DocumentIterator yamlInfos = YamlInfoLoader.openDocuments(worksYamlPath)) {
+            jobOptions.getCancellationToken().throwIfCancelled();
+            report(metrics, "\n=== 処理開始 ===");
+
+            // ワーク数はすべてのドキュメントを読み込むまでわからないため、不明（-1）とする
+            streamWorks(loadTemplate(templateD3wPath, metrics), yamlInfos, -1, outputD3wPath, jobOptions, metrics);
+
+            writeMetrics(metrics, outputD3wPath, jobOptions);
+            report(metrics, "\n=== 処理完了 ===");
+        } catch (ProcessCancelledException e) {
+            throw cancelled(metrics, e);
+        }
+    }
+
+    /**
+     * 読み込み・検証済みの雛型と、ワーク設定のイテレーターから.d3wファイルをストリーミング生成する
+     * <p>
+     * ワーク設定は1件ずつ取り出し、wNを生成したらすぐに出力ZIPへ書き込む（並列度が2以上の場合は、
+     * 並列度の2倍までのワークを並行して生成・圧縮する）。生成したワークの内容は書き込んだら破棄し、
+     * _ファイル（メイン）のworksに載せる参照情報だけを保持する。
+     * 雛型のエントリ（e1, s1等）を先頭に書き写し、_ファイルは最後のエントリとして書き込む。
+     * <p>
+     * ワークの内容はワーク数によらず一定のメモリで処理するが、次の状態はワーク数に比例して増える
+     * （いずれもワーク1件あたり数十～数百バイト程度）。
+     * <ul>
+     *   <li>ワーク名の重複チェックに使用する、書き込んだワーク名のセット</li>
+     *   <li>_ファイルのworksに載せる、ワークごとの参照情報（シリアライズ済みのJSON）</li>
+     *   <li>出力ZIPのセントラルディレクトリに書き込む、エントリごとの情報</li>
+     *   <li>圧縮レポートを出力する場合（ProcessOptions#compressionReport）は、エントリごとの圧縮結果</li>
+     * </ul>
+     * ワーク1件ごとの所要時間は STREAMING_LATENCY_SAMPLES 件までの標本として保持するため、ワーク数に比例しない。
+     *
+     * @param template      読み込み・検証済みの雛型
+     * @param yamlInfos     ワーク設定のイテレーター（取り出すたびに読み込むものでもよい）
+     * @param total         ワーク数（進捗の表示に使用する。不明な場合は-1）
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param options       処理オプション（inMemory、incremental、streaming の値は使用しない）
+     * @throws ProcessCancelledException 中断が要求された場合（制限時間を超えた場合を含む）
+     * @throws Exception 処理に失敗した場合（途中まで書き込んだ出力ファイルは削除する）
+     */
+    public static void processStream(PreparedTemplate template, Iterator<YamlInfo> yamlInfos, int total,
+                                     String outputD3wPath, ProcessOptions options) throws Exception {
+        ProcessMetrics metrics = new ProcessMetrics(template.getPath(), outputD3wPath, options.getProgressListener());
+        ProcessOptions jobOptions = withDeadline(options);
+        try {
+            jobOptions.getCancellationToken().throwIfCancelled();
+            report(metrics, "\n=== 処理開始 ===");
+
+            streamWorks(template, yamlInfos, total, outputD3wPath, jobOptions, metrics);
+
+            writeMetrics(metrics, outputD3wPath, jobOptions);
+            report(metrics, "\n=== 処理完了 ===");
+        } catch (ProcessCancelledException e) {
+            throw cancelled(metrics, e);
+        }
+    }
+
+    /**
+     * 読み込み・検証済みの雛型と、読み込み済みのワーク設定から.d3wファイルを生成する
+     * YAMLファイルを経由せずにワーク設定を受け取る場合（サーバーモードのインラインYAML等）に使用する
+     *
+     * @param template      読み込み・検証済みの雛型
+     * @param yamlInfos     ワーク設定のリスト
+     * @param outputD3wPath 出力する.d3wファイルのパス
+     * @param options       処理オプション
+     * @throws ProcessCancelledException 中断が要求された場合（制限時間を超えた場合を含む）
+     * @throws Exception 処理に失敗した場合
+     */
+    public static void processWorks(PreparedTemplate template, List<YamlInfo> yamlInfos, String outputD3wPath,
+                                    ProcessOptions options) throws Exception {
+        ProcessMetrics metrics = new ProcessMetrics(template.getPath(), outputD3wPath, options.getProgressListener());
+        try {
+            processWorks(template, yamlInfos, outputD3wPath, withDeadline(options), metrics);
+        } catch (ProcessCancelledException e) {
+            throw cancelled(metrics, e);
+        }
+    }
+
+    private static void processWorks(PreparedTemplate template, List<YamlInfo> yamlInfos, String outputD3wPath,
+                                     ProcessOptions options, ProcessMetrics metrics) throws Exception {
+        options.getCancellationToken().throwIfCancelled();
+        // ワーク名に重複がないかチェックする。
+        hasDuplicateWorkName(yamlInfos);
+
+        processPrepared(template, yamlInfos, outputD3wPath, options, metrics);
+
+        writeMetrics(metrics, outputD3wPath, options);
+        report(metrics, "\n=== 処理完了 ===");
+    }
+
+    /**
+     * 制限時間を指定した場合は、この時点から制限時間を数えるトークンを設定したコピーを返す
+     */
+    private static ProcessOptions withDeadline(ProcessOptions options) {
+        if (options.getTimeoutMillis() <= 0) {
+            return options;
+        }
+        ProcessOptions copy = options.copy();
+        copy.setCancellationToken(options.getCancellationToken().withTimeout(options.getTimeoutMillis()));
+        copy.setTimeoutMillis(0);
+        return copy;
+    }
+
+    /**
+     * 中断した時点のフェーズと生成済みのワーク数を通知し、それらを含む例外を返す
+     * （一時ディレクトリと途中まで書き込んだ出力ファイルは、例外が伝わる途中で削除済み）
+     */
+    private static ProcessCancelledException cancelled(ProcessMetrics metrics, ProcessCancelledException e) {
+        ProcessCancelledException cancelled = new ProcessCancelledException(e.getReason(),
+                metrics.getCurrentPhase(), metrics.getGeneratedWorks(), metrics.getTotalWorks());
+        report(metrics, "\n✗ 処理を中断しました: " + cancelled.getMessage());
+        return cancelled;
+    }
+
+    /**
+     * YAMLファイルを解析してYamlInfoリストを生成する
+     */
+    private static List<YamlInfo> loadYamls(List<String> yamlPaths, ProcessOptions options, ProcessMetrics metrics)
+            throws Exception {
+        List<YamlInfo> yamlInfos;
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.YAML)) {
+            YamlInfoLoader.LoadResult loaded = YamlInfoLoader.load(yamlPaths, options.getParallelism(),
+                    options.getCancellationToken());
+            yamlInfos = loaded.getYamlInfos();
+            phase.addBytesRead(loaded.getBytesRead());
+            phase.addEntries(yamlInfos.size());
+        }
+        report(metrics, "✓ 読み込み完了: " + yamlInfos.size() + "個のワーク設定");
+        return yamlInfos;
+    }
+
+    /**
+     * 一時ディレクトリに解凍して処理する
+     */
+    private static void processOnDisk(String templateD3wPath, List<YamlInfo> yamlInfos, String outputD3wPath,
+                                      ProcessOptions options, ProcessMetrics metrics) throws Exception {
         // 2. 雛型.d3wファイルを一時ディレクトリに解凍
         // try-with-resourcesを使用して自動的にクリーンアップ
         try (TempDirectory tempDirectory = TempDirectory.create("d3w_extract_")) {
-            Path extractedDir = D3wExtractor.extract(templateD3wPath, tempDirectory.getPath().toString());
-            System.out.println("✓ 解凍完了: " + extractedDir);
-            // 3. 既存のJSONファイルを検索
-            List<Path> existingJsonFiles = D3wExtractor.findJsonFiles(extractedDir);
-            System.out.println("✓ 既存ファイル: " + existingJsonFiles.size() + "個");
-
-            // 4. _ファイル（メイン）を取得
-            Path mainJsonFile = findMainJsonFile(existingJsonFiles);
-            if (mainJsonFile == null) {
-                throw new IllegalStateException("エラー: _ファイルが見つかりません");
-            }
+            Path extractedDir;
+            Path mainJsonFile;
+            Path templateWorkFile;
+            WorkTemplate workTemplate;
+            try (ProcessMetrics.Phase extractPhase = metrics.start(ProcessMetrics.EXTRACT)) {
+                extractPhase.addBytesRead(Files.size(Paths.get(templateD3wPath)));
+                extractedDir = D3wExtractor.extract(templateD3wPath, tempDirectory.getPath().toString(),
+                        options.getCancellationToken());
+                report(metrics, "✓ 解凍完了: " + extractedDir);
+                // 3. 既存のJSONファイルを検索
+                List<Path> existingJsonFiles = D3wExtractor.findJsonFiles(extractedDir);
+                report(metrics, "✓ 既存ファイル: " + existingJsonFiles.size() + "個");
+                extractPhase.addEntries(existingJsonFiles.size());
 
-            // 5. バリデーション（w1が存在、w2以降が存在しない）
-            System.out.println("\n--- 雛型ファイル検証 ---");
-            Path originalW1File = validateTemplateFiles(existingJsonFiles);
-            System.out.println("✓ 検証完了");
+                // 4. _ファイル（メイン）を取得
+                mainJsonFile = findMainJsonFile(existingJsonFiles);
+                if (mainJsonFile == null) {
+                    throw new IllegalStateException("エラー: _ファイルが見つかりません");
+                }
 
-            // 6. 雛型のw1ファイルを別名でコピー（テンプレートとして保存）
-            System.out.println("\n--- 雛型ワークファイル保存 ---");
-            Path templateWorkFile = preserveTemplateWorkFile(originalW1File, extractedDir);
+                // 5. バリデーション（w1が存在、w2以降が存在しない）
+                report(metrics, "\n--- 雛型ファイル検証 ---");
+                validateTemplateFiles(toWorkEntryNames(existingJsonFiles), metrics.getListener(), outputD3wPath);
+                Path originalW1File = extractedDir.resolve("w1");
+                report(metrics, "✓ 検証完了");
 
-            // 7. 雛型のw1ファイルを削除
-            System.out.println("\n--- 雛型ワークファイル削除 ---");
-            Files.delete(originalW1File);
-            System.out.println("✓ 削除: " + originalW1File.getFileName());
+                // 6. 雛型のw1ファイルを別名でコピー（テンプレートとして保存）
+                report(metrics, "\n--- 雛型ワークファイル保存 ---");
+                templateWorkFile = preserveTemplateWorkFile(originalW1File, extractedDir);
+                report(metrics, "✓ テンプレート保存: " + originalW1File.getFileName() + " → "
+                        + templateWorkFile.getFileName());
 
-            // 8. 各YamlInfoに対してw1, w2, w3...ファイルを生成
-            System.out.println("\n--- ワークファイル生成 ---");
-            List<WorkReference> generatedWorks = new ArrayList<>();
-            for (int i = 0; i < yamlInfos.size(); i++) {
-                YamlInfo yamlInfo = yamlInfos.get(i);
-                int workNumber = i + 1;
+                // テンプレートは1回だけ解析し、ワークごとにコピーを払い出す
+                workTemplate = WorkTemplate.compile(templateWorkFile);
 
-                System.out.println("[" + workNumber + "/" + yamlInfos.size() + "] " + yamlInfo.getWorkName());
-
-                // w1, w2, w3...ファイルを生成（ファイルシステム上のテンプレートを使用）
-                WorkReference workRef = createWorkFile(extractedDir, workNumber, yamlInfo, templateWorkFile);
-                generatedWorks.add(workRef);
+                // 7. 雛型のw1ファイルを削除
+                report(metrics, "\n--- 雛型ワークファイル削除 ---");
+                Files.delete(originalW1File);
+                report(metrics, "✓ 削除: " + originalW1File.getFileName());
+            }
 
-                System.out.println("  ✓ 生成: w" + workNumber);
+            // 8. 各YamlInfoに対してw1, w2, w3...ファイルを生成（解析済みのテンプレートを使用）
+            List<WorkReference> generatedWorks = new ArrayList<>();
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.GENERATE)) {
+                for (GeneratedWork work : generateWorks(yamlInfos, workTemplate, options, metrics, phase)) {
+                    Files.write(extractedDir.resolve(work.reference.path), work.content);
+                    generatedWorks.add(work.reference);
+                }
             }
 
             // 9. テンプレートファイルを削除
             Files.delete(templateWorkFile);
-            System.out.println("\n✓ テンプレートファイル削除: " + templateWorkFile.getFileName());
+            report(metrics, "\n✓ テンプレートファイル削除: " + templateWorkFile.getFileName());
 
             // 10. _ファイル（メイン）を編集
-            System.out.println("\n--- メインファイル編集 ---");
-            editMainFile(mainJsonFile, generatedWorks);
-            System.out.println("✓ 編集完了: _");
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.MAIN)) {
+                editMainFile(mainJsonFile, generatedWorks);
+                phase.addEntries(1);
+            }
+            report(metrics, "✓ 編集完了: _");
 
             // 11. 出力ディレクトリを作成
-            Path outputPath = Paths.get(outputD3wPath);
-            Path outputDir = outputPath.getParent();
-            if (outputDir != null && !Files.exists(outputDir)) {
-                Files.createDirectories(outputDir);
-            }
+            Path outputPath = createOutputDirectory(outputD3wPath);
 
             // 12. すべてのファイルを1つの.d3wファイルに再構築
-            System.out.println("\n--- D3Wファイル構築 ---");
-            D3wBuilder.build(extractedDir, outputD3wPath);
-            System.out.println("✓ 構築完了: " + outputPath.getFileName());
+            CompressionReport report;
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.BUILD)) {
+                report = D3wBuilder.build(extractedDir, outputD3wPath, options.getParallelism(),
+                        options.getCompressionPolicy(), options.getCancellationToken());
+                recordBuild(phase, report, outputPath);
+            }
+            writeCompressionReport(report, outputD3wPath, options, metrics);
 
 
-            System.out.println("✓ クリーンアップ完了");
-            System.out.println("\n=== 処理完了 ===");
+            report(metrics, "✓ クリーンアップ完了");
         } // try-with-resources により自動的に一時ディレクトリが削除される
     }
 
+    /**
+     * 一時ディレクトリを使用せず、メモリ上で処理する
+     * 雛型のZIPエントリを直接読み込み、編集結果を出力ZIPへ直接書き込む
+     */
+    private static void processInMemory(String templateD3wPath, List<YamlInfo> yamlInfos, String outputD3wPath,
+                                        ProcessOptions options, ProcessMetrics metrics) throws Exception {
+        // 2～6. 雛型.d3wファイルの読み込みと検証
+        PreparedTemplate template = loadTemplate(templateD3wPath, metrics);
+
+        // 7～10. ワークの生成と.d3wファイルの構築
+        processPrepared(template, yamlInfos, outputD3wPath, options, metrics);
+    }
+
+    /**
+     * 雛型.d3wファイルをメモリ上に読み込んで検証する（EXTRACTフェーズとして計測する）
+     */
+    private static PreparedTemplate loadTemplate(String templateD3wPath, ProcessMetrics metrics) throws Exception {
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.EXTRACT)) {
+            phase.addBytesRead(Files.size(Paths.get(templateD3wPath)));
+            PreparedTemplate template = prepareTemplate(templateD3wPath, metrics.getListener());
+            phase.addEntries(template.size());
+            return template;
+        }
+    }
+
+    /**
+     * 雛型.d3wファイルをメモリ上に読み込んで検証し、w1を解析する
+     *
+     * @param templateD3wPath 雛型.d3wファイルのパス
+     * @param listener        進捗を通知するリスナー
+     * @return 読み込み・検証済みの雛型
+     * @throws Exception 読み込みに失敗した場合、または雛型が不正な場合
+     */
+    static PreparedTemplate prepareTemplate(String templateD3wPath, ProgressListener listener) throws Exception {
+        // 2. 雛型.d3wファイルをメモリ上に読み込み
+        return prepareTemplate(templateD3wPath, D3wExtractor.readArchive(templateD3wPath), listener);
+    }
+
+    /**
+     * 読み込み済みの雛型.d3wファイルを検証し、w1を解析する
+     *
+     * @param templateD3wPath 雛型.d3wファイルのパス
+     * @param archive         雛型.d3wファイルの内容（w1を取り除くため、以降は使用しないこと）
+     * @param listener        進捗を通知するリスナー
+     * @return 読み込み・検証済みの雛型
+     * @throws Exception 雛型が不正な場合
+     */
+    static PreparedTemplate prepareTemplate(String templateD3wPath, D3wArchive archive, ProgressListener listener)
+            throws Exception {
+        listener.message(null, "✓ 読み込み完了（メモリ上）: " + archive.size() + "個のエントリ");
+
+        // 3. 既存のJSONエントリを検索
+        List<String> existingEntries = archive.findJsonEntryNames();
+        listener.message(null, "✓ 既存ファイル: " + existingEntries.size() + "個");
+
+        // 4. _ファイル（メイン）を確認
+        if (archive.find(D3wEntryName.Kind.MAIN, 0) == null) {
+            throw new IllegalStateException("エラー: _ファイルが見つかりません");
+        }
+
+        // 5. バリデーション（w1が存在、w2以降が存在しない）
+        // エントリの索引のみを参照するため、解凍は行わない
+        listener.message(null, "\n--- 雛型ファイル検証 ---");
+        validateTemplateFiles(archive.findEntries(D3wEntryName.Kind.WORK), listener, null);
+        listener.message(null, "✓ 検証完了");
+
+        // 6. 雛型のw1をテンプレートとして取り出す（アーカイブからは削除）
+        // テンプレートは1回だけ解析し、ワークごとにコピーを払い出す
+        WorkTemplate workTemplate = WorkTemplate.compile(archive.remove("w1"));
+
+        return new PreparedTemplate(templateD3wPath, archive, workTemplate, archive.get("_"));
+    }
+
+    /**
+     * 読み込み・検証済みの雛型からワークを生成し、.d3wファイルを構築する
+     */
+    private static void processPrepared(PreparedTemplate template, List<YamlInfo> yamlInfos, String outputD3wPath,
+                                        ProcessOptions options, ProcessMetrics metrics) throws Exception {
+        D3wArchive archive = template.newArchive();
+
+        // 7. 各YamlInfoに対してw1, w2, w3...エントリを生成
+        List<WorkReference> generatedWorks = new ArrayList<>();
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.GENERATE)) {
+            for (GeneratedWork work : generateWorks(yamlInfos, template.getWorkTemplate(), options, metrics, phase)) {
+                archive.put(work.reference.path, work.content);
+                generatedWorks.add(work.reference);
+            }
+        }
+
+        // 8. _ファイル（メイン）を編集
+        editMainEntry(archive, template, generatedWorks, metrics);
+        report(metrics, "✓ 編集完了: _");
+
+        // 9. 出力ディレクトリを作成
+        Path outputPath = createOutputDirectory(outputD3wPath);
+
+        // 10. すべてのエントリを1つの.d3wファイルに直接書き込み
+        CompressionReport report;
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.BUILD)) {
+            report = D3wBuilder.build(archive, outputD3wPath, options.getParallelism(),
+                    options.getCompressionPolicy(), options.getCancellationToken());
+            recordBuild(phase, report, outputPath);
+        }
+        writeCompressionReport(report, outputD3wPath, options, metrics);
+    }
+
+    /**
+     * ワーク設定を1件ずつ取り出してワークを生成し、出力ZIPへすぐに書き込む
+     * 書き込み待ちのワーク（並列度の2倍まで）を除き、ワークの内容は保持しない。
+     * 書き込んだワークについては、_ファイルのworksに載せるJSONと、重複チェック用のワーク名だけを保持する
+     */
+    private static void streamWorks(PreparedTemplate template, Iterator<YamlInfo> yamlInfos, int total,
+                                    String outputD3wPath, ProcessOptions options, ProcessMetrics metrics)
+            throws Exception {
+        CancellationToken token = options.getCancellationToken();
+        WorkTemplate workTemplate = template.getWorkTemplate();
+        D3wArchive archive = template.newArchive();
+        Path outputPath = createOutputDirectory(outputD3wPath);
+
+        WorksArray works = new WorksArray();
+        CompressionReport report;
+        try (D3wBuilder.StreamingWriter writer = D3wBuilder.openStreaming(outputD3wPath, options.getParallelism(),
+                options.getCompressionPolicy(), options.isCompressionReport(), token)) {
+            // 7. 雛型のエントリ（_以外）を先に書き写す
+            for (String name : archive.findJsonEntryNames()) {
+                if (name.equals("_")) {
+                    continue;
+                }
+                RawZipEntry raw = archive.getRaw(name);
+                if (raw != null) {
+                    writer.putRaw(raw);
+                } else {
+                    byte[] content = archive.get(name);
+                    writer.put(name, () -> content);
+                }
+            }
+
+            // 8. ワーク設定を1件ずつ取り出し、w1, w2, w3...エントリを生成して書き込む
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.GENERATE)) {
+                phase.limitLatencySamples(STREAMING_LATENCY_SAMPLES);
+                WorkProgress progress = new WorkProgress(token, metrics, phase, total);
+                Set<String> workNames = new HashSet<>();
+                int workCount = 0;
+                while (hasNext(yamlInfos, token)) {
+                    YamlInfo yamlInfo = next(yamlInfos);
+                    // ワーク名に重複がないかチェックする。
+                    addWorkName(workNames, yamlInfo.getWorkName());
+                    int workNumber = ++workCount;
+                    StreamedWork work = new StreamedWork();
+                    writer.put("w" + workNumber, () -> {
+                        GeneratedWork generated = createWork(workTemplate, workNumber, yamlInfo, progress);
+                        work.reference = generated.reference;
+                        work.nanos = generated.nanos;
+                        work.size = generated.content.length;
+                        return generated.content;
+                    }, () -> {
+                        // 書き込んだ順（YAMLの順序）に参照情報をworksへ追加し、計測結果を記録する
+                        works.add(work.reference);
+                        phase.recordLatency(work.nanos);
+                        phase.addBytesWritten(work.size);
+                        phase.addEntries(1);
+                    });
+                }
+                writer.drain();
+            }
+
+            // 9. _ファイル（メイン）を編集し、最後のエントリとして書き込む
+            byte[] main;
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.MAIN)) {
+                main = works.toMainContent(template);
+                phase.addBytesWritten(main.length);
+                phase.addEntries(1);
+            }
+            writer.put("_", () -> main);
+            report(metrics, "✓ 編集完了: _");
+
+            // 10. 書き込み待ちのエントリとセントラルディレクトリを書き込む
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.BUILD)) {
+                report = writer.finish();
+                recordBuild(phase, report, outputPath);
+            }
+        }
+        writeCompressionReport(report, outputD3wPath, options, metrics);
+    }
+
+    /**
+     * 中断の要求を確認してから、次のワーク設定があるかを返す
+     */
+    private static boolean hasNext(Iterator<YamlInfo> yamlInfos, CancellationToken token) throws IOException {
+        token.throwIfCancelled();
+        try {
+            return yamlInfos.hasNext();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 次のワーク設定を取り出す（読み込みに失敗した場合は元のIOExceptionを投げる）
+     */
+    private static YamlInfo next(Iterator<YamlInfo> yamlInfos) throws IOException {
+        try {
+            return yamlInfos.next();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 前回の出力とマニフェストを使用して差分ビルドする（メモリ上で処理する）
+     * <p>
+     * ワークの内容は雛型のw1とYAMLの内容だけで決まるため、雛型のハッシュが前回と同じ場合、
+     * YAMLのハッシュが一致するワークは前回の出力から圧縮済みのまま書き写す（番号が変わった場合は名前のみ変更する）。
+     * 変更・追加されたYAMLのワークのみ生成し、_ファイル（メイン）は常に書き直す。
+     * 出力は一時ファイルに書き込んでから置き換えるため、失敗しても前回の出力は残る。
+     */
+    private static void processIncremental(String templateD3wPath, List<String> yamlPaths, String outputD3wPath,
+                                           ProcessOptions options, ProcessMetrics metrics) throws Exception {
+        // 1. 雛型とYAMLファイルのハッシュを計算
+        byte[] templateContent;
+        String templateHash;
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.EXTRACT)) {
+            templateContent = Files.readAllBytes(Paths.get(templateD3wPath));
+            templateHash = ContentHash.sha256(templateContent);
+            phase.addBytesRead(templateContent.length);
+        }
+        List<String> yamlHashes;
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.YAML)) {
+            // 各スレッドは自分の担当するインデックスにのみ書き込む（ParallelMapperが全タスクの完了を待ってから返す）
+            long[] yamlSizes = new long[yamlPaths.size()];
+            yamlHashes = ParallelMapper.map(yamlPaths, options.getParallelism(), (index, yamlPath) -> {
+                options.getCancellationToken().throwIfCancelled();
+                byte[] yamlContent = Files.readAllBytes(Paths.get(yamlPath));
+                yamlSizes[index] = yamlContent.length;
+                return ContentHash.sha256(yamlContent);
+            });
+            for (long yamlSize : yamlSizes) {
+                phase.addBytesRead(yamlSize);
+            }
+        }
+
+        // 2. 前回の出力とマニフェストを読み込み（雛型または対応表が変わった場合は使用しない）
+        // 前回の出力は置き換えるため、メモリマップせずにヒープへ読み込む
+        Path outputPath = Paths.get(outputD3wPath);
+        Path manifestPath = BuildManifest.pathFor(outputD3wPath);
+        String mappingHash = WorkMapping.getDefault().hash();
+        D3wArchive previousArchive = null;
+        Map<String, Deque<BuildManifest.WorkRecord>> reusableWorks = new HashMap<>();
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.EXTRACT)) {
+            BuildManifest previous = BuildManifest.read(manifestPath);
+            if (previous != null && templateHash.equals(previous.getTemplateHash())
+                    && mappingHash.equals(previous.getMappingHash()) && Files.exists(outputPath)) {
+                byte[] previousContent = Files.readAllBytes(outputPath);
+                phase.addBytesRead(previousContent.length);
+                previousArchive = D3wArchive.read(ByteBuffer.wrap(previousContent));
+                for (BuildManifest.WorkRecord record : previous.getWorks()) {
+                    if (previousArchive.getRaw(record.getPath()) != null) {
+                        reusableWorks.computeIfAbsent(record.getYamlHash(), hash -> new ArrayDeque<>()).add(record);
+                    }
+                }
+                report(metrics, "✓ 前回の出力: " + previous.getWorks().size() + "個のワーク");
+            } else {
+                report(metrics, "✓ 前回の出力を使用できないため、すべてのワークを生成します");
+            }
+        }
+
+        // 3. YAMLごとに、前回のワークを再利用するか生成するかを決める
+        List<BuildManifest.WorkRecord> reusedRecords = new ArrayList<>();
+        List<Integer> changedIndexes = new ArrayList<>();
+        List<String> changedPaths = new ArrayList<>();
+        for (int i = 0; i < yamlPaths.size(); i++) {
+            Deque<BuildManifest.WorkRecord> candidates = reusableWorks.get(yamlHashes.get(i));
+            BuildManifest.WorkRecord record = candidates != null ? candidates.poll() : null;
+            reusedRecords.add(record);
+            if (record == null) {
+                changedIndexes.add(i);
+                changedPaths.add(yamlPaths.get(i));
+            }
+        }
+
+        // 4. 変更されたYAMLファイルのみ解析（読み込んだバイト数はハッシュ計算で記録済み）
+        List<YamlInfo> changedInfos;
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.YAML)) {
+            changedInfos = YamlInfoLoader.loadAll(changedPaths, options.getParallelism(),
+                    options.getCancellationToken());
+            phase.addEntries(yamlPaths.size());
+        }
+        report(metrics, "✓ 読み込み完了: " + yamlPaths.size() + "個のワーク設定（変更: " + changedInfos.size() + "個）");
+
+        // ワーク名に重複がないかチェックする（再利用するワークは前回のワーク名を使用）。
+        List<String> workNames = new ArrayList<>();
+        for (int i = 0, changed = 0; i < yamlPaths.size(); i++) {
+            BuildManifest.WorkRecord record = reusedRecords.get(i);
+            workNames.add(record != null ? record.getWorkName() : changedInfos.get(changed++).getWorkName());
+        }
+        checkDuplicateWorkNames(workNames);
+
+        // 5. 雛型を検証し、変更されたワークのみ生成
+        PreparedTemplate template;
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.EXTRACT)) {
+            template = prepareTemplate(templateD3wPath, D3wArchive.read(ByteBuffer.wrap(templateContent)),
+                    metrics.getListener());
+            phase.addEntries(template.size());
+        }
+        WorkTemplate workTemplate = template.getWorkTemplate();
+        D3wArchive archive = template.newArchive();
+        List<WorkReference> works = new ArrayList<>();
+        List<BuildManifest.WorkRecord> records = new ArrayList<>();
+        try (ProcessMetrics.Phase generatePhase = metrics.start(ProcessMetrics.GENERATE)) {
+            WorkProgress progress = new WorkProgress(options.getCancellationToken(), metrics, generatePhase,
+                    changedInfos.size());
+            List<GeneratedWork> changedWorks = ParallelMapper.map(changedInfos, options.getParallelism(),
+                    (index, yamlInfo) -> createWork(workTemplate, changedIndexes.get(index) + 1, yamlInfo, progress));
+            recordWorks(generatePhase, changedWorks);
+
+            // 6. YAMLの順序でw1, w2, w3...エントリを並べる（再利用するワークは名前のみ変更）
+            for (int i = 0, changed = 0; i < yamlPaths.size(); i++) {
+                String path = "w" + (i + 1);
+                BuildManifest.WorkRecord record = reusedRecords.get(i);
+                if (record != null) {
+                    archive.putRaw(previousArchive.getRaw(record.getPath()).withName(path));
+                    WorkReference workRef = new WorkReference();
+                    workRef.contentClass = record.getContentClass();
+                    workRef.key = "";
+                    workRef.name = record.getName();
+                    workRef.path = path;
+                    works.add(workRef);
+                } else {
+                    GeneratedWork work = changedWorks.get(changed++);
+                    archive.put(path, work.content);
+                    works.add(work.reference);
+                }
+                records.add(new BuildManifest.WorkRecord(path, yamlHashes.get(i), workNames.get(i),
+                        works.get(i).contentClass, works.get(i).name));
+            }
+        }
+
+        // 7. _ファイル（メイン）を編集
+        editMainEntry(archive, template, works, metrics);
+        report(metrics, "✓ 編集完了: _");
+
+        // 8. 一時ファイルに構築してから前回の出力を置き換え、マニフェストを更新
+        createOutputDirectory(outputD3wPath);
+        Path tempOutput = Files.createTempFile(outputPath.toAbsolutePath().getParent(), ".d3w_", ".tmp");
+        try {
+            CompressionReport report;
+            try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.BUILD)) {
+                report = D3wBuilder.build(archive, tempOutput.toString(), options.getParallelism(),
+                        options.getCompressionPolicy(), options.getCancellationToken());
+                recordBuild(phase, report, tempOutput);
+            }
+            replaceFile(tempOutput, outputPath);
+            writeCompressionReport(report, outputD3wPath, options, metrics);
+        } finally {
+            Files.deleteIfExists(tempOutput);
+        }
+        new BuildManifest(templateHash, mappingHash, records).write(manifestPath);
+        report(metrics, "✓ マニフェスト更新: " + manifestPath.getFileName()
+                + "（再利用: " + (yamlPaths.size() - changedInfos.size()) + "個, 生成: " + changedInfos.size() + "個）");
+    }
+
+    /**
+     * ファイルを置き換える（可能な場合はアトミックに移動する）
+     */
+    private static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 出力ファイルのサイズと圧縮結果の集計を通知し、オプションで指定された場合は「出力ファイル名.compression.json」に書き出す
+     */
+    private static void writeCompressionReport(CompressionReport report, String outputD3wPath,
+                                               ProcessOptions options, ProcessMetrics metrics) throws IOException {
+        reportWritten(metrics, Paths.get(outputD3wPath));
+        report(metrics, "  圧縮: " + report.summary());
+        if (options.isCompressionReport()) {
+            Path reportPath = Paths.get(outputD3wPath + ".compression.json");
+            report.writeJson(reportPath);
+            reportWritten(metrics, reportPath);
+        }
+    }
+
+    /**
+     * フェーズごとの計測結果を表示し、オプションで指定された場合は「出力ファイル名.metrics.json」に書き出す
+     */
+    private static void writeMetrics(ProcessMetrics metrics, String outputD3wPath, ProcessOptions options)
+            throws IOException {
+        metrics.finish();
+        report(metrics, "  計測: " + metrics.summary());
+        if (options.isMetrics()) {
+            Path metricsPath = Paths.get(outputD3wPath + ".metrics.json");
+            metrics.writeJson(metricsPath);
+            reportWritten(metrics, metricsPath);
+        }
+    }
+
+    /**
+     * 処理の経過をProgressListenerに通知する
+     */
+    private static void report(ProcessMetrics metrics, String message) {
+        metrics.getListener().message(metrics.getOutput(), message);
+    }
+
+    /**
+     * ファイルを書き出したことをProgressListenerに通知する
+     */
+    private static void reportWritten(ProcessMetrics metrics, Path path) throws IOException {
+        metrics.getListener().bytesWritten(metrics.getOutput(), path.toString(), Files.size(path));
+    }
+
+    /**
+     * .d3wファイルの構築で読み書きしたバイト数とエントリ数を記録する
+     * 読み込んだバイト数は圧縮前のエントリの合計、書き込んだバイト数は出力ファイルのサイズとする
+     */
+    private static void recordBuild(ProcessMetrics.Phase phase, CompressionReport report, Path output)
+            throws IOException {
+        phase.addBytesRead(report.getTotalSize());
+        phase.addBytesWritten(Files.size(output));
+        phase.addEntries(report.getEntryCount());
+    }
+
+    /**
+     * 生成したワークの件数・バイト数と、ワーク1件ごとの所要時間を記録する
+     */
+    private static void recordWorks(ProcessMetrics.Phase phase, List<GeneratedWork> works) {
+        for (GeneratedWork work : works) {
+            phase.recordLatency(work.nanos);
+            phase.addBytesWritten(work.content.length);
+        }
+        phase.addEntries(works.size());
+    }
+
+    /**
+     * 出力先の親ディレクトリを作成する
+     *
+     * @return 出力ファイルのPath
+     */
+    private static Path createOutputDirectory(String outputD3wPath) throws IOException {
+        Path outputPath = Paths.get(outputD3wPath);
+        Path outputDir = outputPath.getParent();
+        if (outputDir != null && !Files.exists(outputDir)) {
+            Files.createDirectories(outputDir);
+        }
+        return outputPath;
+    }
+
     /**
      * _ファイル（メインファイル）を探す
      */
@@ -139,14 +867,35 @@ public class D3wProcessor {
      * YamlInfoに重複したワーク名がないかチェックする。
      */
     private static void hasDuplicateWorkName(List<YamlInfo> yamlInfos) {
+        List<String> workNames = new ArrayList<>();
+        for (YamlInfo yamlInfo : yamlInfos) {
+            workNames.add(yamlInfo.getWorkName());
+        }
+        checkDuplicateWorkNames(workNames);
+    }
+
+    /**
+     * ワーク名のリストに重複がないかチェックする。
+     * （Launcher・サーバーモードのように同じプロセスで処理を続ける場合があるため、終了せずに例外を投げる）
+     *
+     * @throws IllegalStateException 重複したワーク名が存在する場合
+     */
+    private static void checkDuplicateWorkNames(List<String> workNames) {
         Set<String> workNameSet = new HashSet<>();
 
-        for (YamlInfo yamlInfo : yamlInfos) {
-            String workName = yamlInfo.getWorkName();
-            if (!workNameSet.add(workName)) {
-                System.err.println("エラー: YAMLファイルに重複したワーク名が存在します。：" + workName);
-                System.exit(1);
-            }
+        for (String workName : workNames) {
+            addWorkName(workNameSet, workName);
+        }
+    }
+
+    /**
+     * ワーク名を追加する（ストリーミング生成では、ワーク設定を取り出すたびに重複をチェックする）
+     *
+     * @throws IllegalStateException 追加済みのワーク名の場合
+     */
+    private static void addWorkName(Set<String> workNames, String workName) {
+        if (!workNames.add(workName)) {
+            throw new IllegalStateException("YAMLファイルに重複したワーク名が存在します。：" + workName);
         }
     }
 
@@ -155,31 +904,31 @@ public class D3wProcessor {
      * - w1ファイルが存在すること
      * - w2以降のファイルが存在しないこと
      *
-     * @param existingJsonFiles 既存のJSONファイルリスト
-     * @return w1ファイルのPath
+     * @param workEntryNames 既存のワーク（w数字）のエントリ名リスト
+     * @param listener       進捗を通知するリスナー
+     * @param output         出力する.d3wファイルのパス（雛型の準備の場合はnull）
      * @throws IllegalStateException バリデーションエラーの場合
      */
-    private static Path validateTemplateFiles(List<Path> existingJsonFiles) {
-        Path w1File = null;
+    private static void validateTemplateFiles(List<D3wEntryName> workEntryNames, ProgressListener listener,
+                                              String output) {
+        boolean hasW1File = false;
         List<String> invalidWorkFiles = new ArrayList<>();
 
-        for (Path file : existingJsonFiles) {
-            String fileName = file.getFileName().toString();
-
+        for (D3wEntryName entryName : workEntryNames) {
             // w1の存在確認
-            if (fileName.equals("w1")) {
-                w1File = file;
-                System.out.println("  ✓ w1ファイル: 存在");
+            if (entryName.getName().equals("w1")) {
+                hasW1File = true;
+                listener.message(output, "  ✓ w1ファイル: 存在");
             }
 
             // w2以降の存在確認
-            if (fileName.matches("w[2-9]\\d*")) {
-                invalidWorkFiles.add(fileName);
+            if (entryName.getNumber() >= 2) {
+                invalidWorkFiles.add(entryName.getName());
             }
         }
 
         // エラーチェック
-        if (w1File == null) {
+        if (!hasW1File) {
             throw new IllegalStateException(
                     "エラー: 雛型.d3wファイルにw1ファイルが存在しません。\n" +
                             "雛型ファイルには必ずw1ファイルが必要です。"
@@ -193,8 +942,20 @@ public class D3wProcessor {
                             "w2以降のファイルは自動生成されるため、事前に存在してはいけません。"
             );
         }
+    }
 
-        return w1File;
+    /**
+     * Pathのリストからワーク（w数字）のエントリ名を取り出す
+     */
+    private static List<D3wEntryName> toWorkEntryNames(List<Path> files) {
+        List<D3wEntryName> workEntryNames = new ArrayList<>();
+        for (Path file : files) {
+            D3wEntryName entryName = D3wEntryName.parse(file.getFileName().toString());
+            if (entryName != null && entryName.getKind() == D3wEntryName.Kind.WORK) {
+                workEntryNames.add(entryName);
+            }
+        }
+        return workEntryNames;
     }
 
     /**
@@ -210,53 +971,78 @@ public class D3wProcessor {
         // 別名でコピー（_template_work という名前で保存）
         Path templateFile = extractedDir.resolve(TEMPLATE_FILE_NAME);
         Files.copy(originalW1File, templateFile, StandardCopyOption.REPLACE_EXISTING);
-
-        System.out.println("✓ テンプレート保存: " + originalW1File.getFileName() + " → " + templateFile.getFileName());
         return templateFile;
     }
 
     /**
-     * w1, w2, w3...ファイルを生成
+     * 各YamlInfoに対してw1, w2, w3...ワークを生成する
+     * <p>
+     * 各ワークの生成は互いに独立しているため、並列度が2以上の場合は並列に生成する。
+     * 結果は並列度に関係なくYAMLの順序（w1, w2, w3...）で返す。
      *
-     * @param extractedDir     解凍先ディレクトリ
-     * @param workNumber       ワーク番号（1, 2, 3...）
-     * @param yamlInfo         ワーク設定情報
-     * @param templateWorkFile テンプレートファイルのPath（ファイルシステム上）
-     * @return 生成されたワークの参照情報
+     * @param yamlInfos    ワーク設定情報のリスト
+     * @param workTemplate 解析済みのテンプレート
+     * @param options      処理オプション（並列度、中断の要求を確認するトークン）
+     * @param metrics      生成済みのワーク数を記録する計測結果
+     * @param phase        ワーク1件ごとの所要時間等を記録するフェーズ
+     * @return 生成されたワークのリスト（YAMLの順序）
      */
-    private static WorkReference createWorkFile(Path extractedDir, int workNumber,
-                                                YamlInfo yamlInfo, Path templateWorkFile) throws Exception {
-
-        // テンプレートファイルを読み込み（JsonObjectとして）
-        JsonObject content = JsonEditor.readJson(templateWorkFile);
+    private static List<GeneratedWork> generateWorks(List<YamlInfo> yamlInfos, WorkTemplate workTemplate,
+                                                     ProcessOptions options, ProcessMetrics metrics,
+                                                     ProcessMetrics.Phase phase) throws Exception {
+        WorkProgress progress = new WorkProgress(options.getCancellationToken(), metrics, phase, yamlInfos.size());
+        List<GeneratedWork> works = ParallelMapper.map(yamlInfos, options.getParallelism(),
+                (index, yamlInfo) -> createWork(workTemplate, index + 1, yamlInfo, progress));
+        recordWorks(phase, works);
+        return works;
+    }
 
+    /**
+     * 雛型ワークにYamlInfoの内容を適用し、wNワークを生成する
+     * 雛型はトークン単位で書き写すため、ワークごとにJsonObjectのツリーは構築しない
+     * （キーはインポートした際に採番されるので空にする）
+     *
+     * @param workTemplate 雛型ワーク
+     * @param workNumber   ワーク番号（1, 2, 3...）
+     * @param yamlInfo     ワーク設定情報
+     * @param progress     ワークの生成の進捗（生成する前に中断の要求を確認し、生成したことを通知する）
+     * @return 生成されたワーク
+     */
+    private static GeneratedWork createWork(WorkTemplate workTemplate, int workNumber, YamlInfo yamlInfo,
+                                            WorkProgress progress) throws IOException {
+        progress.token.throwIfCancelled();
+        Object event = PipelineEvents.beginWork();
+        long start = System.nanoTime();
         // YamlInfoの内容を適用
-        JsonEditor.applyYamlInfo(content, yamlInfo);
-
-        // キーはインポートした際に採番されるので空にしておく。
-        if (content.has("key") && content.get("key").isJsonPrimitive()) {
-            content.addProperty("key", "");
-        }
-
-        // wN ファイル名を生成
-        String fileName = "w" + workNumber;
-        Path workFile = extractedDir.resolve(fileName);
-
-        // ファイルに書き込み
-        JsonEditor.writeJson(content, workFile);
+        ByteArrayOutputStream content = new ByteArrayOutputStream(workTemplate.size() + 1024);
+        WorkTransformer.Result result = workTemplate.render(yamlInfo, content);
 
         // ワーク参照情報を作成して返す
         WorkReference workRef = new WorkReference();
-        workRef.contentClass = content.has("content_class")
-                ? content.get("content_class").getAsString()
-                : null;
+        workRef.contentClass = result.getContentClass();
         workRef.key = "";
-        workRef.name = content.has("name")
-                ? content.get("name").getAsString()
-                : null;
-        workRef.path = fileName;
+        workRef.name = result.getName();
+        workRef.path = "w" + workNumber;
 
-        return workRef;
+        byte[] bytes = content.toByteArray();
+        long nanos = System.nanoTime() - start;
+        progress.generated(event, workNumber, yamlInfo.getWorkName(), bytes.length);
+        return new GeneratedWork(workRef, bytes, nanos);
+    }
+
+    /**
+     * 生成したワークの参照情報で_ファイル（メイン）を編集し、アーカイブに格納する
+     */
+    private static void editMainEntry(D3wArchive archive, PreparedTemplate template, List<WorkReference> works,
+                                      ProcessMetrics metrics) {
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.MAIN)) {
+            JsonObject mainContent = template.newMainContent();
+            updateWorks(mainContent, works);
+            byte[] main = JsonEditor.toJsonBytes(mainContent);
+            archive.put("_", main);
+            phase.addBytesWritten(main.length);
+            phase.addEntries(1);
+        }
     }
 
     /**
@@ -268,38 +1054,150 @@ public class D3wProcessor {
         JsonObject mainContent = JsonEditor.readJson(mainJsonFile);
 
         // worksプロパティを更新
+        updateWorks(mainContent, generatedWorks);
+
+        JsonEditor.writeJson(mainContent, mainJsonFile);
+    }
+
+    /**
+     * _ファイル（メインファイル）のworksを生成したワークの参照情報で置き換える
+     */
+    private static void updateWorks(JsonObject mainContent, List<WorkReference> generatedWorks) {
         JsonArray worksArray = new JsonArray();
         for (WorkReference workRef : generatedWorks) {
-            JsonObject workObj = new JsonObject();
-            if (workRef.contentClass != null) {
-                workObj.addProperty("content_class", workRef.contentClass);
-            }
-            if (workRef.key != null) {
-                workObj.addProperty("key", workRef.key);
-            }
-            if (workRef.name != null) {
-                workObj.addProperty("name", workRef.name);
-            }
-            if (workRef.path != null) {
-                workObj.addProperty("path", workRef.path);
-            }
-            worksArray.add(workObj);
+            worksArray.add(toWorkObject(workRef));
         }
         mainContent.add("works", worksArray);
+    }
 
-        JsonEditor.writeJson(mainContent, mainJsonFile);
+    /**
+     * ワークの参照情報を、_ファイル（メインファイル）のworksの要素に変換する
+     */
+    private static JsonObject toWorkObject(WorkReference workRef) {
+        JsonObject workObj = new JsonObject();
+        if (workRef.contentClass != null) {
+            workObj.addProperty("content_class", workRef.contentClass);
+        }
+        if (workRef.key != null) {
+            workObj.addProperty("key", workRef.key);
+        }
+        if (workRef.name != null) {
+            workObj.addProperty("name", workRef.name);
+        }
+        if (workRef.path != null) {
+            workObj.addProperty("path", workRef.path);
+        }
+        return workObj;
     }
 
     /**
-     * YAMLファイルのリストからYamlInfoのリストを生成
+     * 生成したワーク（参照情報とJSONのバイト列、生成の所要時間）を保持する内部クラス
      */
-    private static List<YamlInfo> loadYamlInfos(List<String> yamlPaths) throws Exception {
-        List<YamlInfo> yamlInfos = new ArrayList<>();
-        for (String yamlPath : yamlPaths) {
-            YamlInfo yamlInfo = YamlInfoLoader.loadFromYaml(yamlPath);
-            yamlInfos.add(yamlInfo);
+    private static class GeneratedWork {
+        final WorkReference reference;
+        final byte[] content;
+        final long nanos;
+
+        GeneratedWork(WorkReference reference, byte[] content, long nanos) {
+            this.reference = reference;
+            this.content = content;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * ストリーミング生成で、書き込み待ちのワークについて保持する情報（ワークの内容は保持しない）
+     * ワーカースレッドで設定し、ワークを書き込んだ後に呼ばれる処理で読み出す
+     */
+    private static class StreamedWork {
+        WorkReference reference;
+        long nanos;
+        int size;
+    }
+
+    /**
+     * _ファイル（メイン）のworksを、ワークの参照情報を受け取るたびにJSONの配列として書き溜める内部クラス
+     * ストリーミング生成で使用する（参照情報をオブジェクトとして保持せず、worksのJsonObjectのツリーも構築しない）
+     */
+    private static class WorksArray {
+        private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        private int size;
+
+        void add(WorkReference workRef) {
+            json.write(size++ == 0 ? '[' : ',');
+            byte[] workJson = JsonEditor.toJsonBytes(toWorkObject(workRef));
+            json.write(workJson, 0, workJson.length);
+        }
+
+        /**
+         * 雛型の_ファイルのworksを書き溜めた配列で置き換え、JSONのバイト列を返す
+         * （updateWorks で置き換えてから変換した場合と同じバイト列になる）
+         */
+        byte[] toMainContent(PreparedTemplate template) {
+            // worksを一意な文字列に置き換えて変換し、その位置に書き溜めた配列を差し込む
+            String placeholder = UUID.randomUUID().toString();
+            JsonObject mainContent = template.newMainContent();
+            mainContent.addProperty("works", placeholder);
+            byte[] main = JsonEditor.toJsonBytes(mainContent);
+            byte[] quoted = ("\"" + placeholder + "\"").getBytes(StandardCharsets.UTF_8);
+            int index = indexOf(main, quoted);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(main.length + json.size() + 2);
+            out.write(main, 0, index);
+            if (size == 0) {
+                out.write('[');
+            } else {
+                byte[] works = json.toByteArray();
+                out.write(works, 0, works.length);
+            }
+            out.write(']');
+            out.write(main, index + quoted.length, main.length - index - quoted.length);
+            return out.toByteArray();
+        }
+
+        private static int indexOf(byte[] bytes, byte[] target) {
+            for (int i = 0; i <= bytes.length - target.length; i++) {
+                int j = 0;
+                while (j < target.length && bytes[i + j] == target[j]) {
+                    j++;
+                }
+                if (j == target.length) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("_ファイルのworksを置き換えられません");
+        }
+    }
+
+    /**
+     * ワークの生成の進捗を通知する内部クラス
+     * ワークは並列処理のワーカースレッドで生成されるため、生成済みの件数はProcessMetrics（AtomicInteger）で数える
+     */
+    private static class WorkProgress {
+        final CancellationToken token;
+        final ProcessMetrics metrics;
+        final ProcessMetrics.Phase phase;
+        final int total;
+
+        WorkProgress(CancellationToken token, ProcessMetrics metrics, ProcessMetrics.Phase phase, int total) {
+            this.token = token;
+            this.metrics = metrics;
+            this.phase = phase;
+            this.total = total;
+            metrics.beginWorks(total);
+        }
+
+        /**
+         * ワークを1件生成したことを、JFRのイベントとProgressListenerに通知する
+         * 生成済みのワーク数が1ずつ増える順にリスナーへ届くよう、数え上げと通知をまとめて排他する
+         */
+        void generated(Object event, int workNumber, String workName, long bytes) {
+            PipelineEvents.commitWork(event, phase.getTemplate(), phase.getOutput(), workNumber, workName, bytes);
+            synchronized (this) {
+                phase.getListener().workGenerated(phase.getOutput(), metrics.workGenerated(), total, workNumber,
+                        workName);
+            }
         }
-        return yamlInfos;
     }
 
     /**
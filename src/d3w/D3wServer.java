@@ -0,0 +1,340 @@
+package d3w;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import d3w.model.YamlInfo;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 常駐して.d3wファイルの生成ジョブを受け付けるHTTPサーバー
+ * <p>
+ * 1回のJVM起動で多数のジョブを処理するため、Gson・SnakeYAML・ZIP処理がJITコンパイル済みの状態で動作する。
+ * 読み込み・検証済みの雛型はTemplateCacheに保持し、同じ雛型のジョブでは読み込み・検証・w1の解析を省略する。
+ * ループバックアドレス（127.0.0.1）でのみ待ち受ける。
+ * ブラウザ上の任意のページからのリクエスト（クロスサイトリクエスト）でジョブの実行や停止をされないよう、
+ * POSTのエンドポイントは Content-Type が application/json でないリクエスト（415）と
+ * Origin ヘッダーを含むリクエスト（403）を拒否する。
+ * 認証は行わず、同じマシンの他のプロセスからのリクエストは受け付けるため、output は拡張子が.d3wの絶対パスで
+ * 雛型と異なるもの（ProcessOptions#serverOutputRoot を指定した場合はそのディレクトリ以下）のみ受け付け、
+ * YAMLはMap、List、スカラー値としてのみ解析する（タグによるクラスの生成は行わない）。
+ * <p>
+ * エンドポイント:
+ * <ul>
+ *   <li>POST /process  ジョブを実行し、完了後に結果を返す</li>
+ *   <li>GET  /health   稼働確認（雛型キャッシュの統計を含む）</li>
+ *   <li>POST /shutdown サーバーを停止する</li>
+ * </ul>
+ * /process のリクエスト（JSON）:
+ * <pre>
+ * {
+ *   "template": "雛型.d3wファイルの絶対パス",
+ *   "yamls": ["設定YAMLファイルの絶対パス", ...],
+ *   "inlineYamls": ["YAML形式の文字列", ...],
+ *   "output": "出力する.d3wファイルの絶対パス"
+ * }
+ * </pre>
+ * yamls と inlineYamls の少なくとも一方が必要。ワークは yamls、inlineYamls の順に生成する。
+ * レスポンス（JSON）: {"success": true, "output": ..., "works": ワーク数, "millis": 所要時間}
+ * または {"success": false, "errorType": ..., "error": エラーメッセージ}
+ */
+public class D3wServer {
+
+    /** デフォルトの待ち受けポート */
+    public static final int DEFAULT_PORT = 8765;
+
+    private final ProcessOptions options;
+    /** 出力を許可するディレクトリ（実パス。制限しない場合はnull） */
+    private final Path outputRoot;
+    private final TemplateCache templateCache;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * @param port    待ち受けポート（0の場合は空いているポートを使用）
+     * @param options 処理オプション（parallelismの数だけジョブを同時に処理する。
+     *                serverOutputRootを指定した場合は、そのディレクトリ以下にのみ出力する）
+     * @throws IOException ポートを開けなかった場合、または出力を許可するディレクトリが存在しない場合
+     */
+    public D3wServer(int port, ProcessOptions options) throws IOException {
+        this.options = options.copy();
+        this.options.setInMemory(true);
+        this.options.setParallelism(1);
+        this.outputRoot = options.getServerOutputRoot() != null
+                ? Paths.get(options.getServerOutputRoot()).toRealPath() : null;
+        this.templateCache = new TemplateCache(options.getTemplateCacheSize(), options.getProgressListener());
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, options.getParallelism()));
+        server.setExecutor(executor);
+        server.createContext("/process", this::handleProcess);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/shutdown", this::handleShutdown);
+    }
+
+    /**
+     * 待ち受けを開始する
+     */
+    public void start() {
+        server.start();
+        System.out.println("✓ サーバー起動: http://127.0.0.1:" + getPort());
+    }
+
+    /**
+     * 雛型キャッシュを取得する
+     */
+    public TemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    /**
+     * 待ち受けているポートを取得する
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * サーバーを停止する（処理中のジョブは最大5秒待つ）
+     */
+    public void stop() {
+        server.stop(5);
+        executor.shutdown();
+        System.out.println("✓ サーバー停止");
+        stopped.countDown();
+    }
+
+    /**
+     * サーバーが停止するまで待つ
+     *
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void handleProcess(HttpExchange exchange) throws IOException {
+        if (!acceptPost(exchange)) {
+            return;
+        }
+
+        JsonObject request;
+        try {
+            request = JsonParser.parseString(readBody(exchange)).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            sendJson(exchange, 400, error(e.getClass().getSimpleName(), "リクエストがJSONオブジェクトではありません"));
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            String template = getRequiredString(request, "template");
+            String output = resolveOutput(getRequiredString(request, "output"), template).toString();
+            List<YamlInfo> yamlInfos = loadYamlInfos(request);
+
+            D3wProcessor.processWorks(templateCache.get(template), yamlInfos, output, options);
+
+            JsonObject response = new JsonObject();
+            response.addProperty("success", true);
+            response.addProperty("output", output);
+            response.addProperty("works", yamlInfos.size());
+            response.addProperty("millis", (System.nanoTime() - start) / 1_000_000);
+            sendJson(exchange, 200, response);
+        } catch (IllegalArgumentException | YAMLException e) {
+            sendJson(exchange, 400, error(e.getClass().getSimpleName(), e.getMessage()));
+        } catch (Exception e) {
+            sendJson(exchange, 500, error(e.getClass().getSimpleName(), e.getMessage()));
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        JsonObject cache = new JsonObject();
+        cache.addProperty("size", templateCache.size());
+        cache.addProperty("capacity", templateCache.getCapacity());
+        cache.addProperty("hits", templateCache.getHits());
+        cache.addProperty("misses", templateCache.getMisses());
+        cache.addProperty("evictions", templateCache.getEvictions());
+
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "ok");
+        response.add("templateCache", cache);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleShutdown(HttpExchange exchange) throws IOException {
+        if (!acceptPost(exchange)) {
+            return;
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "stopping");
+        sendJson(exchange, 200, response);
+
+        // 応答を返した後に停止する（ハンドラのスレッド内からは停止を待てないため別スレッドで行う）
+        new Thread(this::stop, "d3w-server-shutdown").start();
+    }
+
+    /**
+     * POSTのエンドポイントで受け付けるリクエストか確認し、受け付けない場合はエラーを返す
+     * <p>
+     * ブラウザはフォームや単純なfetchでは application/json を送信できず、
+     * ページからのリクエストには必ず Origin ヘッダーを付けるため、この2つでクロスサイトリクエストを拒否できる。
+     *
+     * @return 受け付ける場合はtrue（falseの場合はエラーのレスポンスを送信済み）
+     */
+    private static boolean acceptPost(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, error("UnsupportedOperationException", "POSTで送信してください"));
+            return false;
+        }
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            sendJson(exchange, 403, error("SecurityException", "ブラウザからのリクエストは受け付けません"));
+            return false;
+        }
+        if (!isJsonContentType(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            sendJson(exchange, 415, error("UnsupportedOperationException",
+                    "Content-Type: application/json で送信してください"));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Content-Type が application/json か判定する（charset等のパラメータは無視する）
+     */
+    static boolean isJsonContentType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mediaType = semicolon < 0 ? contentType : contentType.substring(0, semicolon);
+        return "application/json".equalsIgnoreCase(mediaType.trim());
+    }
+
+    /**
+     * リクエストのoutputを検証し、正規化した出力先を返す
+     * 任意のファイルを上書きされないよう、拡張子が.d3wの絶対パスで雛型と異なるもののみ受け付け、
+     * 出力を許可するディレクトリを指定した場合は、シンボリックリンクを解決した実パスがその下にあることを確認する
+     *
+     * @throws IllegalArgumentException 受け付けない出力先の場合
+     */
+    Path resolveOutput(String output, String template) throws IOException {
+        Path outputPath = Paths.get(output);
+        if (!outputPath.isAbsolute()) {
+            throw new IllegalArgumentException("outputは絶対パスで指定してください: " + output);
+        }
+        outputPath = outputPath.normalize();
+        Path fileName = outputPath.getFileName();
+        if (fileName == null || !fileName.toString().toLowerCase(Locale.ROOT).endsWith(".d3w")) {
+            throw new IllegalArgumentException("outputには拡張子が.d3wのファイルを指定してください: " + output);
+        }
+        Path realOutput = toRealPath(outputPath);
+        if (realOutput.equals(toRealPath(Paths.get(template).toAbsolutePath().normalize()))) {
+            throw new IllegalArgumentException("outputに雛型と同じファイルは指定できません: " + output);
+        }
+        if (outputRoot != null && !realOutput.startsWith(outputRoot)) {
+            throw new IllegalArgumentException("outputには" + outputRoot + "以下のファイルを指定してください: " + output);
+        }
+        return outputPath;
+    }
+
+    /**
+     * 存在する最も近い祖先までシンボリックリンクを解決した実パスを返す（存在しない部分はそのまま連結する）
+     */
+    private static Path toRealPath(Path path) throws IOException {
+        Path existing = path;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        return existing == null ? path : existing.toRealPath().resolve(existing.relativize(path));
+    }
+
+    /**
+     * リクエストのyamls（ファイルパス）とinlineYamls（YAML文字列）からワーク設定を読み込む
+     */
+    private static List<YamlInfo> loadYamlInfos(JsonObject request) throws Exception {
+        List<YamlInfo> yamlInfos = new ArrayList<>();
+        for (String yamlPath : getStringArray(request, "yamls")) {
+            yamlInfos.add(YamlInfoLoader.loadFromYaml(yamlPath));
+        }
+        for (String yamlText : getStringArray(request, "inlineYamls")) {
+            yamlInfos.add(YamlInfoLoader.loadFromString(yamlText));
+        }
+        if (yamlInfos.isEmpty()) {
+            throw new IllegalArgumentException("yamlsまたはinlineYamlsを1つ以上指定してください");
+        }
+        return yamlInfos;
+    }
+
+    private static String getRequiredString(JsonObject request, String name) {
+        JsonElement value = request.get(name);
+        if (value == null || !value.isJsonPrimitive() || value.getAsString().isEmpty()) {
+            throw new IllegalArgumentException(name + "を指定してください");
+        }
+        return value.getAsString();
+    }
+
+    private static List<String> getStringArray(JsonObject request, String name) {
+        List<String> values = new ArrayList<>();
+        JsonElement element = request.get(name);
+        if (element == null || element.isJsonNull()) {
+            return values;
+        }
+        if (!element.isJsonArray()) {
+            throw new IllegalArgumentException(name + "は配列で指定してください");
+        }
+        for (JsonElement value : element.getAsJsonArray()) {
+            values.add(value.getAsString());
+        }
+        return values;
+    }
+
+    private static JsonObject error(String errorType, String message) {
+        JsonObject response = new JsonObject();
+        response.addProperty("success", false);
+        response.addProperty("errorType", errorType);
+        response.addProperty("error", message);
+        return response;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                body.write(buffer, 0, length);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package d3w;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * PipelineEventsが記録するJFRのイベント
+ * jdk.jfrを含むJVMでのみ読み込まれる（PipelineEvents以外から直接使用しないこと）
+ */
+final class JfrEvents {
+
+    private JfrEvents() {
+    }
+
+    static Object beginPhase(String phase) {
+        PhaseEvent event;
+        switch (phase) {
+            case ProcessMetrics.EXTRACT:
+                event = new TemplateExtractEvent();
+                break;
+            case ProcessMetrics.YAML:
+                event = new YamlParseEvent();
+                break;
+            case ProcessMetrics.GENERATE:
+                event = new WorksGenerateEvent();
+                break;
+            case ProcessMetrics.MAIN:
+                event = new MainRewriteEvent();
+                break;
+            case ProcessMetrics.BUILD:
+                event = new ArchiveBuildEvent();
+                break;
+            default:
+                return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commitPhase(Object event, String template, String output,
+                            long bytesRead, long bytesWritten, long entries) {
+        PhaseEvent phaseEvent = (PhaseEvent) event;
+        phaseEvent.end();
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.template = template;
+            phaseEvent.output = output;
+            phaseEvent.bytesRead = bytesRead;
+            phaseEvent.bytesWritten = bytesWritten;
+            phaseEvent.entries = entries;
+            phaseEvent.commit();
+        }
+    }
+
+    static Object beginWork() {
+        WorkGenerateEvent event = new WorkGenerateEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitWork(Object event, String template, String output,
+                           int workNumber, String workName, long bytesWritten) {
+        WorkGenerateEvent workEvent = (WorkGenerateEvent) event;
+        workEvent.end();
+        if (workEvent.shouldCommit()) {
+            workEvent.template = template;
+            workEvent.output = output;
+            workEvent.workNumber = workNumber;
+            workEvent.workName = workName;
+            workEvent.bytesWritten = bytesWritten;
+            workEvent.commit();
+        }
+    }
+
+    /**
+     * フェーズのイベントの共通フィールド
+     */
+    @Category("d3w")
+    abstract static class PhaseEvent extends Event {
+        @Label("雛型")
+        String template;
+
+        @Label("出力")
+        String output;
+
+        @Label("読み込みバイト数")
+        @DataAmount
+        long bytesRead;
+
+        @Label("書き込みバイト数")
+        @DataAmount
+        long bytesWritten;
+
+        @Label("エントリ数")
+        long entries;
+    }
+
+    @Name("d3w.TemplateExtract")
+    @Label("雛型の読み込み")
+    @Description("雛型.d3wファイルの読み込み・解凍・検証とw1の解析")
+    static class TemplateExtractEvent extends PhaseEvent {
+    }
+
+    @Name("d3w.YamlParse")
+    @Label("YAMLの解析")
+    @Description("ワーク設定のYAMLファイルの読み込みと解析")
+    static class YamlParseEvent extends PhaseEvent {
+    }
+
+    @Name("d3w.WorksGenerate")
+    @Label("ワークの生成")
+    @Description("すべてのワークの生成（1件ごとの内訳は d3w.WorkGenerate）")
+    static class WorksGenerateEvent extends PhaseEvent {
+    }
+
+    @Name("d3w.MainRewrite")
+    @Label("_ファイルの編集")
+    @Description("_ファイル（メイン）のworksの書き換え")
+    static class MainRewriteEvent extends PhaseEvent {
+    }
+
+    @Name("d3w.ArchiveBuild")
+    @Label(".d3wファイルの構築")
+    @Description("すべてのエントリの圧縮と出力ZIPへの書き込み")
+    static class ArchiveBuildEvent extends PhaseEvent {
+    }
+
+    @Name("d3w.WorkGenerate")
+    @Label("ワーク1件の生成")
+    @Description("雛型ワークへのYAMLの内容の適用とJSONへの書き出し")
+    @Category("d3w")
+    static class WorkGenerateEvent extends Event {
+        @Label("雛型")
+        String template;
+
+        @Label("出力")
+        String output;
+
+        @Label("ワーク番号")
+        int workNumber;
+
+        @Label("ワーク名")
+        String workName;
+
+        @Label("書き込みバイト数")
+        @DataAmount
+        long bytesWritten;
+    }
+}
@@ -3,10 +3,16 @@ package d3w;
 import com.google.gson.*;
 import d3w.model.YamlInfo;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 /**
  * D3WファイルのJSON編集を担当するクラス
@@ -24,8 +30,44 @@ public class JsonEditor {
      * @throws IOException ファイル読み込みに失敗した場合
      */
     public static JsonObject readJson(Path jsonFilePath) throws IOException {
-        String jsonContent = new String(Files.readAllBytes(jsonFilePath), StandardCharsets.UTF_8);
-        return JsonParser.parseString(jsonContent).getAsJsonObject();
+        try (InputStream in = Files.newInputStream(jsonFilePath)) {
+            return readJson(in);
+        }
+    }
+
+    /**
+     * JSONのバイト列（UTF-8, 1行）をJsonObjectに変換する
+     *
+     * @param jsonContent JSONのバイト列
+     * @return JsonObject
+     */
+    public static JsonObject readJson(byte[] jsonContent) {
+        Utf8Reader reader = new Utf8Reader(new ByteArrayInputStream(jsonContent));
+        try {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * InputStreamからJSON（UTF-8）を読み込んでJsonObjectに変換する
+     * 内容全体をbyte[]やStringに展開せず、デコードしながら解析する
+     * ZIPのエントリのストリーム（ZipInputStream等）から直接読み込むこともできる
+     *
+     * @param in 読み込むストリーム（閉じない）
+     * @return JsonObject
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public static JsonObject readJson(InputStream in) throws IOException {
+        Utf8Reader reader = new Utf8Reader(in);
+        try {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (JsonIOException e) {
+            throw unwrap(e);
+        } finally {
+            reader.close();
+        }
     }
 
     /**
@@ -38,6 +80,23 @@ public class JsonEditor {
         return GSON.toJson(jsonObject);
     }
 
+    /**
+     * JsonObjectをJSONのバイト列（UTF-8, 1行）に変換する
+     *
+     * @param jsonObject JsonObject
+     * @return JSONのバイト列
+     */
+    public static byte[] toJsonBytes(JsonObject jsonObject) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeJson(jsonObject, out);
+        } catch (IOException e) {
+            // ByteArrayOutputStreamへの書き込みは失敗しない
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
     /**
      * JsonObjectをJSONファイルに書き込む（1行形式）
      *
@@ -46,138 +105,162 @@ public class JsonEditor {
      * @throws IOException ファイル書き込みに失敗した場合
      */
     public static void writeJson(JsonObject jsonObject, Path jsonFilePath) throws IOException {
-        String jsonString = toJson(jsonObject);
-        Files.write(jsonFilePath, jsonString.getBytes(StandardCharsets.UTF_8));
+        try (OutputStream out = Files.newOutputStream(jsonFilePath)) {
+            writeJson(jsonObject, out);
+        }
+    }
+
+    /**
+     * JsonObjectをJSON（UTF-8, 1行形式）でOutputStreamに書き込む
+     * JSON文字列を生成せず、エンコードしながら書き込む（出力は toJson をUTF-8にしたものと同じ）
+     *
+     * @param jsonObject JsonObject
+     * @param out        書き込み先（flushするが閉じない）
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void writeJson(JsonObject jsonObject, OutputStream out) throws IOException {
+        try (Utf8Writer writer = new Utf8Writer(out)) {
+            GSON.toJson(jsonObject, writer);
+        } catch (JsonIOException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Gsonが読み書きの失敗を包んだJsonIOExceptionから、元のIOExceptionを取り出す
+     */
+    private static IOException unwrap(JsonIOException e) {
+        return e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getMessage(), e);
     }
 
     /**
      * YamlInfoの情報をJsonObjectに適用する
+     * 反映先は標準の対応表（work-mapping.yml）に従う（WorkMapping#apply）
      *
      * @param jsonObject 編集対象のJsonObject
      * @param yamlInfo   適用するYamlInfo
      */
     public static JsonObject applyYamlInfo(JsonObject jsonObject, YamlInfo yamlInfo) {
-        // ワーク名を設定
-        if (yamlInfo.getWorkName() != null) {
-            jsonObject.addProperty("name", yamlInfo.getWorkName());
-        }
-
-        // メモを設定
-        if (yamlInfo.getMemoText() != null) {
-            jsonObject.addProperty("note", yamlInfo.getMemoText());
-        }
-
-        // content階層を取得または作成
-        JsonObject content = getOrCreateObject(jsonObject, "content");
-
-        // 件名を設定
-        if (yamlInfo.getSubject() != null) {
-            content.addProperty("subject", yamlInfo.getSubject());
-        }
+        return WorkMapping.getDefault().apply(jsonObject, yamlInfo);
+    }
 
-        // datasource階層を取得または作成
-        JsonObject datasource = getOrCreateObject(content, "datasource");
+    /**
+     * テキストデータセットフィールドを設定したパラメータを生成する
+     * ベースパラメータの設定（name、type、ignore_empty_row、insert_first_empty_row）を引き継ぐ
+     *
+     * @param baseParam         雛型の最初のパラメータ（存在しない場合はnull、デフォルト値を使用する）
+     * @param textDatasetFields テキストデータセットフィールド
+     * @return 生成したパラメータ
+     */
+    static JsonObject newTextDatasetParam(JsonObject baseParam, List<String> textDatasetFields) {
+        // 新しいパラメータオブジェクトを作成
+        JsonObject param = new JsonObject();
 
-        // データソースフィールドを設定
-        if (yamlInfo.getDatasourceFields() != null && !yamlInfo.getDatasourceFields().isEmpty()) {
-            JsonArray fieldsArray = new JsonArray();
-            for (String field : yamlInfo.getDatasourceFields()) {
-                fieldsArray.add(field);
+        // ベースパラメータから設定をコピー
+        if (baseParam != null) {
+            if (baseParam.has("name")) {
+                param.addProperty("name", baseParam.get("name").getAsString());
+            }
+            if (baseParam.has("type")) {
+                param.addProperty("type", baseParam.get("type").getAsString());
             }
-            datasource.add("fields", fieldsArray);
+            if (baseParam.has("ignore_empty_row")) {
+                param.addProperty("ignore_empty_row", baseParam.get("ignore_empty_row").getAsBoolean());
+            }
+            if (baseParam.has("insert_first_empty_row")) {
+                param.addProperty("insert_first_empty_row", baseParam.get("insert_first_empty_row").getAsBoolean());
+            }
+        } else {
+            // デフォルト値を設定
+            param.addProperty("name", "TextDataset1");
+            param.addProperty("type", "csv");
+            param.addProperty("ignore_empty_row", false);
+            param.addProperty("insert_first_empty_row", false);
         }
 
-        // document階層を取得または作成
-        JsonObject document = getOrCreateObject(content, "document");
-
-        // template階層を取得または作成
-        JsonObject template = getOrCreateObject(document, "template");
-
-        // テンプレート名を設定
-        if (yamlInfo.getTemplateName() != null) {
-            template.addProperty("name", yamlInfo.getTemplateName());
+        // フィールドを[項目名]形式に変換してvaluesに設定
+        JsonArray values = new JsonArray();
+        for (String field : textDatasetFields) {
+            values.add("[" + field + "]");
         }
+        param.add("values", values);
+        return param;
+    }
 
-        // テキストデータセットフィールドをパラメータとして設定
-        if (yamlInfo.getTextDatasetFields() != null && !yamlInfo.getTextDatasetFields().isEmpty()) {
-            // 既存のparamsを取得（存在しない場合は新規作成）
-            JsonArray params = template.has("params") && template.get("params").isJsonArray()
-                    ? template.getAsJsonArray("params")
-                    : new JsonArray();
-
-            // 既存の最初のパラメータをベースとして使用
-            JsonObject baseParam = null;
-            if (!params.isEmpty() && params.get(0).isJsonObject()) {
-                baseParam = params.get(0).getAsJsonObject();
-            }
-
-            // 新しいパラメータオブジェクトを作成
-            JsonObject param = new JsonObject();
-
-            // ベースパラメータから設定をコピー
-            if (baseParam != null) {
-                if (baseParam.has("name")) {
-                    param.addProperty("name", baseParam.get("name").getAsString());
-                }
-                if (baseParam.has("type")) {
-                    param.addProperty("type", baseParam.get("type").getAsString());
-                }
-                if (baseParam.has("ignore_empty_row")) {
-                    param.addProperty("ignore_empty_row", baseParam.get("ignore_empty_row").getAsBoolean());
-                }
-                if (baseParam.has("insert_first_empty_row")) {
-                    param.addProperty("insert_first_empty_row", baseParam.get("insert_first_empty_row").getAsBoolean());
-                }
-            } else {
-                // デフォルト値を設定
-                param.addProperty("name", "TextDataset1");
-                param.addProperty("type", "csv");
-                param.addProperty("ignore_empty_row", false);
-                param.addProperty("insert_first_empty_row", false);
-            }
+    /**
+     * JsonObjectをディープコピーする
+     * 文字列へのシリアライズを経由せず、構造を辿って各要素を複製する
+     *
+     * @param source コピー元のJsonObject
+     * @return コピーされた新しいJsonObject
+     */
+    public static JsonObject deepCopy(JsonObject source) {
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : source.entrySet()) {
+            copy.add(entry.getKey(), deepCopy(entry.getValue()));
+        }
+        return copy;
+    }
 
-            // フィールドを[項目名]形式に変換してvaluesに設定
-            JsonArray values = new JsonArray();
-            for (String field : yamlInfo.getTextDatasetFields()) {
-                values.add("[" + field + "]");
+    /**
+     * JsonElementをディープコピーする
+     * JsonPrimitive、JsonNullは不変なのでそのまま共有する
+     */
+    private static JsonElement deepCopy(JsonElement source) {
+        if (source.isJsonObject()) {
+            return deepCopy(source.getAsJsonObject());
+        }
+        if (source.isJsonArray()) {
+            JsonArray array = source.getAsJsonArray();
+            JsonArray copy = new JsonArray(array.size());
+            for (JsonElement element : array) {
+                copy.add(deepCopy(element));
             }
-            param.add("values", values);
-
-            // paramsを更新（既存の場合は置き換え、新規の場合は追加）
-            JsonArray newParams = new JsonArray();
-            newParams.add(param);
-            template.add("params", newParams);
+            return copy;
         }
-
-        return jsonObject;
+        return source;
     }
 
     /**
-     * JsonObjectから指定されたキーのオブジェクトを取得する
-     * 存在しない場合は新しいJsonObjectを作成して設定する
+     * applyYamlInfoで編集するためのコピーオンライトなJsonObjectを生成する
+     * <p>
+     * applyYamlInfoが書き換える階層（ルートと、対応表の反映先の途中の階層。標準の対応表では
+     * content、content.datasource、content.document、content.document.template）だけを浅くコピーし、
+     * それ以外の子要素（envelope、ignore_first_row、charset等）はコピー元と共有する。
+     * applyYamlInfoは共有している子要素を変更せず、プロパティの置き換えのみを行うため、
+     * 返却したJsonObjectにapplyYamlInfoを適用してもコピー元には影響しない。
+     * <p>
+     * 上記以外の階層を直接編集する場合はdeepCopyを使用すること。
      *
-     * @param parent 親JsonObject
-     * @param key    キー名
-     * @return 取得または作成されたJsonObject
+     * @param source コピー元のJsonObject（変更されない）
+     * @return 編集対象の階層のみ複製したJsonObject
      */
-    private static JsonObject getOrCreateObject(JsonObject parent, String key) {
-        if (parent.has(key) && parent.get(key).isJsonObject()) {
-            return parent.getAsJsonObject(key);
-        } else {
-            JsonObject newObject = new JsonObject();
-            parent.add(key, newObject);
-            return newObject;
+    public static JsonObject copyOnWrite(JsonObject source) {
+        return copyOnWrite(source, WorkMapping.getDefault().getRoot());
+    }
+
+    /**
+     * 対応表の途中の階層に当たる子オブジェクトを再帰的に浅くコピーする
+     */
+    private static JsonObject copyOnWrite(JsonObject source, WorkMapping.Node node) {
+        JsonObject copy = shallowCopy(source);
+        for (Map.Entry<String, WorkMapping.Node> child : node.children.entrySet()) {
+            JsonElement element = copy.get(child.getKey());
+            if (child.getValue().rule == null && element != null && element.isJsonObject()) {
+                copy.add(child.getKey(), copyOnWrite(element.getAsJsonObject(), child.getValue()));
+            }
         }
+        return copy;
     }
 
     /**
-     * JsonObjectをディープコピーする
-     *
-     * @param source コピー元のJsonObject
-     * @return コピーされた新しいJsonObject
+     * JsonObjectを浅くコピーする（子要素はコピー元と共有する）
      */
-    public static JsonObject deepCopy(JsonObject source) {
-        String json = GSON.toJson(source);
-        return JsonParser.parseString(json).getAsJsonObject();
+    private static JsonObject shallowCopy(JsonObject source) {
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : source.entrySet()) {
+            copy.add(entry.getKey(), entry.getValue());
+        }
+        return copy;
     }
 }
@@ -0,0 +1,103 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 進捗のイベントを1行1件のJSON（JSON Lines、UTF-8）で書き出すリスナー
+ * <p>
+ * 各行は event（phaseStarted, phaseFinished, workGenerated, bytesWritten, message）、
+ * time（UNIX時間のミリ秒）、output と、イベントごとの項目を持つ。
+ * ワークの生成は件数が多いため、フラッシュは一定間隔（既定は200ミリ秒）ごとと、ワークの生成以外のイベントで行う。
+ * 書き込みに失敗しても例外は投げない（処理は継続する）。
+ */
+public class JsonLinesProgressListener implements ProgressListener {
+
+    /** ワークの生成のイベントをフラッシュする間隔の既定値（ミリ秒） */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    private final PrintWriter writer;
+    private final long flushIntervalNanos;
+    private long lastFlushed = System.nanoTime();
+
+    /**
+     * @param out 書き出し先（閉じない）
+     */
+    public JsonLinesProgressListener(OutputStream out) {
+        this(out, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param out                  書き出し先（閉じない）
+     * @param flushIntervalMillis ワークの生成のイベントをフラッシュする間隔（ミリ秒）
+     */
+    public JsonLinesProgressListener(OutputStream out, long flushIntervalMillis) {
+        this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        this.flushIntervalNanos = flushIntervalMillis * 1_000_000;
+    }
+
+    @Override
+    public void phaseStarted(String output, String phase) {
+        JsonObject event = event("phaseStarted", output);
+        event.addProperty("phase", phase);
+        write(event, true);
+    }
+
+    @Override
+    public void phaseFinished(String output, String phase, long nanos) {
+        JsonObject event = event("phaseFinished", output);
+        event.addProperty("phase", phase);
+        event.addProperty("millis", nanos / 1_000_000.0);
+        write(event, true);
+    }
+
+    @Override
+    public void workGenerated(String output, int completed, int total, int workNumber, String workName) {
+        JsonObject event = event("workGenerated", output);
+        event.addProperty("completed", completed);
+        event.addProperty("total", total);
+        event.addProperty("workNumber", workNumber);
+        event.addProperty("workName", workName);
+        write(event, completed == total);
+    }
+
+    @Override
+    public void bytesWritten(String output, String path, long bytes) {
+        JsonObject event = event("bytesWritten", output);
+        event.addProperty("path", path);
+        event.addProperty("bytes", bytes);
+        write(event, true);
+    }
+
+    @Override
+    public void message(String output, String message) {
+        JsonObject event = event("message", output);
+        event.addProperty("message", message.trim());
+        write(event, true);
+    }
+
+    private static JsonObject event(String name, String output) {
+        JsonObject event = new JsonObject();
+        event.addProperty("event", name);
+        event.addProperty("time", System.currentTimeMillis());
+        event.addProperty("output", output);
+        return event;
+    }
+
+    /**
+     * 1行書き出す（flushがfalseの場合は、前回のフラッシュから一定時間が経過したときだけフラッシュする）
+     */
+    private synchronized void write(JsonObject event, boolean flush) {
+        writer.println(event.toString());
+        long now = System.nanoTime();
+        if (flush || now - lastFlushed >= flushIntervalNanos) {
+            writer.flush();
+            lastFlushed = now;
+        }
+    }
+}
@@ -2,21 +2,42 @@ package d3w;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * D3W Processor GUI Launcher
  * ファイル選択UIを提供する簡易ランチャー
+ * <p>
+ * 処理は同じプロセス内でD3wProcessorを呼び出して行い（SwingWorker）、進捗はログとプログレスバーに順次表示する。
+ * 読み込み・検証済みの雛型は保持しておき、同じ雛型で続けて実行する場合は読み込みを省く。
  */
 public class Launcher extends JFrame {
     
+    /** ログに保持する最大行数（超えた分は古い行から削除する） */
+    private static final int MAX_LOG_LINES = 5000;
+    /** ワークの生成の進捗をログに表示する間隔（ミリ秒） */
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+    
     private JTextField d3wFileField;
     private DefaultListModel<String> yamlListModel;
     private JList<String> yamlList;
     private JTextArea logArea;
+    private JProgressBar progressBar;
+    private JButton processButton;
+    private JButton cancelButton;
+    
+    /** 読み込み・検証済みの雛型（実行のたびに内容のハッシュで照合する） */
+    private final TemplateCache templateCache = new TemplateCache(2);
+    private ProcessWorker worker;
     
     public Launcher() {
         setTitle("D3W Processor");
@@ -37,7 +58,7 @@ public class Launcher extends JFrame {
         // 中央: ログ表示エリア
         JPanel logPanel = createLogPanel();
         
-        // 下部: 実行ボタン
+        // 下部: 進捗と実行・キャンセルボタン
         JPanel buttonPanel = createButtonPanel();
         
         mainPanel.add(filePanel, BorderLayout.NORTH);
@@ -123,13 +144,26 @@ public class Launcher extends JFrame {
     }
     
     private JPanel createButtonPanel() {
-        JPanel panel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JPanel panel = new JPanel(new BorderLayout(10, 0));
+        
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
         
-        JButton processButton = new JButton("処理実行");
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        cancelButton = new JButton("キャンセル");
+        cancelButton.setPreferredSize(new Dimension(120, 30));
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelProcess());
+        
+        processButton = new JButton("処理実行");
         processButton.setPreferredSize(new Dimension(120, 30));
         processButton.addActionListener(e -> executeProcess());
         
-        panel.add(processButton);
+        buttons.add(cancelButton);
+        buttons.add(processButton);
+        
+        panel.add(progressBar, BorderLayout.CENTER);
+        panel.add(buttons, BorderLayout.EAST);
         
         return panel;
     }
@@ -194,75 +228,171 @@ public class Launcher extends JFrame {
         // ログをクリア
         logArea.setText("");
         
-        // 別スレッドで処理を実行
-        new Thread(() -> {
+        StringBuilder header = new StringBuilder();
+        header.append("=== 処理開始 ===\n");
+        header.append("雛型.d3w: ").append(d3wPath).append("\n");
+        header.append("YAMLファイル数: ").append(yamlPaths.size()).append("\n");
+        for (int i = 0; i < yamlPaths.size(); i++) {
+            header.append("  [").append(i + 1).append("] ").append(yamlPaths.get(i)).append("\n");
+        }
+        appendLog(header.toString());
+        
+        // 別スレッド（SwingWorker）で処理を実行し、進捗は処理中に順次表示する
+        worker = new ProcessWorker(d3wPath, yamlPaths, Main.defaultOutputPath(d3wPath));
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        setRunning(true);
+        worker.execute();
+    }
+    
+    private void cancelProcess() {
+        if (worker != null) {
+            // 処理はワーク・ZIPエントリの区切りで中断し、一時ファイルと途中までの出力を削除して終了する
+            worker.token.cancel();
+            cancelButton.setEnabled(false);
+            appendLog("\nキャンセルしています...\n");
+        }
+    }
+    
+    /**
+     * 実行中は処理実行ボタンを無効にし、キャンセルボタンを有効にする
+     */
+    private void setRunning(boolean running) {
+        processButton.setEnabled(!running);
+        cancelButton.setEnabled(running);
+        if (running) {
+            progressBar.setValue(0);
+        }
+    }
+    
+    /**
+     * ログに追記する（EDTから呼ぶこと）
+     * 保持する行数が MAX_LOG_LINES を超えた場合は、古い行から削除する
+     */
+    private void appendLog(String text) {
+        logArea.append(text);
+        int excess = logArea.getLineCount() - MAX_LOG_LINES;
+        if (excess > 0) {
             try {
-                appendLog("=== 処理開始 ===\n");
-                appendLog("雛型.d3w: " + d3wPath + "\n");
-                appendLog("YAMLファイル数: " + yamlPaths.size() + "\n");
-                for (int i = 0; i < yamlPaths.size(); i++) {
-                    appendLog("  [" + (i + 1) + "] " + yamlPaths.get(i) + "\n");
-                }
-                appendLog("\n");
-                
-                // Mainクラスの処理を実行
-                String[] args = new String[1 + yamlPaths.size()];
-                args[0] = d3wPath;
-                for (int i = 0; i < yamlPaths.size(); i++) {
-                    args[i + 1] = yamlPaths.get(i);
-                }
-                
-                // 標準出力をキャプチャ
-                java.io.PrintStream originalOut = System.out;
-                java.io.PrintStream originalErr = System.err;
-                
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-                java.io.PrintStream ps = new java.io.PrintStream(baos);
-                System.setOut(ps);
-                System.setErr(ps);
+                logArea.replaceRange("", 0, logArea.getLineEndOffset(excess - 1));
+            } catch (BadLocationException e) {
+                // 行数の範囲内の位置のため発生しない
+            }
+        }
+        logArea.setCaretPosition(logArea.getDocument().getLength());
+    }
+    
+    /**
+     * D3wProcessorを同じプロセス内で実行するワーカー
+     * <p>
+     * 進捗はConsoleProgressListenerと同じ形式の行としてpublishし、ワークの生成数はsetProgressで通知する。
+     * キャンセルは token で要求し、処理が実際に止まった後に EDT で finished を呼ぶ。
+     */
+    private class ProcessWorker extends SwingWorker<Void, String> {
+        
+        private final String d3wPath;
+        private final List<String> yamlPaths;
+        private final String outputPath;
+        private final CancellationToken token = new CancellationToken();
+        private volatile boolean completed;
+        private volatile Exception failure;
+        
+        ProcessWorker(String d3wPath, List<String> yamlPaths, String outputPath) {
+            this.d3wPath = d3wPath;
+            this.yamlPaths = yamlPaths;
+            this.outputPath = outputPath;
+        }
+        
+        @Override
+        protected Void doInBackground() throws Exception {
+            try {
+                PrintStream log = new PrintStream(new LogOutputStream(line -> publish(line)), true, "UTF-8");
+                ProcessOptions options = new ProcessOptions();
+                options.setCancellationToken(token);
+                options.setProgressListener(new ConsoleProgressListener(log, PROGRESS_INTERVAL_MILLIS) {
+                    @Override
+                    public void workGenerated(String output, int completed, int total, int workNumber,
+                                              String workName) {
+                        super.workGenerated(output, completed, total, workNumber, workName);
+                        if (total > 0) {
+                            setProgress(completed * 100 / total);
+                        }
+                    }
+                });
                 
-                try {
-                    Main.main(args);
-                    
-                    System.out.flush();
-                    System.setOut(originalOut);
-                    System.setErr(originalErr);
-                    
-                    appendLog(baos.toString("UTF-8"));
-                    
-                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
-                        "処理が正常に完了しました。",
-                        "完了",
-                        JOptionPane.INFORMATION_MESSAGE));
-                    
-                } catch (Exception e) {
-                    System.setOut(originalOut);
-                    System.setErr(originalErr);
-                    
-                    appendLog(baos.toString("UTF-8"));
-                    appendLog("\nエラー: " + e.getMessage() + "\n");
-                    
-                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
-                        "処理中にエラーが発生しました:\n" + e.getMessage(),
-                        "エラー",
-                        JOptionPane.ERROR_MESSAGE));
-                }
+                // 雛型は前回と内容が同じであれば、読み込み・検証済みのものを使用する
+                long hits = templateCache.getHits();
+                PreparedTemplate template = templateCache.get(d3wPath);
+                publish(templateCache.getHits() > hits
+                        ? "読み込み済みの雛型を使用します"
+                        : "雛型を読み込みました");
                 
+                D3wProcessor.process(template, yamlPaths, outputPath, options);
+                completed = true;
+                return null;
             } catch (Exception e) {
-                appendLog("\nエラー: " + e.getMessage() + "\n");
-                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
-                    "処理中にエラーが発生しました:\n" + e.getMessage(),
+                failure = e;
+                throw e;
+            } finally {
+                SwingUtilities.invokeLater(this::finished);
+            }
+        }
+        
+        @Override
+        protected void process(List<String> lines) {
+            StringBuilder text = new StringBuilder();
+            for (String line : lines) {
+                text.append(line).append('\n');
+            }
+            appendLog(text.toString());
+        }
+        
+        private void finished() {
+            setRunning(false);
+            if (completed) {
+                progressBar.setValue(100);
+                appendLog("\n✓ 生成ファイル: " + outputPath + "\n");
+                JOptionPane.showMessageDialog(Launcher.this,
+                    "処理が正常に完了しました。",
+                    "完了",
+                    JOptionPane.INFORMATION_MESSAGE);
+            } else if (failure instanceof ProcessCancelledException) {
+                appendLog("処理をキャンセルしました。\n");
+            } else {
+                String message = failure != null ? failure.getMessage() : null;
+                appendLog("\nエラー: " + message + "\n");
+                JOptionPane.showMessageDialog(Launcher.this,
+                    "処理中にエラーが発生しました:\n" + message,
                     "エラー",
-                    JOptionPane.ERROR_MESSAGE));
+                    JOptionPane.ERROR_MESSAGE);
             }
-        }).start();
+        }
     }
     
-    private void appendLog(String text) {
-        SwingUtilities.invokeLater(() -> {
-            logArea.append(text);
-            logArea.setCaretPosition(logArea.getDocument().getLength());
-        });
+    /**
+     * 書き込まれたバイト列を1行ずつ（UTF-8で）渡すストリーム
+     */
+    private static class LogOutputStream extends OutputStream {
+        
+        private final Consumer<String> sink;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        
+        LogOutputStream(Consumer<String> sink) {
+            this.sink = sink;
+        }
+        
+        @Override
+        public synchronized void write(int b) {
+            if (b == '\n') {
+                sink.accept(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                line.reset();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
     }
     
     public static void main(String[] args) {
@@ -1,10 +1,13 @@
 package d3w;
 
+import d3w.model.BatchJob;
+
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -12,7 +15,26 @@ import java.util.List;
  * D3W Processor CLI Tool
  * YAMLファイルと雛型.d3wを受け取り、加工した後で1つの.d3wファイルを生成する。
  * 使用方法:
- *   java -jar d3w-processor.jar <雛型.d3wファイル> <設定.ymlファイル1> [<設定.ymlファイル2> ...]
+ *   java -jar d3w-processor.jar [オプション] <雛型.d3wファイル> <設定.ymlファイル1> [<設定.ymlファイル2> ...]
+ *   java -jar d3w-processor.jar [オプション] --works=<ワーク設定.yml> <雛型.d3wファイル>
+ *   java -jar d3w-processor.jar [オプション] --batch=<マニフェスト.yml> <雛型.d3wファイル>
+ *   java -jar d3w-processor.jar [オプション] --server[=PORT]
+ * オプション:
+ *   --in-memory 一時ディレクトリを使用せず、メモリ上で処理する
+ *   --parallel[=N] YAML読み込み・ワーク生成・ZIP圧縮をN並列で行う（N省略時はCPUコア数）
+ *   --output=FILE 出力ファイルのパス（省略時は雛型と同じディレクトリに output_yyyyMMddHHmmss.d3w）
+ *   --incremental 前回の出力（--outputで指定）から、YAMLが変更されたワークのみ生成する
+ *   --streaming YAMLを1件ずつ読み込み、生成したワークをすぐに出力へ書き込む（ワーク数が多い場合にメモリ使用量を抑える）
+ *   --works=FILE 1つのYAMLファイルに `---` 区切りで記載した複数のワーク設定から生成する（ストリーミング生成で処理する）
+ *   --compression=PROFILE 圧縮プロファイル（default, latency, size, balanced）
+ *   --compression-report エントリごとの圧縮結果を「出力ファイル名.compression.json」に書き出す
+ *   --metrics フェーズごとの処理時間・入出力量を「出力ファイル名.metrics.json」に書き出す
+ *   --progress=MODE 進捗の表示方法（console: コンソールに表示、json: 1行1件のJSON、none: 表示しない）
+ *   --batch=FILE マニフェストに記載した複数の.d3wファイルを1回の起動で生成する（ジョブは--parallelの数だけ並行に実行）
+ *   --server[=PORT] 常駐してジョブを受け付けるHTTPサーバーとして起動する（D3wServer、PORT省略時は8765）
+ *   --template-cache=N サーバーモードでキャッシュする雛型の最大数（省略時は32）
+ *   --output-root=DIR サーバーモードで出力を許可するディレクトリ（このディレクトリ以下の.d3wファイルにのみ出力する）
+ *   --timeout=SECONDS 出力ファイル1つあたりの制限時間（超えた場合は中断し、一時ディレクトリと途中までの出力を削除する）
  * 引数:
  *   args[0]  雛型.d3wファイルのパス
  *   args[1~] ワークの設定を記載したYAMLファイルのパス（1つ以上）
@@ -27,34 +49,182 @@ import java.util.List;
 public class Main {
     
     public static void main(String[] args) {
+        // オプション（--で始まる引数）と位置引数を分離
+        final ProcessOptions options = new ProcessOptions();
+        final List<String> arguments = new ArrayList<>();
+        String batchManifestPath = null;
+        String worksYamlPath = null;
+        String outputPath = null;
+        Integer serverPort = null;
+        for (String arg : args) {
+            if (arg.startsWith("--output=")) {
+                outputPath = arg.substring("--output=".length());
+            } else if (arg.startsWith("--works=")) {
+                worksYamlPath = arg.substring("--works=".length());
+            } else if (arg.startsWith("--batch=")) {
+                batchManifestPath = arg.substring("--batch=".length());
+            } else if (arg.equals("--server") || arg.startsWith("--server=")) {
+                serverPort = arg.equals("--server") ? Integer.valueOf(D3wServer.DEFAULT_PORT)
+                        : parsePositiveInt(arg.substring("--server=".length()));
+                if (serverPort == null) {
+                    System.err.println("エラー: ポート番号は1以上の整数で指定してください: " + arg);
+                    System.exit(1);
+                }
+            } else if (arg.startsWith("--")) {
+                if (!parseOption(arg, options)) {
+                    System.exit(1);
+                }
+            } else {
+                arguments.add(arg);
+            }
+        }
+
+        if (options.isIncremental() && options.isStreaming()) {
+            System.err.println("エラー: --incrementalと--streamingは同時に指定できません");
+            System.exit(1);
+        }
+
+        // サーバーモード
+        if (serverPort != null) {
+            runServer(serverPort, options);
+            return;
+        }
+
+        // バッチモード
+        if (batchManifestPath != null) {
+            runBatch(batchManifestPath, arguments, options);
+            return;
+        }
+
+        // 複数のワーク設定を記載したYAMLファイル
+        if (worksYamlPath != null) {
+            runWorksYaml(worksYamlPath, arguments, outputPath, options);
+            return;
+        }
+
         // 引数チェック
-        if (args.length < 2) {
+        if (arguments.size() < 2) {
             printUsage();
             System.exit(1);
         }
+        if (options.isIncremental() && outputPath == null) {
+            System.err.println("エラー: --incrementalを指定する場合は、--output=FILEで出力ファイルを指定してください");
+            System.exit(1);
+        }
 
         // 第一引数: .d3wファイル
-        final String d3wFilePath = args[0];
+        final String d3wFilePath = arguments.get(0);
         if (!validateD3wFile(d3wFilePath)) {
             System.exit(1);
         }
 
         // 第二引数以降: .ymlファイル（1つ以上）
         final List<String> ymlFilePaths = new ArrayList<>();
-        for (int i = 1; i < args.length; i++) {
-            final String ymlFilePath = args[i];
+        for (int i = 1; i < arguments.size(); i++) {
+            final String ymlFilePath = arguments.get(i);
             if (!validateYamlFile(ymlFilePath, i + 1)) {
                 System.exit(1);
             }
             ymlFilePaths.add(ymlFilePath);
         }
 
-        // 処理開始
-        printHeader(d3wFilePath, ymlFilePaths);
+        // 処理開始（コンソール以外に進捗を出力する場合、見出しは表示しない）
+        if (isConsole(options)) {
+            printHeader(d3wFilePath, ymlFilePaths);
+        }
         
         try {
-            String outputPath = processFiles(d3wFilePath, ymlFilePaths);
-            printSuccess(outputPath);
+            String generatedPath = processFiles(d3wFilePath, ymlFilePaths, outputPath, options);
+            if (isConsole(options)) {
+                printSuccess(generatedPath);
+            }
+        } catch (Exception e) {
+            printError(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 常駐してジョブを受け付けるHTTPサーバーとして起動し、停止されるまで待つ
+     */
+    private static void runServer(int port, ProcessOptions options) {
+        try {
+            D3wServer server = new D3wServer(port, options);
+            server.start();
+            server.awaitStop();
+        } catch (Exception e) {
+            printError(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * マニフェストに記載したジョブをバッチ処理する
+     * いずれかのジョブが失敗した場合は終了コード1で終了する
+     */
+    private static void runBatch(String manifestPath, List<String> arguments, ProcessOptions options) {
+        if (arguments.size() != 1) {
+            System.err.println("エラー: バッチモードでは雛型.d3wファイルを1つだけ指定してください");
+            System.exit(1);
+        }
+        final String d3wFilePath = arguments.get(0);
+        if (!validateD3wFile(d3wFilePath)) {
+            System.exit(1);
+        }
+        if (!new File(manifestPath).exists()) {
+            System.err.println("エラー: マニフェストファイルが存在しません: " + manifestPath);
+            System.exit(1);
+        }
+
+        try {
+            List<BatchJob> jobs = BatchManifestLoader.load(manifestPath);
+            if (isConsole(options)) {
+                System.out.println("雛型.d3wファイル: " + d3wFilePath);
+                System.out.println("ジョブ数: " + jobs.size());
+            }
+
+            for (BatchProcessor.Result result : BatchProcessor.run(d3wFilePath, jobs, options)) {
+                if (!result.isSuccess()) {
+                    System.exit(1);
+                }
+            }
+        } catch (Exception e) {
+            printError(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 1つのYAMLファイルに `---` 区切りで記載した複数のワーク設定から.d3wファイルを生成する
+     */
+    private static void runWorksYaml(String worksYamlPath, List<String> arguments, String outputPath,
+                                     ProcessOptions options) {
+        if (arguments.size() != 1) {
+            System.err.println("エラー: --worksを指定する場合は、雛型.d3wファイルを1つだけ指定してください");
+            System.exit(1);
+        }
+        if (options.isIncremental()) {
+            System.err.println("エラー: --incrementalと--worksは同時に指定できません");
+            System.exit(1);
+        }
+        final String d3wFilePath = arguments.get(0);
+        if (!validateD3wFile(d3wFilePath)) {
+            System.exit(1);
+        }
+        if (!new File(worksYamlPath).exists()) {
+            System.err.println("エラー: ワーク設定のYAMLファイルが存在しません: " + worksYamlPath);
+            System.exit(1);
+        }
+
+        if (isConsole(options)) {
+            printHeader(d3wFilePath, Collections.singletonList(worksYamlPath));
+        }
+        try {
+            String generatedPath = outputPath != null ? outputPath : defaultOutputPath(d3wFilePath);
+            D3wProcessor.processDocuments(d3wFilePath, worksYamlPath, generatedPath, options);
+            if (isConsole(options)) {
+                printSuccess(generatedPath);
+            }
         } catch (Exception e) {
             printError(e);
             System.exit(1);
@@ -64,9 +234,28 @@ public class Main {
     /**
      * .d3wファイルとYAMLファイルを処理する
      * 
+     * @param outputPath 出力ファイルのパス（nullの場合は雛型と同じディレクトリに output_yyyyMMddHHmmss.d3w を生成）
      * @return 生成された.d3wファイルのパス
      */
-    private static String processFiles(String d3wFilePath, List<String> ymlFilePaths) throws Exception {
+    private static String processFiles(String d3wFilePath, List<String> ymlFilePaths, String outputPath,
+                                       ProcessOptions options) throws Exception {
+        if (outputPath != null) {
+            D3wProcessor.process(d3wFilePath, ymlFilePaths, outputPath, options);
+            return outputPath;
+        }
+
+        String generatedPath = defaultOutputPath(d3wFilePath);
+        
+        // D3wProcessorで処理を実行
+        D3wProcessor.process(d3wFilePath, ymlFilePaths, generatedPath, options);
+        
+        return generatedPath;
+    }
+
+    /**
+     * 出力ファイルのパスの既定値（雛型と同じディレクトリの output_yyyyMMddHHmmss.d3w）
+     */
+    static String defaultOutputPath(String d3wFilePath) {
         // 雛型.d3wファイルの絶対パスを取得
         Path d3wPath = Paths.get(d3wFilePath).toAbsolutePath();
         
@@ -82,12 +271,104 @@ public class Main {
         
         // 出力ファイル名を生成
         String outputFileName = "output_" + timestamp + ".d3w";
-        String outputPath = outputDir.resolve(outputFileName).toString();
-        
-        // D3wProcessorで処理を実行
-        D3wProcessor.process(d3wFilePath, ymlFilePaths, outputPath);
-        
-        return outputPath;
+        return outputDir.resolve(outputFileName).toString();
+    }
+
+    /**
+     * オプション引数を解析してProcessOptionsに設定する
+     *
+     * @return 解析に成功した場合true
+     */
+    private static boolean parseOption(String arg, ProcessOptions options) {
+        final int separator = arg.indexOf('=');
+        final String name = separator < 0 ? arg : arg.substring(0, separator);
+        final String value = separator < 0 ? null : arg.substring(separator + 1);
+
+        switch (name) {
+            case "--in-memory":
+                options.setInMemory(true);
+                return true;
+            case "--parallel":
+                if (value == null) {
+                    options.setParallelism(Runtime.getRuntime().availableProcessors());
+                    return true;
+                }
+                final Integer parallelism = parsePositiveInt(value);
+                if (parallelism == null) {
+                    System.err.println("エラー: 並列度は1以上の整数で指定してください: " + arg);
+                    return false;
+                }
+                options.setParallelism(parallelism);
+                return true;
+            case "--compression":
+                final CompressionProfile profile = value == null ? null : CompressionProfile.fromName(value);
+                if (profile == null) {
+                    System.err.println("エラー: 圧縮プロファイルは default, latency, size, balanced のいずれかで指定してください: " + arg);
+                    return false;
+                }
+                options.setCompressionPolicy(profile);
+                return true;
+            case "--incremental":
+                options.setIncremental(true);
+                return true;
+            case "--streaming":
+                options.setStreaming(true);
+                return true;
+            case "--compression-report":
+                options.setCompressionReport(true);
+                return true;
+            case "--metrics":
+                options.setMetrics(true);
+                return true;
+            case "--progress":
+                final ProgressListener listener = value == null ? null : createProgressListener(value);
+                if (listener == null) {
+                    System.err.println("エラー: 進捗の表示方法は console, json, none のいずれかで指定してください: " + arg);
+                    return false;
+                }
+                options.setProgressListener(listener);
+                return true;
+            case "--template-cache":
+                final Integer templateCacheSize = value == null ? null : parsePositiveInt(value);
+                if (templateCacheSize == null) {
+                    System.err.println("エラー: 雛型キャッシュの保持数は1以上の整数で指定してください: " + arg);
+                    return false;
+                }
+                options.setTemplateCacheSize(templateCacheSize);
+                return true;
+            case "--output-root":
+                if (value == null || value.isEmpty() || !new File(value).isDirectory()) {
+                    System.err.println("エラー: 出力を許可するディレクトリは存在するディレクトリで指定してください: " + arg);
+                    return false;
+                }
+                options.setServerOutputRoot(value);
+                return true;
+            case "--timeout":
+                final Integer timeoutSeconds = value == null ? null : parsePositiveInt(value);
+                if (timeoutSeconds == null) {
+                    System.err.println("エラー: 制限時間は1以上の整数（秒）で指定してください: " + arg);
+                    return false;
+                }
+                options.setTimeoutMillis(timeoutSeconds * 1000L);
+                return true;
+            default:
+                System.err.println("エラー: 不明なオプションです: " + arg);
+                return false;
+        }
+    }
+
+    /**
+     * 1以上の整数を解析する
+     *
+     * @return 解析した値（不正な場合はnull）
+     */
+    private static Integer parsePositiveInt(String value) {
+        try {
+            final int number = Integer.parseInt(value);
+            return number >= 1 ? number : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     /**
@@ -132,7 +413,25 @@ public class Main {
     private static void printUsage() {
         System.err.println("エラー: 引数が不足しています。\n");
         System.err.println("使用方法:");
-        System.err.println("  java -jar d3w-processor.jar <雛型.d3wファイル> <設定.ymlファイル1> [<設定.ymlファイル2> ...]\n");
+        System.err.println("  java -jar d3w-processor.jar [オプション] <雛型.d3wファイル> <設定.ymlファイル1> [<設定.ymlファイル2> ...]\n");
+        System.err.println("オプション:");
+        System.err.println("  --in-memory     一時ディレクトリを使用せず、メモリ上で処理します");
+        System.err.println("  --parallel[=N]  YAML読み込み・ワーク生成・ZIP圧縮をN並列で行います（N省略時はCPUコア数）");
+        System.err.println("  --output=FILE   出力ファイルのパスを指定します（省略時は雛型と同じディレクトリに output_yyyyMMddHHmmss.d3w）");
+        System.err.println("  --incremental   前回の出力（--outputで指定）から、YAMLが変更されたワークのみ生成します");
+        System.err.println("  --streaming     YAMLを1件ずつ読み込み、生成したワークをすぐに出力へ書き込みます（メモリ使用量を抑えます）");
+        System.err.println("  --works=FILE    1つのYAMLファイルに「---」区切りで記載した複数のワーク設定から生成します");
+        System.err.println("                  （java -jar d3w-processor.jar --works=works.yml template.d3w）");
+        System.err.println("  --compression=PROFILE  圧縮プロファイルを指定します（default, latency, size, balanced）");
+        System.err.println("  --compression-report   エントリごとの圧縮結果を「出力ファイル名.compression.json」に書き出します");
+        System.err.println("  --metrics       フェーズごとの処理時間・入出力量を「出力ファイル名.metrics.json」に書き出します");
+        System.err.println("  --progress=MODE 進捗の表示方法を指定します（console: コンソールに表示、json: 1行1件のJSON、none: 表示しない）");
+        System.err.println("  --batch=FILE    マニフェストに記載した複数の.d3wファイルを1回の起動で生成します");
+        System.err.println("                  （java -jar d3w-processor.jar --batch=manifest.yml template.d3w）");
+        System.err.println("  --server[=PORT] 常駐してジョブを受け付けるHTTPサーバーとして起動します（PORT省略時は8765）");
+        System.err.println("  --template-cache=N  サーバーモードでキャッシュする雛型の最大数（省略時は32）");
+        System.err.println("  --output-root=DIR   サーバーモードで出力を許可するディレクトリ（このディレクトリ以下の.d3wファイルにのみ出力します）");
+        System.err.println("  --timeout=SECONDS   出力ファイル1つあたりの制限時間（超えた場合は中断します）\n");
         System.err.println("説明:");
         System.err.println("  - 雛型.d3wファイルを基に、YAMLの設定を反映した.d3wファイルを1つ生成します");
         System.err.println("  - YAMLの数だけw1, w2, w3...ファイルが生成されます\n");
@@ -141,6 +440,31 @@ public class Main {
         System.err.println("  → output_20251229183045.d3w が生成されます（w1, w2, w3を含む）");
     }
 
+    /**
+     * 進捗の表示方法に対応するリスナーを作成する
+     *
+     * @return リスナー（不明な表示方法の場合はnull）
+     */
+    private static ProgressListener createProgressListener(String mode) {
+        switch (mode) {
+            case "console":
+                return new ConsoleProgressListener();
+            case "json":
+                return new JsonLinesProgressListener(System.out);
+            case "none":
+                return ProgressListener.SILENT;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 進捗をコンソールに表示するか（見出し等もあわせて表示する）
+     */
+    private static boolean isConsole(ProcessOptions options) {
+        return options.getProgressListener() instanceof ConsoleProgressListener;
+    }
+
     /**
      * 処理開始メッセージを表示
      */
@@ -169,6 +493,11 @@ public class Main {
      * エラーメッセージを表示
      */
     private static void printError(Exception e) {
+        if (e instanceof ProcessCancelledException) {
+            // 中断は不具合ではないため、スタックトレースは表示しない
+            System.err.println("\n処理を中断しました: " + e.getMessage());
+            return;
+        }
         System.err.println("\n╔════════════════════════════════════════════════════════╗");
         System.err.println("║           エラー発生 - 処理を中断しました                    ║");
         System.err.println("╚════════════════════════════════════════════════════════╝");
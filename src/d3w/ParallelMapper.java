@@ -0,0 +1,181 @@
+package d3w;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * リストの各要素に処理を並列に適用し、結果を入力と同じ順序で返すユーティリティクラス
+ * <p>
+ * 並列度が1以下の場合は呼び出し元のスレッドで順番に処理する。
+ * 並列度が2以上の場合は、呼び出し元のスレッドと、スレッドプールに投入した（並列度 - 1）個の処理が
+ * 要素を1件ずつ取り出して処理する。
+ * <p>
+ * スレッドプールは呼び出しごとに作成せず、共有のプールか呼び出し元が所有するプールを使い続ける。
+ * スレッドが入れ替わらないため、スレッドごとに保持するYamlインスタンスやUTF-8変換のバッファ
+ * （YamlInfoLoader, Utf8Reader, Utf8Writer）が呼び出しをまたいで再利用される。
+ * 呼び出し元のスレッドも要素を処理するため、プールのスレッドが埋まっていても（ParallelMapperの
+ * 処理の中から同じプールでmapを呼んだ場合も）処理が止まることはない。
+ */
+public class ParallelMapper {
+
+    /**
+     * 要素1件に対する処理
+     *
+     * @param <T> 入力の型
+     * @param <R> 結果の型
+     */
+    @FunctionalInterface
+    public interface Task<T, R> {
+        /**
+         * @param index 要素のインデックス（0始まり）
+         * @param item  要素
+         * @return 処理結果
+         */
+        R apply(int index, T item) throws Exception;
+    }
+
+    /**
+     * 各要素に処理を適用し、結果を入力順に返す（共有のスレッドプールを使用する）
+     *
+     * @param items       入力のリスト
+     * @param parallelism 並列度（1以下の場合は逐次処理）
+     * @param task        要素1件に対する処理
+     * @return 入力と同じ順序の結果リスト
+     * @throws Exception いずれかの処理が失敗した場合（最初に失敗した要素の例外）
+     */
+    public static <T, R> List<R> map(List<T> items, int parallelism, Task<T, R> task) throws Exception {
+        return map(items, parallelism, null, task);
+    }
+
+    /**
+     * 各要素に処理を適用し、結果を入力順に返す
+     * 処理が失敗した場合、まだ取り出されていない要素は処理せず、実行中の処理の完了を待ってから例外を送出する。
+     *
+     * @param items       入力のリスト
+     * @param parallelism 並列度（1以下の場合は逐次処理）
+     * @param executor    使用するスレッドプール（nullの場合は共有のプール。終了は呼び出し元が行う）
+     * @param task        要素1件に対する処理
+     * @return 入力と同じ順序の結果リスト
+     * @throws Exception いずれかの処理が失敗した場合（最初に失敗した要素の例外）
+     */
+    public static <T, R> List<R> map(List<T> items, int parallelism, ExecutorService executor, Task<T, R> task)
+            throws Exception {
+        if (parallelism <= 1 || items.size() <= 1) {
+            List<R> results = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                results.add(task.apply(i, items.get(i)));
+            }
+            return results;
+        }
+
+        Run<T, R> run = new Run<>(items, task);
+        ExecutorService pool = executor != null ? executor : SharedPool.EXECUTOR;
+        int helpers = Math.min(parallelism, items.size()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                pool.execute(run::work);
+            } catch (RejectedExecutionException e) {
+                // プールが終了している場合は、残りを呼び出し元のスレッドで処理する
+                break;
+            }
+        }
+        run.work();
+        return run.await();
+    }
+
+    /**
+     * 1回のmapの呼び出しで共有する状態
+     */
+    private static class Run<T, R> {
+        final List<T> items;
+        final Task<T, R> task;
+        final Object[] results;
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done;
+        /** 失敗した要素のうち最も前のインデックス（失敗していない場合はInteger.MAX_VALUE） */
+        int failedIndex = Integer.MAX_VALUE;
+        Throwable failure;
+        volatile boolean failed;
+
+        Run(List<T> items, Task<T, R> task) {
+            this.items = items;
+            this.task = task;
+            this.results = new Object[items.size()];
+            this.done = new CountDownLatch(items.size());
+        }
+
+        /**
+         * 要素がなくなるまで1件ずつ取り出して処理する（失敗した後に取り出した要素は処理しない）
+         */
+        void work() {
+            int index;
+            while ((index = next.getAndIncrement()) < items.size()) {
+                try {
+                    if (!failed) {
+                        results[index] = task.apply(index, items.get(index));
+                    }
+                } catch (Throwable t) {
+                    fail(index, t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        synchronized void fail(int index, Throwable t) {
+            if (index < failedIndex) {
+                failedIndex = index;
+                failure = t;
+            }
+            failed = true;
+        }
+
+        /**
+         * すべての要素の処理が終わるまで待ち、結果を入力順に返す（処理で発生した例外はそのまま再送出する）
+         */
+        @SuppressWarnings("unchecked")
+        List<R> await() throws Exception {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                fail(-1, e);
+                throw e;
+            }
+            Throwable cause;
+            synchronized (this) {
+                cause = failure;
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return new ArrayList<>((List<R>) Arrays.asList(results));
+        }
+    }
+
+    /**
+     * 共有のスレッドプール（初めて並列処理を行うときに作成する）
+     * 必要なだけスレッドを作成し、60秒間使われなかったスレッドは終了する。
+     * デーモンスレッドのため、JVMの終了を妨げない。
+     */
+    private static class SharedPool {
+        static final ExecutorService EXECUTOR;
+
+        static {
+            AtomicInteger count = new AtomicInteger();
+            EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "d3w-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
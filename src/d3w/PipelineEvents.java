@@ -0,0 +1,81 @@
+package d3w;
+
+/**
+ * D3wProcessorの処理をJava Flight Recorder（JFR）のイベントとして記録するクラス
+ * <p>
+ * 雛型の読み込み、YAMLの解析、ワークの生成（1件ごと）、_ファイルの編集、.d3wファイルの構築を、
+ * 雛型・出力ファイルのパス、ワーク番号、バイト数とともに記録する（イベント名は d3w.*）。
+ * 記録中でない場合はイベントの開始・終了のみを行い、フィールドは設定しない。
+ * <p>
+ * JFRを含まないJVM（OpenJDK 8u262より前等）では何も記録しない。
+ * その場合もjdk.jfrのクラスを読み込まないよう、イベントはObjectとして受け渡す。
+ */
+final class PipelineEvents {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * フェーズのイベントを開始する
+     *
+     * @param phase フェーズ名（ProcessMetrics.YAML等）
+     * @return 開始したイベント（JFRを使用できない場合はnull）
+     */
+    static Object beginPhase(String phase) {
+        return AVAILABLE ? JfrEvents.beginPhase(phase) : null;
+    }
+
+    /**
+     * フェーズのイベントを終了し、記録中の場合は確定する
+     *
+     * @param event        beginPhaseで開始したイベント
+     * @param template     雛型.d3wファイルのパス
+     * @param output       出力する.d3wファイルのパス
+     * @param bytesRead    フェーズ内で読み込んだバイト数
+     * @param bytesWritten フェーズ内で書き込んだバイト数
+     * @param entries      フェーズ内で処理したエントリ数
+     */
+    static void commitPhase(Object event, String template, String output,
+                            long bytesRead, long bytesWritten, long entries) {
+        if (event != null) {
+            JfrEvents.commitPhase(event, template, output, bytesRead, bytesWritten, entries);
+        }
+    }
+
+    /**
+     * ワーク1件の生成のイベントを開始する
+     *
+     * @return 開始したイベント（JFRを使用できない場合はnull）
+     */
+    static Object beginWork() {
+        return AVAILABLE ? JfrEvents.beginWork() : null;
+    }
+
+    /**
+     * ワーク1件の生成のイベントを終了し、記録中の場合は確定する
+     *
+     * @param event        beginWorkで開始したイベント
+     * @param template     雛型.d3wファイルのパス
+     * @param output       出力する.d3wファイルのパス
+     * @param workNumber   ワーク番号（1, 2, 3...）
+     * @param workName     ワーク名
+     * @param bytesWritten 生成したワークのバイト数
+     */
+    static void commitWork(Object event, String template, String output,
+                           int workNumber, String workName, long bytesWritten) {
+        if (event != null) {
+            JfrEvents.commitWork(event, template, output, workNumber, workName, bytesWritten);
+        }
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, PipelineEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+
+/**
+ * 読み込み・検証済みの雛型.d3wファイル
+ * <p>
+ * 雛型の読み込み、検証、w1の解析を1回だけ行い、同じ雛型から複数の.d3wファイルを
+ * 生成する際に使い回す（バッチ処理用）。
+ * 保持している内容は変更しないため、複数スレッドから同時に使用できる。
+ */
+public class PreparedTemplate {
+
+    private final String path;
+    private final D3wArchive archive;
+    private final WorkTemplate workTemplate;
+    private final byte[] mainContent;
+
+    /**
+     * @param path         雛型.d3wファイルのパス
+     * @param archive      w1を取り除いた雛型のエントリ
+     * @param workTemplate 解析済みの雛型ワーク（w1）
+     * @param mainContent  _ファイル（メイン）の内容
+     */
+    PreparedTemplate(String path, D3wArchive archive, WorkTemplate workTemplate, byte[] mainContent) {
+        this.path = path;
+        this.archive = archive;
+        this.workTemplate = workTemplate;
+        this.mainContent = mainContent;
+    }
+
+    /**
+     * 雛型.d3wファイルを読み込んで検証する
+     *
+     * @param templateD3wPath 雛型.d3wファイルのパス
+     * @return 読み込み・検証済みの雛型
+     * @throws Exception 読み込みに失敗した場合、または雛型が不正な場合
+     */
+    public static PreparedTemplate prepare(String templateD3wPath) throws Exception {
+        return prepare(templateD3wPath, new ConsoleProgressListener());
+    }
+
+    /**
+     * 雛型.d3wファイルを読み込んで検証する
+     *
+     * @param templateD3wPath 雛型.d3wファイルのパス
+     * @param listener        進捗を通知するリスナー
+     * @return 読み込み・検証済みの雛型
+     * @throws Exception 読み込みに失敗した場合、または雛型が不正な場合
+     */
+    public static PreparedTemplate prepare(String templateD3wPath, ProgressListener listener) throws Exception {
+        return D3wProcessor.prepareTemplate(templateD3wPath, listener);
+    }
+
+    /**
+     * 雛型.d3wファイルのパスを取得する
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 同じ内容で、パスだけを置き換えた雛型を返す（解析済みの内容は共有する）
+     * 内容が同じ別のパスの雛型として、メトリクス・JFRイベント・進捗の通知に正しいパスを使うために使用する。
+     *
+     * @param templateD3wPath 雛型.d3wファイルのパス
+     * @return パスが同じ場合はこのインスタンス、異なる場合はパスだけを置き換えた雛型
+     */
+    PreparedTemplate withPath(String templateD3wPath) {
+        if (path.equals(templateD3wPath)) {
+            return this;
+        }
+        return new PreparedTemplate(templateD3wPath, archive, workTemplate, mainContent);
+    }
+
+    /**
+     * 解析済みの雛型ワーク（w1）を取得する
+     */
+    public WorkTemplate getWorkTemplate() {
+        return workTemplate;
+    }
+
+    /**
+     * 雛型のエントリ数（取り除いたw1を含む）を取得する
+     */
+    public int size() {
+        return archive.size() + 1;
+    }
+
+    /**
+     * 出力用に、w1を取り除いた雛型のエントリのコピーを作成する
+     * 変更していないエントリは圧縮済みのデータを共有する
+     */
+    public D3wArchive newArchive() {
+        return archive.copy();
+    }
+
+    /**
+     * 編集用に、_ファイル（メイン）を解析したJsonObjectを新たに作成する
+     */
+    public JsonObject newMainContent() {
+        return JsonEditor.readJson(mainContent);
+    }
+}
@@ -0,0 +1,70 @@
+package d3w;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * CancellationTokenによって処理を中断した場合の例外
+ * <p>
+ * D3wProcessorから投げられる場合は、中断した時点のフェーズと生成済みのワーク数を保持する。
+ */
+public class ProcessCancelledException extends CancellationException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String reason;
+    private final String phase;
+    private final int generatedWorks;
+    private final int totalWorks;
+
+    /**
+     * @param reason 中断の理由
+     */
+    public ProcessCancelledException(String reason) {
+        this(reason, null, 0, 0);
+    }
+
+    /**
+     * @param reason         中断の理由
+     * @param phase          中断したフェーズ（ProcessMetrics.YAML等、フェーズの開始前の場合はnull）
+     * @param generatedWorks 中断するまでに生成したワーク数
+     * @param totalWorks     生成する予定だったワーク数（ワークの生成を開始していない場合は0、不明な場合は-1）
+     */
+    public ProcessCancelledException(String reason, String phase, int generatedWorks, int totalWorks) {
+        super(phase == null ? reason
+                : totalWorks < 0
+                ? String.format("%s（フェーズ: %s, 生成済み: %d個のワーク）", reason, phase, generatedWorks)
+                : String.format("%s（フェーズ: %s, 生成済み: %d/%d個のワーク）", reason, phase, generatedWorks, totalWorks));
+        this.reason = reason;
+        this.phase = phase;
+        this.generatedWorks = generatedWorks;
+        this.totalWorks = totalWorks;
+    }
+
+    /**
+     * 中断の理由
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 中断したフェーズ（不明な場合はnull）
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * 中断するまでに生成したワーク数
+     */
+    public int getGeneratedWorks() {
+        return generatedWorks;
+    }
+
+    /**
+     * 生成する予定だったワーク数（不明な場合は-1）
+     */
+    public int getTotalWorks() {
+        return totalWorks;
+    }
+}
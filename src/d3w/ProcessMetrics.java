@@ -0,0 +1,450 @@
+package d3w;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * D3wProcessorの処理フェーズごとの計測結果を記録するクラス
+ * <p>
+ * フェーズ（YAML読み込み、雛型の読み込み、ワーク生成、_ファイル編集、ZIP構築）ごとに、
+ * 経過時間、CPU時間、読み書きしたバイト数、エントリ数、ワーク1件ごとの所要時間を記録する。
+ * フェーズは start で開始し、返却された Phase を close すると終了する（try-with-resourcesで使用する）。
+ * <p>
+ * CPU時間はプロセス全体のCPU時間の差分のため、並列処理のワーカースレッドの分（GC・JITの分も）含む。
+ * 取得できないJVMでは-1になる。
+ * <p>
+ * フェーズの開始から終了までは、JFRのイベント（PipelineEvents）としても記録し、ProgressListenerにも通知する。
+ */
+public class ProcessMetrics {
+
+    /** YAMLファイルの読み込み（差分ビルドではハッシュ計算を含む） */
+    public static final String YAML = "yaml";
+    /** 雛型の読み込み・解凍・検証 */
+    public static final String EXTRACT = "extract";
+    /** ワークの生成 */
+    public static final String GENERATE = "generate";
+    /** _ファイル（メイン）の編集 */
+    public static final String MAIN = "main";
+    /** .d3wファイルの構築 */
+    public static final String BUILD = "build";
+
+    private final String template;
+    private final String output;
+    private final ProgressListener listener;
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private long totalNanos = -1;
+    private String currentPhase;
+    /** 生成済みのワーク数（並列処理のワーカースレッドから加算する） */
+    private final AtomicInteger generatedWorks = new AtomicInteger();
+    private volatile int totalWorks;
+
+    /**
+     * @param template 雛型.d3wファイルのパス
+     * @param output   出力する.d3wファイルのパス
+     * @param listener フェーズの開始・終了を通知するリスナー
+     */
+    public ProcessMetrics(String template, String output, ProgressListener listener) {
+        this.template = template;
+        this.output = output;
+        this.listener = listener;
+    }
+
+    /**
+     * 出力する.d3wファイルのパス
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * 進捗を通知するリスナー
+     */
+    public ProgressListener getListener() {
+        return listener;
+    }
+
+    /**
+     * フェーズを開始する（同じ名前のフェーズを再度開始した場合は、前回の値に加算する）
+     *
+     * @param name フェーズ名（YAML、EXTRACT等）
+     * @return 開始したフェーズ（closeで終了する）
+     */
+    public synchronized Phase start(String name) {
+        Phase phase = phases.computeIfAbsent(name, key -> new Phase(key, template, output, listener));
+        currentPhase = name;
+        phase.begin();
+        return phase;
+    }
+
+    /**
+     * 最後に開始したフェーズ名（開始していない場合はnull。処理を中断した場合に、どこまで進んだかを示す）
+     */
+    public synchronized String getCurrentPhase() {
+        return currentPhase;
+    }
+
+    /**
+     * ワークの生成を開始する
+     *
+     * @param total 生成するワーク数（ストリーミング生成で不明な場合は-1）
+     */
+    void beginWorks(int total) {
+        totalWorks = total;
+    }
+
+    /**
+     * ワークを1件生成したことを記録する
+     *
+     * @return 生成済みのワーク数（このワークを含む）
+     */
+    int workGenerated() {
+        return generatedWorks.incrementAndGet();
+    }
+
+    /**
+     * 生成済みのワーク数（ワークの生成中も参照できる）
+     */
+    public int getGeneratedWorks() {
+        return generatedWorks.get();
+    }
+
+    /**
+     * 生成するワーク数（ワークの生成を開始していない場合は0、不明な場合は-1）
+     */
+    public int getTotalWorks() {
+        return totalWorks;
+    }
+
+    /**
+     * 計測を終了する（以降の合計時間はこの時点までの経過時間になる）
+     */
+    public synchronized void finish() {
+        if (totalNanos < 0) {
+            totalNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * フェーズごとの計測結果を取得する（開始順）
+     */
+    public synchronized List<Phase> getPhases() {
+        return Collections.unmodifiableList(new ArrayList<>(phases.values()));
+    }
+
+    /**
+     * フェーズの計測結果を取得する
+     *
+     * @return 計測結果（開始していない場合はnull）
+     */
+    public synchronized Phase getPhase(String name) {
+        return phases.get(name);
+    }
+
+    /**
+     * 計測開始から終了（終了していない場合は現在）までの経過時間（ミリ秒）
+     */
+    public synchronized double getTotalMillis() {
+        return (totalNanos >= 0 ? totalNanos : System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    /**
+     * 生成したワーク数（ワーク生成のフェーズのエントリ数）
+     */
+    public synchronized long getWorkCount() {
+        Phase generate = phases.get(GENERATE);
+        return generate != null ? generate.entries : 0;
+    }
+
+    /**
+     * 集計結果を1行の文字列で返す
+     */
+    public synchronized String summary() {
+        StringBuilder builder = new StringBuilder(String.format("%.1f ms", getTotalMillis()));
+        for (Phase phase : phases.values()) {
+            builder.append(String.format(", %s %.1f ms", phase.name, phase.getWallMillis()));
+            if (phase.latencyCount > 0) {
+                builder.append(String.format("（1件 p50 %.3f ms, p99 %.3f ms）",
+                        phase.getLatencyPercentileMillis(50), phase.getLatencyPercentileMillis(99)));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * JSON形式でファイルに書き込む
+     *
+     * @param metricsPath 書き込み先のパス
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public synchronized void writeJson(Path metricsPath) throws IOException {
+        JsonArray phaseArray = new JsonArray();
+        for (Phase phase : phases.values()) {
+            JsonObject phaseObj = new JsonObject();
+            phaseObj.addProperty("name", phase.name);
+            phaseObj.addProperty("wallMillis", phase.getWallMillis());
+            phaseObj.addProperty("cpuMillis", phase.getCpuMillis());
+            phaseObj.addProperty("bytesRead", phase.bytesRead);
+            phaseObj.addProperty("bytesWritten", phase.bytesWritten);
+            phaseObj.addProperty("entries", phase.entries);
+            if (phase.latencyCount > 0) {
+                JsonObject latency = new JsonObject();
+                latency.addProperty("count", phase.latencyCount);
+                latency.addProperty("p50Millis", phase.getLatencyPercentileMillis(50));
+                latency.addProperty("p90Millis", phase.getLatencyPercentileMillis(90));
+                latency.addProperty("p99Millis", phase.getLatencyPercentileMillis(99));
+                latency.addProperty("maxMillis", phase.getLatencyPercentileMillis(100));
+                phaseObj.add("latency", latency);
+            }
+            phaseArray.add(phaseObj);
+        }
+
+        double totalMillis = getTotalMillis();
+        JsonObject metrics = new JsonObject();
+        metrics.addProperty("template", template);
+        metrics.addProperty("output", output);
+        metrics.addProperty("totalMillis", totalMillis);
+        metrics.addProperty("works", getWorkCount());
+        metrics.addProperty("worksPerSecond", totalMillis > 0 ? getWorkCount() * 1000.0 / totalMillis : 0);
+        metrics.add("phases", phaseArray);
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(metrics);
+        Files.write(metricsPath, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * プロセス全体のCPU時間（ナノ秒、取得できない場合は-1）
+     */
+    private static long processCpuNanos() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * フェーズ1つ分の計測結果
+     * 値の加算は開始したスレッドから行う（ワーカースレッドの所要時間は、結果を集める際にrecordLatencyで記録する）
+     */
+    public static class Phase implements AutoCloseable {
+        private final String name;
+        private final String template;
+        private final String output;
+        private final ProgressListener listener;
+        private long wallNanos;
+        private long cpuNanos;
+        private long bytesRead;
+        private long bytesWritten;
+        private long entries;
+        private long[] latencies = new long[16];
+        private int latencyCount;
+        private int latencySampleCount;
+        private int latencySampleLimit = Integer.MAX_VALUE;
+        private long maxLatency;
+        private Random latencySampler;
+
+        private long startWall;
+        private long startCpu;
+        private long startBytesRead;
+        private long startBytesWritten;
+        private long startEntries;
+        private Object event;
+
+        Phase(String name, String template, String output, ProgressListener listener) {
+            this.name = name;
+            this.template = template;
+            this.output = output;
+            this.listener = listener;
+        }
+
+        private void begin() {
+            listener.phaseStarted(output, name);
+            startBytesRead = bytesRead;
+            startBytesWritten = bytesWritten;
+            startEntries = entries;
+            event = PipelineEvents.beginPhase(name);
+            startWall = System.nanoTime();
+            startCpu = processCpuNanos();
+        }
+
+        /**
+         * フェーズを終了し、経過時間とCPU時間を加算する
+         */
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - startWall;
+            wallNanos += elapsed;
+            long endCpu = processCpuNanos();
+            if (startCpu < 0 || endCpu < 0 || cpuNanos < 0) {
+                cpuNanos = -1;
+            } else {
+                cpuNanos += endCpu - startCpu;
+            }
+            PipelineEvents.commitPhase(event, template, output, bytesRead - startBytesRead,
+                    bytesWritten - startBytesWritten, entries - startEntries);
+            event = null;
+            listener.phaseFinished(output, name, elapsed);
+        }
+
+        /**
+         * 読み込んだバイト数を加算する
+         */
+        public void addBytesRead(long bytes) {
+            bytesRead += bytes;
+        }
+
+        /**
+         * 書き込んだバイト数を加算する
+         */
+        public void addBytesWritten(long bytes) {
+            bytesWritten += bytes;
+        }
+
+        /**
+         * 処理したエントリ数（YAMLファイル数、ワーク数、ZIPエントリ数等）を加算する
+         */
+        public void addEntries(long count) {
+            entries += count;
+        }
+
+        /**
+         * ワーク1件等、1単位の処理の所要時間を記録する
+         *
+         * @param nanos 所要時間（ナノ秒）
+         */
+        public void recordLatency(long nanos) {
+            latencyCount++;
+            maxLatency = Math.max(maxLatency, nanos);
+            if (latencySampleCount < latencySampleLimit) {
+                if (latencySampleCount == latencies.length) {
+                    latencies = Arrays.copyOf(latencies,
+                            (int) Math.min((long) latencies.length * 2, latencySampleLimit));
+                }
+                latencies[latencySampleCount++] = nanos;
+                return;
+            }
+            // 上限を超えた分はリザーバーサンプリング（Algorithm R）で、記録した全件から一様に標本を残す
+            if (latencySampler == null) {
+                latencySampler = new Random(latencySampleLimit);
+            }
+            int index = latencySampler.nextInt(latencyCount);
+            if (index < latencySampleLimit) {
+                latencies[index] = nanos;
+            }
+        }
+
+        /**
+         * 所要時間の標本として保持する件数の上限を設定する（ストリーミング生成等、件数が多い場合に使用する）
+         * 上限を超えて記録した場合は、記録した全件から一様に選んだ標本からパーセンタイルを求める（最大値は常に正確）。
+         *
+         * @param limit 保持する件数の上限（1以上）
+         */
+        public void limitLatencySamples(int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("所要時間の標本数の上限は1以上で指定してください: " + limit);
+            }
+            if (latencySampleCount > limit) {
+                throw new IllegalStateException("すでに上限を超える所要時間を記録しています: " + latencySampleCount);
+            }
+            latencySampleLimit = limit;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 雛型.d3wファイルのパス
+         */
+        public String getTemplate() {
+            return template;
+        }
+
+        /**
+         * 出力する.d3wファイルのパス
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        /**
+         * 進捗を通知するリスナー
+         */
+        public ProgressListener getListener() {
+            return listener;
+        }
+
+        public double getWallMillis() {
+            return wallNanos / 1_000_000.0;
+        }
+
+        /**
+         * CPU時間（ミリ秒、取得できない場合は-1）
+         */
+        public double getCpuMillis() {
+            return cpuNanos < 0 ? -1 : cpuNanos / 1_000_000.0;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * 所要時間を記録した件数（標本数の上限を超えた分も含む）
+         */
+        public int getLatencyCount() {
+            return latencyCount;
+        }
+
+        /**
+         * パーセンタイルの計算に使用する、保持している所要時間の標本数
+         */
+        public int getLatencySampleCount() {
+            return latencySampleCount;
+        }
+
+        /**
+         * 1単位の処理の所要時間のパーセンタイル（ミリ秒、最近傍順位法。記録がない場合は0）
+         * 標本数の上限を超えて記録した場合は、保持している標本から求める（100の場合は記録した全件の最大値）。
+         *
+         * @param percentile パーセンタイル（0～100）
+         */
+        public double getLatencyPercentileMillis(double percentile) {
+            if (latencySampleCount == 0) {
+                return 0;
+            }
+            if (percentile >= 100) {
+                return maxLatency / 1_000_000.0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencySampleCount);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * latencySampleCount);
+            return sorted[Math.min(Math.max(rank, 1), latencySampleCount) - 1] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package d3w;
+
+import lombok.Data;
+
+/**
+ * D3wProcessorの処理オプション
+ */
+@Data
+public class ProcessOptions {
+    /**
+     * メモリ上で処理するか（true: 一時ディレクトリを使用せずZIPを直接読み書きする）
+     */
+    private boolean inMemory;
+    /**
+     * ストリーミング生成を行うか（true: YAMLを1件ずつ読み込み、生成したワークをすぐに出力ZIPへ書き込む。
+     * ワークの内容を保持しないため、ワーク数が多くてもメモリ使用量がほとんど増えない）
+     */
+    private boolean streaming;
+    /**
+     * YAML読み込み・ワーク生成・ZIP圧縮の並列度（1の場合は逐次処理）
+     */
+    private int parallelism = 1;
+    /**
+     * 差分ビルドを行うか（true: 前回の出力と「出力ファイル名.manifest.json」から、YAMLが変更されたワークのみ生成する）
+     */
+    private boolean incremental;
+    /**
+     * 生成・編集したエントリの圧縮ポリシー（DEFAULT: 常に標準のDEFLATE圧縮）
+     */
+    private CompressionPolicy compressionPolicy = CompressionProfile.DEFAULT;
+    /**
+     * エントリごとの圧縮結果を「出力ファイル名.compression.json」に書き出すか
+     */
+    private boolean compressionReport;
+    /**
+     * フェーズごとの処理時間・入出力量を「出力ファイル名.metrics.json」に書き出すか
+     */
+    private boolean metrics;
+    /**
+     * 進捗を通知するリスナー（既定はコンソールに表示する。SILENTの場合は何も出力しない）
+     */
+    private ProgressListener progressListener = new ConsoleProgressListener();
+    /**
+     * サーバーモードでキャッシュする雛型の最大数（雛型の内容のSHA-256ごとに保持する）
+     */
+    private int templateCacheSize = 32;
+    /**
+     * サーバーモードで出力を許可するディレクトリ（このディレクトリ以下の.d3wファイルにのみ出力する。nullの場合は制限しない）
+     */
+    private String serverOutputRoot;
+    /**
+     * 処理の中断を要求するトークン（既定は中断しない。バッチモードでは全ジョブで共有する）
+     */
+    private CancellationToken cancellationToken = CancellationToken.NONE;
+    /**
+     * 1回の処理（出力ファイル1つ）の制限時間（ミリ秒、0の場合は制限しない。超えた場合は中断する）
+     */
+    private long timeoutMillis;
+
+    /**
+     * 同じ設定のコピーを作成する（ジョブごとに並列度等を変更する場合に使用する）
+     */
+    public ProcessOptions copy() {
+        ProcessOptions copy = new ProcessOptions();
+        copy.setInMemory(inMemory);
+        copy.setStreaming(streaming);
+        copy.setParallelism(parallelism);
+        copy.setIncremental(incremental);
+        copy.setCompressionPolicy(compressionPolicy);
+        copy.setCompressionReport(compressionReport);
+        copy.setMetrics(metrics);
+        copy.setProgressListener(progressListener);
+        copy.setTemplateCacheSize(templateCacheSize);
+        copy.setServerOutputRoot(serverOutputRoot);
+        copy.setCancellationToken(cancellationToken);
+        copy.setTimeoutMillis(timeoutMillis);
+        return copy;
+    }
+}
@@ -0,0 +1,70 @@
+package d3w;
+
+/**
+ * D3wProcessorの処理の進捗を受け取るリスナー（ProcessOptions#progressListener で指定する）
+ * <p>
+ * 用意している実装は次の3つ。
+ * ConsoleProgressListener: コンソールに表示する（既定。ワークの生成は一定間隔ごとに、ワーク/秒と残り時間を表示）
+ * ProgressListener.SILENT: 何も出力しない
+ * JsonLinesProgressListener: イベントを1行1件のJSONで書き出す（外部のプログラムから進捗を監視する場合）
+ * <p>
+ * バッチモード・サーバーモードでは複数のジョブから、ワークの生成では並列処理のワーカースレッドから
+ * 同時に呼ばれるため、実装はスレッドセーフにすること。どのジョブのイベントかは output で区別する。
+ * 呼び出し元の処理を止めないよう、例外は投げないこと。
+ */
+public interface ProgressListener {
+
+    /** 何も出力しないリスナー */
+    ProgressListener SILENT = new ProgressListener() {
+    };
+
+    /**
+     * フェーズを開始した
+     *
+     * @param output 出力する.d3wファイルのパス
+     * @param phase  フェーズ名（ProcessMetrics.YAML等）
+     */
+    default void phaseStarted(String output, String phase) {
+    }
+
+    /**
+     * フェーズを終了した
+     *
+     * @param output 出力する.d3wファイルのパス
+     * @param phase  フェーズ名（ProcessMetrics.YAML等）
+     * @param nanos  フェーズの所要時間（ナノ秒）
+     */
+    default void phaseFinished(String output, String phase, long nanos) {
+    }
+
+    /**
+     * ワークを1件生成した（並列処理の場合は完了した順に呼ばれる）
+     *
+     * @param output     出力する.d3wファイルのパス
+     * @param completed  生成済みのワーク数（このワークを含む）
+     * @param total      生成するワーク数（ストリーミング生成で不明な場合は-1）
+     * @param workNumber ワーク番号（1, 2, 3...）
+     * @param workName   ワーク名
+     */
+    default void workGenerated(String output, int completed, int total, int workNumber, String workName) {
+    }
+
+    /**
+     * ファイルを書き出した（出力の.d3wファイル、レポート等）
+     *
+     * @param output 出力する.d3wファイルのパス
+     * @param path   書き出したファイルのパス
+     * @param bytes  書き出したバイト数
+     */
+    default void bytesWritten(String output, String path, long bytes) {
+    }
+
+    /**
+     * 処理の経過を知らせるメッセージ
+     *
+     * @param output  出力する.d3wファイルのパス（雛型の準備等、出力に関係しない場合はnull）
+     * @param message メッセージ
+     */
+    default void message(String output, String message) {
+    }
+}
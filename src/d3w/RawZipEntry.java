@@ -0,0 +1,250 @@
+package d3w;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * ZIPに格納された状態（圧縮済み）のエントリを保持するクラス
+ * <p>
+ * 圧縮済みのバイト列、CRC、圧縮前後のサイズをそのまま保持するため、
+ * 解凍・再圧縮を行わずに別のZIPへ書き写すことができる。
+ * <p>
+ * 圧縮済みのデータは、メモリマップしたZIPファイルの一部をそのまま参照することもできる。
+ * その場合、データは解凍時または書き写し時に初めて読み込まれる。
+ */
+public class RawZipEntry {
+
+    /** 無圧縮 */
+    public static final int STORED = 0;
+    /** DEFLATE圧縮 */
+    public static final int DEFLATED = 8;
+
+    private final String name;
+    private final int method;
+    private final int dosTime;
+    private final long crc;
+    private final long size;
+    /** 圧縮済みのデータ（position～limitの範囲。共有するため参照時は必ずduplicateする） */
+    private final ByteBuffer compressedData;
+
+    /**
+     * @param name           エントリ名
+     * @param method         圧縮方式（STORED または DEFLATED）
+     * @param dosTime        更新日時（MS-DOS形式、上位16bitが日付、下位16bitが時刻）
+     * @param crc            圧縮前データのCRC-32
+     * @param size           圧縮前のサイズ
+     * @param compressedData 圧縮済みのデータ
+     */
+    public RawZipEntry(String name, int method, int dosTime, long crc, long size, byte[] compressedData) {
+        this(name, method, dosTime, crc, size, ByteBuffer.wrap(compressedData));
+    }
+
+    /**
+     * @param name           エントリ名
+     * @param method         圧縮方式（STORED または DEFLATED）
+     * @param dosTime        更新日時（MS-DOS形式、上位16bitが日付、下位16bitが時刻）
+     * @param crc            圧縮前データのCRC-32
+     * @param size           圧縮前のサイズ
+     * @param compressedData 圧縮済みのデータ（position～limitの範囲。メモリマップしたバッファの一部でもよい）
+     */
+    public RawZipEntry(String name, int method, int dosTime, long crc, long size, ByteBuffer compressedData) {
+        this.name = name;
+        this.method = method;
+        this.dosTime = dosTime;
+        this.crc = crc;
+        this.size = size;
+        this.compressedData = compressedData.slice();
+    }
+
+    /**
+     * データをDEFLATE圧縮してエントリを生成する
+     *
+     * @param name    エントリ名
+     * @param content 圧縮前のデータ
+     * @return 圧縮済みのエントリ
+     */
+    public static RawZipEntry deflate(String name, byte[] content) {
+        return deflate(name, content, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * データを指定レベルでDEFLATE圧縮してエントリを生成する
+     *
+     * @param name    エントリ名
+     * @param content 圧縮前のデータ
+     * @param level   圧縮レベル（Deflater.BEST_SPEED～BEST_COMPRESSION、DEFAULT_COMPRESSION）
+     * @return 圧縮済みのエントリ
+     */
+    public static RawZipEntry deflate(String name, byte[] content, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+
+            byte[] buffer = new byte[Math.max(64, content.length / 2 + 64)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return new RawZipEntry(name, DEFLATED, currentDosTime(), crc32(content), content.length,
+                    Arrays.copyOf(buffer, length));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * データを無圧縮で格納するエントリを生成する
+     *
+     * @param name    エントリ名
+     * @param content データ
+     * @return 無圧縮のエントリ
+     */
+    public static RawZipEntry store(String name, byte[] content) {
+        return new RawZipEntry(name, STORED, currentDosTime(), crc32(content), content.length, content);
+    }
+
+    /**
+     * 圧縮済みのデータを共有し、エントリ名だけを変更したエントリを生成する
+     * （CRC・サイズは名前に依存しないため、解凍・再圧縮せずに名前を変更できる）
+     *
+     * @param newName 新しいエントリ名
+     * @return 名前を変更したエントリ
+     */
+    public RawZipEntry withName(String newName) {
+        return new RawZipEntry(newName, method, dosTime, crc, size, compressedData);
+    }
+
+    /**
+     * 圧縮済みのデータを解凍する
+     * 解凍後のサイズとCRCがエントリの値と一致することを検証する
+     *
+     * @return 解凍したデータ
+     * @throws IOException 解凍に失敗した場合、またはサイズ・CRCが一致しない場合
+     */
+    public byte[] inflate() throws IOException {
+        byte[] content;
+        if (method == STORED) {
+            content = getCompressedData();
+        } else if (method == DEFLATED) {
+            content = new byte[(int) size];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(getCompressedData());
+                int length = 0;
+                while (length < content.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(content, length, content.length - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != content.length) {
+                    throw new ZipException("解凍後のサイズが一致しません: " + name);
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("解凍に失敗しました: " + name + " - " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        } else {
+            throw new ZipException("未対応の圧縮方式です: " + name + " (method=" + method + ")");
+        }
+
+        if (crc32(content) != crc) {
+            throw new ZipException("CRCが一致しません: " + name);
+        }
+        return content;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMethod() {
+        return method;
+    }
+
+    public int getDosTime() {
+        return dosTime;
+    }
+
+    public long getCrc() {
+        return crc;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getCompressedSize() {
+        return compressedData.remaining();
+    }
+
+    /**
+     * 圧縮済みのデータを取得する
+     * ヒープ上の配列をそのまま保持している場合はコピーせずに返すため変更しないこと
+     */
+    public byte[] getCompressedData() {
+        ByteBuffer data = compressedData.duplicate();
+        if (data.hasArray() && data.arrayOffset() == 0 && data.array().length == data.remaining()) {
+            return data.array();
+        }
+        byte[] copy = new byte[data.remaining()];
+        data.get(copy);
+        return copy;
+    }
+
+    /**
+     * 圧縮済みのデータを書き込む（メモリマップしたデータは全体をヒープにコピーせずに書き込む）
+     *
+     * @param out 書き込み先
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void writeCompressedData(OutputStream out) throws IOException {
+        ByteBuffer data = compressedData.duplicate();
+        if (data.hasArray()) {
+            out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            return;
+        }
+        byte[] buffer = new byte[Math.min(data.remaining(), 64 * 1024)];
+        while (data.hasRemaining()) {
+            int length = Math.min(buffer.length, data.remaining());
+            data.get(buffer, 0, length);
+            out.write(buffer, 0, length);
+        }
+    }
+
+    private static long crc32(byte[] content) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(content, 0, content.length);
+        return crc32.getValue();
+    }
+
+    /**
+     * 現在日時をMS-DOS形式に変換する
+     */
+    private static int currentDosTime() {
+        LocalDateTime now = LocalDateTime.now();
+        if (now.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((now.getYear() - 1980) << 25)
+                | (now.getMonthValue() << 21)
+                | (now.getDayOfMonth() << 16)
+                | (now.getHour() << 11)
+                | (now.getMinute() << 5)
+                | (now.getSecond() >> 1);
+    }
+}
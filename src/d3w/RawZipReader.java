@@ -0,0 +1,210 @@
+package d3w;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * ZIPのセントラルディレクトリを解析し、各エントリを圧縮済みのまま取り出すクラス
+ * <p>
+ * エントリの解凍は行わない。取り出したRawZipEntryは、RawZipWriterで
+ * 解凍・再圧縮せずに別のZIPへ書き写すことができる。
+ * ZIP64形式の終端レコード・拡張フィールド（エントリ数が65,535を超える場合等）にも対応する。
+ * ただし、バッファで扱えるのは2GBまでで、暗号化されたエントリには対応しない。
+ */
+public class RawZipReader {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+    /** ZIP64拡張フィールドのID */
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+
+    /** 汎用フラグ: 暗号化 */
+    private static final int FLAG_ENCRYPTED = 0x0001;
+
+    /**
+     * ZIPのバイト列から全エントリを圧縮済みのまま読み込む
+     * ディレクトリエントリは除外する
+     *
+     * @param zipContent ZIPファイルの内容
+     * @return エントリのリスト（セントラルディレクトリの順序）
+     * @throws ZipException ZIPの形式が不正な場合、または未対応の形式の場合
+     */
+    public static List<RawZipEntry> read(byte[] zipContent) throws ZipException {
+        return read(ByteBuffer.wrap(zipContent));
+    }
+
+    /**
+     * ZIPの内容を保持するバッファから全エントリを圧縮済みのまま読み込む
+     * 各エントリの圧縮済みのデータはコピーせず、バッファの一部として参照する
+     * （メモリマップしたバッファの場合、データは解凍時または書き写し時に初めて読み込まれる）
+     * ディレクトリエントリは除外する
+     *
+     * @param zipContent ZIPファイルの内容（先頭から末尾まで）
+     * @return エントリのリスト（セントラルディレクトリの順序）
+     * @throws ZipException ZIPの形式が不正な場合、または未対応の形式の場合
+     */
+    public static List<RawZipEntry> read(ByteBuffer zipContent) throws ZipException {
+        ByteBuffer buffer = zipContent.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        // 1. 終端レコード（End of Central Directory）を末尾から探す
+        int eocdOffset = findEndOfCentralDirectory(buffer);
+        long entryCount = buffer.getShort(eocdOffset + 10) & 0xFFFF;
+        long centralDirectoryOffset = buffer.getInt(eocdOffset + 16) & 0xFFFFFFFFL;
+        if (entryCount == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL) {
+            // ZIP64の場合は、ロケータが示すZIP64の終端レコードからエントリ数と位置を読み込む
+            int locatorOffset = eocdOffset - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE;
+            if (locatorOffset < 0
+                    || buffer.getInt(locatorOffset) != ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+                throw new ZipException("ZIP64の終端レコードが見つかりません");
+            }
+            int zip64Offset = toOffset(buffer.getLong(locatorOffset + 8), buffer);
+            if (buffer.getInt(zip64Offset) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                throw new ZipException("ZIP64の終端レコードが不正です");
+            }
+            entryCount = buffer.getLong(zip64Offset + 32);
+            centralDirectoryOffset = buffer.getLong(zip64Offset + 48);
+        }
+        if (entryCount > Integer.MAX_VALUE) {
+            throw new ZipException("エントリ数が多すぎます: " + entryCount);
+        }
+
+        // 2. セントラルディレクトリの各レコードを読み込む
+        List<RawZipEntry> entries = new ArrayList<>((int) entryCount);
+        int offset = toOffset(centralDirectoryOffset, buffer);
+        for (long i = 0; i < entryCount; i++) {
+            if (offset + CENTRAL_HEADER_SIZE > eocdOffset || buffer.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("セントラルディレクトリが不正です");
+            }
+            int flags = buffer.getShort(offset + 8) & 0xFFFF;
+            int method = buffer.getShort(offset + 10) & 0xFFFF;
+            int dosTime = buffer.getInt(offset + 12);
+            long crc = buffer.getInt(offset + 16) & 0xFFFFFFFFL;
+            long compressedSize = buffer.getInt(offset + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(offset + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(offset + 32) & 0xFFFF;
+            long localHeaderOffset = buffer.getInt(offset + 42) & 0xFFFFFFFFL;
+            if (offset + CENTRAL_HEADER_SIZE + nameLength > eocdOffset) {
+                throw new ZipException("セントラルディレクトリが不正です");
+            }
+            String name = readName(buffer, offset + CENTRAL_HEADER_SIZE, nameLength);
+
+            if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                // ZIP64拡張フィールドには、0xFFFFFFFFとした項目だけがこの順序で格納される
+                int extra = findExtra(buffer, offset + CENTRAL_HEADER_SIZE + nameLength, extraLength, name);
+                if (size == 0xFFFFFFFFL) {
+                    size = buffer.getLong(extra);
+                    extra += 8;
+                }
+                if (compressedSize == 0xFFFFFFFFL) {
+                    compressedSize = buffer.getLong(extra);
+                    extra += 8;
+                }
+                if (localHeaderOffset == 0xFFFFFFFFL) {
+                    localHeaderOffset = buffer.getLong(extra);
+                }
+            }
+            if ((flags & FLAG_ENCRYPTED) != 0) {
+                throw new ZipException("暗号化されたエントリには対応していません: " + name);
+            }
+
+            if (!name.endsWith("/")) {
+                ByteBuffer compressedData = readCompressedData(buffer, toOffset(localHeaderOffset, buffer),
+                        toOffset(compressedSize, buffer), name);
+                entries.add(new RawZipEntry(name, method, dosTime, crc, size, compressedData));
+            }
+
+            offset += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return entries;
+    }
+
+    /**
+     * 終端レコードの位置を探す（末尾のコメントを考慮して後ろから走査する）
+     */
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+        int minOffset = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - 0xFFFF);
+        for (int offset = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; offset >= minOffset; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return offset;
+            }
+        }
+        throw new ZipException("ZIPファイルではありません（終端レコードが見つかりません）");
+    }
+
+    /**
+     * 拡張フィールドからZIP64拡張フィールドを探し、データの開始位置を返す
+     */
+    private static int findExtra(ByteBuffer buffer, int extraOffset, int extraLength, String name)
+            throws ZipException {
+        int offset = extraOffset;
+        int end = extraOffset + extraLength;
+        while (offset + 4 <= end) {
+            int id = buffer.getShort(offset) & 0xFFFF;
+            int size = buffer.getShort(offset + 2) & 0xFFFF;
+            if (id == ZIP64_EXTRA_ID) {
+                return offset + 4;
+            }
+            offset += 4 + size;
+        }
+        throw new ZipException("ZIP64拡張フィールドが見つかりません: " + name);
+    }
+
+    /**
+     * バッファ内の位置・サイズに変換する（バッファに収まらない値の場合は例外）
+     */
+    private static int toOffset(long value, ByteBuffer buffer) throws ZipException {
+        if (value < 0 || value > buffer.limit()) {
+            throw new ZipException("ZIPファイルが不正か、2GBを超えています（位置: " + value + "）");
+        }
+        return (int) value;
+    }
+
+    /**
+     * ローカルファイルヘッダを読み飛ばし、圧縮済みのデータの範囲を取り出す（コピーは行わない）
+     */
+    private static ByteBuffer readCompressedData(ByteBuffer buffer, int localHeaderOffset,
+                                                 int compressedSize, String name) throws ZipException {
+        if (localHeaderOffset + LOCAL_HEADER_SIZE > buffer.limit()
+                || buffer.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("ローカルファイルヘッダが不正です: " + name);
+        }
+        int nameLength = buffer.getShort(localHeaderOffset + 26) & 0xFFFF;
+        int extraLength = buffer.getShort(localHeaderOffset + 28) & 0xFFFF;
+        int dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+        if (dataOffset + compressedSize > buffer.limit()) {
+            throw new ZipException("エントリのデータが不正です: " + name);
+        }
+
+        ByteBuffer compressedData = buffer.duplicate();
+        compressedData.position(dataOffset);
+        compressedData.limit(dataOffset + compressedSize);
+        return compressedData;
+    }
+
+    /**
+     * エントリ名を読み込む
+     * UTF-8フラグの有無に関わらずUTF-8として扱う（ZipInputStreamのデフォルトと同じ挙動）
+     */
+    private static String readName(ByteBuffer buffer, int offset, int length) {
+        byte[] name = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package d3w;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipException;
+
+/**
+ * 圧縮済みのエントリ（RawZipEntry）をそのままZIPに書き込むクラス
+ * <p>
+ * 圧縮済みのデータ、CRC、サイズをローカルファイルヘッダとセントラルディレクトリに
+ * そのまま書き込むため、解凍・再圧縮は行わない。
+ * サイズとCRCは事前に確定しているため、データディスクリプタは使用しない。
+ * <p>
+ * エントリ数が65,535を超える場合と、4GBを超える位置にエントリを書き込む場合は、
+ * ZIP64形式の終端レコード・拡張フィールドを書き込む（1エントリのサイズは4GB未満に限る）。
+ * 書き込んだエントリの内容は保持せず、セントラルディレクトリのレコード（1エントリ数十バイト）だけを保持する。
+ */
+public class RawZipWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+    /** ZIP64拡張フィールドのID */
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    /** 展開に必要なバージョン（2.0: DEFLATE） */
+    private static final int VERSION = 20;
+    /** 展開に必要なバージョン（4.5: ZIP64） */
+    private static final int VERSION_ZIP64 = 45;
+    /** 汎用フラグ: エントリ名がUTF-8 */
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private final Set<String> names = new HashSet<>();
+    private long offset;
+    private int entryCount;
+    private boolean closed;
+
+    /**
+     * @param out 書き込み先（closeで閉じられる）
+     */
+    public RawZipWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+    }
+
+    /**
+     * 圧縮済みのエントリをそのまま書き込む
+     *
+     * @param entry 圧縮済みのエントリ
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void write(RawZipEntry entry) throws IOException {
+        if (!names.add(entry.getName())) {
+            throw new ZipException("エントリ名が重複しています: " + entry.getName());
+        }
+        if (entry.getSize() > 0xFFFFFFFEL || entry.getCompressedSize() > 0xFFFFFFFEL) {
+            throw new ZipException("4GB以上のエントリには対応していません: " + entry.getName());
+        }
+        // 4GBを超える位置のエントリは、セントラルディレクトリのZIP64拡張フィールドに位置を記録する
+        boolean zip64Offset = offset > 0xFFFFFFFEL;
+
+        byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+        int flags = isAscii(name) ? 0 : FLAG_UTF8;
+
+        // ローカルファイルヘッダ
+        writeInt(out, LOCAL_HEADER_SIGNATURE);
+        writeShort(out, VERSION);
+        writeShort(out, flags);
+        writeShort(out, entry.getMethod());
+        writeInt(out, entry.getDosTime());
+        writeInt(out, (int) entry.getCrc());
+        writeInt(out, (int) entry.getCompressedSize());
+        writeInt(out, (int) entry.getSize());
+        writeShort(out, name.length);
+        writeShort(out, 0);
+        out.write(name);
+
+        // 圧縮済みのデータ
+        entry.writeCompressedData(out);
+
+        // セントラルディレクトリのレコード（closeでまとめて書き込む）
+        writeInt(centralDirectory, CENTRAL_HEADER_SIGNATURE);
+        writeShort(centralDirectory, zip64Offset ? VERSION_ZIP64 : VERSION);
+        writeShort(centralDirectory, zip64Offset ? VERSION_ZIP64 : VERSION);
+        writeShort(centralDirectory, flags);
+        writeShort(centralDirectory, entry.getMethod());
+        writeInt(centralDirectory, entry.getDosTime());
+        writeInt(centralDirectory, (int) entry.getCrc());
+        writeInt(centralDirectory, (int) entry.getCompressedSize());
+        writeInt(centralDirectory, (int) entry.getSize());
+        writeShort(centralDirectory, name.length);
+        writeShort(centralDirectory, zip64Offset ? 12 : 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeInt(centralDirectory, 0);
+        writeInt(centralDirectory, zip64Offset ? 0xFFFFFFFF : (int) offset);
+        centralDirectory.write(name);
+        if (zip64Offset) {
+            writeShort(centralDirectory, ZIP64_EXTRA_ID);
+            writeShort(centralDirectory, 8);
+            writeLong(centralDirectory, offset);
+        }
+
+        offset += 30 + name.length + entry.getCompressedSize();
+        entryCount++;
+    }
+
+    /**
+     * セントラルディレクトリと終端レコードを書き込んで閉じる
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            long centralDirectoryOffset = offset;
+            long centralDirectorySize = centralDirectory.size();
+            centralDirectory.writeTo(out);
+
+            boolean zip64 = entryCount > 0xFFFE || centralDirectoryOffset > 0xFFFFFFFEL;
+            if (zip64) {
+                // ZIP64の終端レコードとその位置（ロケータ）
+                long zip64Offset = centralDirectoryOffset + centralDirectorySize;
+                writeInt(out, ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+                writeLong(out, 44);
+                writeShort(out, VERSION_ZIP64);
+                writeShort(out, VERSION_ZIP64);
+                writeInt(out, 0);
+                writeInt(out, 0);
+                writeLong(out, entryCount);
+                writeLong(out, entryCount);
+                writeLong(out, centralDirectorySize);
+                writeLong(out, centralDirectoryOffset);
+
+                writeInt(out, ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+                writeInt(out, 0);
+                writeLong(out, zip64Offset);
+                writeInt(out, 1);
+            }
+
+            // 終端レコード（End of Central Directory。ZIP64の場合、収まらない値は0xFFFF...にする）
+            writeInt(out, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, zip64 ? 0xFFFF : entryCount);
+            writeShort(out, zip64 ? 0xFFFF : entryCount);
+            writeInt(out, (int) centralDirectorySize);
+            writeInt(out, zip64 ? 0xFFFFFFFF : (int) centralDirectoryOffset);
+            writeShort(out, 0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static boolean isAscii(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        out.write((value >>> 16) & 0xFF);
+        out.write((value >>> 24) & 0xFF);
+    }
+
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        writeInt(out, (int) value);
+        writeInt(out, (int) (value >>> 32));
+    }
+}
@@ -0,0 +1,140 @@
+package d3w;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 読み込み・検証済みの雛型（PreparedTemplate）のキャッシュ
+ * <p>
+ * キーは雛型.d3wファイルの内容のSHA-256のため、パスが異なっても内容が同じなら共有し、
+ * 同じパスでも内容が変わればキャッシュを使用しない。
+ * 内容を共有した場合も、返す雛型のパスは呼び出し元が指定したパスとする（最初に読み込んだパスではない）。
+ * 保持数の上限を超えた場合は、最も長く使用されていない雛型から破棄する（LRU）。
+ * 同じ雛型を複数スレッドが同時に要求した場合、読み込み・検証は1回だけ行う。
+ */
+public class TemplateCache {
+
+    private final int capacity;
+    private final ProgressListener listener;
+    private final Map<String, FutureTask<PreparedTemplate>> templates;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity 保持する雛型の最大数（1以上）
+     */
+    public TemplateCache(int capacity) {
+        this(capacity, ProgressListener.SILENT);
+    }
+
+    /**
+     * @param capacity 保持する雛型の最大数（1以上）
+     * @param listener 雛型の読み込み・検証の進捗を通知するリスナー
+     */
+    public TemplateCache(int capacity, ProgressListener listener) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("キャッシュの保持数は1以上で指定してください: " + capacity);
+        }
+        this.capacity = capacity;
+        this.listener = listener;
+        this.templates = new LinkedHashMap<String, FutureTask<PreparedTemplate>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<PreparedTemplate>> eldest) {
+                if (size() > TemplateCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 雛型を取得する（キャッシュにない場合は読み込んで検証する）
+     *
+     * @param templateD3wPath 雛型.d3wファイルのパス
+     * @return 読み込み・検証済みの雛型（getPathは templateD3wPath を返す）
+     * @throws Exception 読み込みに失敗した場合、または雛型が不正な場合
+     */
+    public PreparedTemplate get(String templateD3wPath) throws Exception {
+        // 長期間保持するため、メモリマップせずにヒープへ読み込む
+        // （保持中に雛型ファイルが上書きされても、キャッシュした内容が変わらないように）
+        byte[] bytes = Files.readAllBytes(Paths.get(templateD3wPath));
+        ByteBuffer content = ByteBuffer.wrap(bytes);
+        String key = ContentHash.sha256(bytes);
+
+        FutureTask<PreparedTemplate> task;
+        boolean owner = false;
+        synchronized (this) {
+            task = templates.get(key);
+            if (task != null) {
+                hits++;
+            } else {
+                misses++;
+                task = new FutureTask<>(() ->
+                        D3wProcessor.prepareTemplate(templateD3wPath, D3wArchive.read(content), listener));
+                templates.put(key, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            task.run();
+        }
+        try {
+            return task.get().withPath(templateD3wPath);
+        } catch (ExecutionException e) {
+            // 失敗した雛型はキャッシュに残さない（修正後に再度読み込めるように）
+            synchronized (this) {
+                templates.remove(key, task);
+            }
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * キャッシュしている雛型をすべて破棄する（統計は保持する）
+     */
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    /**
+     * キャッシュしている雛型の数
+     */
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * キャッシュから取得できた回数
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * キャッシュになく読み込んだ回数
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 保持数の上限を超えて破棄した回数
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
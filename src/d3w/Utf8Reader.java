@@ -0,0 +1,156 @@
+package d3w;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * InputStreamのUTF-8をデコードしながら読み込むReader
+ * <p>
+ * 内容全体をbyte[]やStringに展開せず、バッファ1つ分ずつデコードする。
+ * デコーダーとバイト・文字のバッファはスレッドごとに再利用し、close時に返却する
+ * （同じスレッドで入れ子に使用した場合、2つ目以降は新規に確保する）。
+ * 不正なバイト列は new String(bytes, UTF_8) と同様に置換文字に置き換える。
+ * <p>
+ * close しても元のInputStreamは閉じない（ZIPのエントリのストリーム等を続けて読めるようにするため）。
+ */
+public class Utf8Reader extends Reader {
+
+    /** バッファのサイズ */
+    static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<Buffers> POOL = ThreadLocal.withInitial(Buffers::new);
+
+    private final InputStream in;
+    private Buffers buffers;
+    /** 元のストリームの終端に達したか */
+    private boolean endOfInput;
+    /** デコーダーの出力をすべて取り出したか */
+    private boolean finished;
+
+    /**
+     * @param in 読み込むストリーム（閉じない）
+     */
+    public Utf8Reader(InputStream in) {
+        this.in = in;
+        this.buffers = Buffers.acquire();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        CharBuffer chars = buffers.chars;
+        while (!chars.hasRemaining()) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, chars.remaining());
+        chars.get(cbuf, off, n);
+        return n;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        CharBuffer chars = buffers.chars;
+        while (!chars.hasRemaining()) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        return chars.get();
+    }
+
+    /**
+     * 読み込み済みのバイトをデコードして文字のバッファを補充する
+     * デコードできる文字がない場合は、元のストリームから読み足す
+     */
+    private void fill() throws IOException {
+        ByteBuffer bytes = buffers.bytes;
+        CharBuffer chars = buffers.chars;
+        CharsetDecoder decoder = buffers.decoder;
+        chars.clear();
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (endOfInput) {
+                if (decoder.flush(chars).isUnderflow()) {
+                    finished = true;
+                }
+                break;
+            }
+            if (chars.position() > 0) {
+                break;
+            }
+            bytes.compact();
+            int read = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                bytes.position(bytes.position() + read);
+            }
+            bytes.flip();
+        }
+        chars.flip();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffers == null) {
+            throw new IOException("Readerは既に閉じられています");
+        }
+    }
+
+    /**
+     * バッファを返却する（元のストリームは閉じない）
+     */
+    @Override
+    public void close() {
+        if (buffers != null) {
+            buffers.release();
+            buffers = null;
+        }
+    }
+
+    /**
+     * スレッドごとに再利用するデコーダーとバッファ
+     */
+    private static class Buffers {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        private boolean inUse;
+
+        static Buffers acquire() {
+            Buffers buffers = POOL.get();
+            if (buffers.inUse) {
+                buffers = new Buffers();
+            }
+            buffers.inUse = true;
+            buffers.decoder.reset();
+            // どちらも読み出し側（空）の状態にしておく
+            buffers.bytes.clear().flip();
+            buffers.chars.clear().flip();
+            return buffers;
+        }
+
+        void release() {
+            inUse = false;
+        }
+    }
+}
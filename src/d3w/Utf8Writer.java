@@ -0,0 +1,175 @@
+package d3w;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 文字をUTF-8にエンコードしながらOutputStreamへ書き込むWriter
+ * <p>
+ * 出力全体をStringやbyte[]に展開せず、バッファ1つ分ずつエンコードして書き込む。
+ * エンコーダーと文字・バイトのバッファはスレッドごとに再利用し、close時に返却する
+ * （同じスレッドで入れ子に使用した場合、2つ目以降は新規に確保する）。
+ * 対になっていないサロゲートは String#getBytes(UTF_8) と同様に ? に置き換える。
+ * <p>
+ * close すると残りを書き込んで元のストリームをflushするが、元のストリームは閉じない。
+ */
+public class Utf8Writer extends Writer {
+
+    private static final ThreadLocal<Buffers> POOL = ThreadLocal.withInitial(Buffers::new);
+
+    private final OutputStream out;
+    private Buffers buffers;
+
+    /**
+     * @param out 書き込み先（閉じない）
+     */
+    public Utf8Writer(OutputStream out) {
+        this.out = out;
+        this.buffers = Buffers.acquire();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        CharBuffer chars = buffers.chars;
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        CharBuffer chars = buffers.chars;
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.remaining());
+            str.getChars(off, off + n, chars.array(), chars.arrayOffset() + chars.position());
+            chars.position(chars.position() + n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (!buffers.chars.hasRemaining()) {
+            encode(false);
+        }
+        buffers.chars.put((char) c);
+    }
+
+    /**
+     * 溜まっている文字をエンコードして書き込み、元のストリームをflushする
+     * サロゲートペアの前半だけが残っている場合は、後半が書き込まれるまで保持する
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        out.flush();
+    }
+
+    /**
+     * 残りを書き込んでバッファを返却する（元のストリームはflushするが閉じない）
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffers == null) {
+            return;
+        }
+        try {
+            encode(true);
+            ByteBuffer bytes = buffers.bytes;
+            while (buffers.encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+            out.flush();
+        } finally {
+            buffers.release();
+            buffers = null;
+        }
+    }
+
+    /**
+     * 文字のバッファをエンコードし、バイトのバッファが一杯になるごとに書き込む
+     *
+     * @param endOfInput 最後のエンコードか（途中で切れたサロゲートを ? にする）
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        CharBuffer chars = buffers.chars;
+        chars.flip();
+        while (true) {
+            CoderResult result = buffers.encoder.encode(chars, buffers.bytes, endOfInput);
+            if (!result.isOverflow()) {
+                break;
+            }
+            drain();
+        }
+        drain();
+        chars.compact();
+    }
+
+    /**
+     * バイトのバッファの内容を元のストリームへ書き込む
+     */
+    private void drain() throws IOException {
+        ByteBuffer bytes = buffers.bytes;
+        if (bytes.position() > 0) {
+            out.write(bytes.array(), bytes.arrayOffset(), bytes.position());
+            bytes.clear();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffers == null) {
+            throw new IOException("Writerは既に閉じられています");
+        }
+    }
+
+    /**
+     * スレッドごとに再利用するエンコーダーとバッファ
+     */
+    private static class Buffers {
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer chars = CharBuffer.allocate(Utf8Reader.BUFFER_SIZE);
+        // 1文字あたり最大3バイト（サロゲートペアは2文字で4バイト）
+        private final ByteBuffer bytes = ByteBuffer.allocate(Utf8Reader.BUFFER_SIZE * 3);
+        private boolean inUse;
+
+        static Buffers acquire() {
+            Buffers buffers = POOL.get();
+            if (buffers.inUse) {
+                buffers = new Buffers();
+            }
+            buffers.inUse = true;
+            buffers.encoder.reset();
+            buffers.chars.clear();
+            buffers.bytes.clear();
+            return buffers;
+        }
+
+        void release() {
+            inUse = false;
+        }
+    }
+}
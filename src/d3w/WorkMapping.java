@@ -0,0 +1,475 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import d3w.model.YamlInfo;
+import org.yaml.snakeyaml.LoaderOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * YAMLの項目をワーク（wN）のJSONに反映するための対応表
+ * <p>
+ * 対応表（YAMLのキー → JSONのパス + 変換方法）は work-mapping.yml に記述し、
+ * 読み込み時に1回だけ、JSONのパスを階層ごとにまとめた木（アクセサの連鎖）にコンパイルする。
+ * YAMLの値の取得方法（YamlInfoのgetter、またはYamlInfo#getValuesの検索）もコンパイル時に決めておき、
+ * ワークごとの処理では、パスの分割、親の階層の検索、キーによる分岐を繰り返さず、木を1回辿るだけで全項目を反映する。
+ * 反映する項目を追加する場合は、work-mapping.yml に行を追加するだけでよい（YamlInfoに項目がなくても、
+ * YAMLから読み込んだ項目を YamlInfo#getValues から参照する。ワークの生成でYAMLを読み込む場合、
+ * YamlInfoLoaderは標準の対応表が参照する項目（getValueKeys）のみ保持する）。
+ * <p>
+ * JsonObjectへの反映（apply）と、WorkTransformerによるストリーミングでの反映は同じ木を使用し、同じ結果になる。
+ * コンパイル済みの対応表は変更しないため、複数スレッドから同時に使用できる。
+ */
+public class WorkMapping {
+
+    /** クラスパス上の標準の対応表 */
+    static final String DEFAULT_RESOURCE = "work-mapping.yml";
+
+    /** YamlInfoのフィールドに対応するYAMLのキーと、その値の取得方法 */
+    private static final Map<String, Function<YamlInfo, Object>> FIELD_ACCESSORS = new HashMap<>();
+
+    static {
+        FIELD_ACCESSORS.put("workName", YamlInfo::getWorkName);
+        FIELD_ACCESSORS.put("memoText", YamlInfo::getMemoText);
+        FIELD_ACCESSORS.put("subject", YamlInfo::getSubject);
+        FIELD_ACCESSORS.put("documentName", YamlInfo::getDocumentName);
+        FIELD_ACCESSORS.put("templateName", YamlInfo::getTemplateName);
+        FIELD_ACCESSORS.put("textDatasetFields", YamlInfo::getTextDatasetFields);
+        FIELD_ACCESSORS.put("datasourceFields", YamlInfo::getDatasourceFields);
+    }
+
+    private final List<Rule> rules;
+    /** YamlInfoのフィールド以外に、YamlInfo#getValuesから参照するYAMLのキー */
+    private final Set<String> valueKeys;
+    private final Node root;
+    /** JsonObjectへの反映手順（木を深さ優先で辿る順に並べた、階層の移動と反映の命令列） */
+    private final Step[] steps;
+    private final int maxDepth;
+
+    private WorkMapping(List<Rule> rules, Node root) {
+        this.rules = rules;
+        Set<String> valueKeys = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            if (!FIELD_ACCESSORS.containsKey(rule.getYamlKey())) {
+                valueKeys.add(rule.getYamlKey());
+            }
+        }
+        this.valueKeys = Collections.unmodifiableSet(valueKeys);
+        this.root = root;
+        List<Step> steps = new ArrayList<>();
+        this.maxDepth = addSteps(root, steps, 0);
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    /**
+     * 木の節から反映手順を生成する
+     *
+     * @return 節以下の最大の深さ
+     */
+    private static int addSteps(Node node, List<Step> steps, int depth) {
+        int maxDepth = depth;
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            Node childNode = child.getValue();
+            if (childNode.rule != null) {
+                steps.add(new Step(Step.SET, child.getKey().intern(), childNode.rule));
+            } else {
+                steps.add(new Step(Step.ENTER, child.getKey().intern(), null));
+                maxDepth = Math.max(maxDepth, addSteps(childNode, steps, depth + 1));
+                steps.add(new Step(Step.EXIT, null, null));
+            }
+        }
+        return maxDepth;
+    }
+
+    /**
+     * 標準の対応表（クラスパス上の work-mapping.yml）を取得する
+     */
+    public static WorkMapping getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 対応表のファイルを読み込んでコンパイルする
+     *
+     * @param mappingFile 対応表（YAML）のパス
+     * @return コンパイル済みの対応表
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public static WorkMapping load(Path mappingFile) throws IOException {
+        try (InputStream in = Files.newInputStream(mappingFile)) {
+            return load(in);
+        }
+    }
+
+    /**
+     * 対応表（YAML）を読み込んでコンパイルする
+     *
+     * @param in 対応表の内容（閉じない）
+     * @return コンパイル済みの対応表
+     * @throws IllegalArgumentException 対応表の形式が不正な場合
+     */
+    @SuppressWarnings("unchecked")
+    public static WorkMapping load(InputStream in) {
+        Object data = YamlInfoLoader.newSafeYaml(new LoaderOptions()).load(in);
+        if (!(data instanceof Map) || !(((Map<String, Object>) data).get("mappings") instanceof List)) {
+            throw new IllegalArgumentException("対応表にmappingsが指定されていません");
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        for (Object item : (List<Object>) ((Map<String, Object>) data).get("mappings")) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("対応表の項目が不正です: " + item);
+            }
+            Map<String, Object> mapping = (Map<String, Object>) item;
+            Object yamlKey = mapping.get("yaml");
+            Object path = mapping.get("path");
+            Object transform = mapping.get("transform");
+            if (!(yamlKey instanceof String) || !(path instanceof String)) {
+                throw new IllegalArgumentException("対応表の項目にyamlまたはpathが指定されていません: " + item);
+            }
+            rules.add(new Rule((String) yamlKey, (String) path,
+                    transform != null ? Transform.fromName(transform.toString()) : Transform.STRING));
+        }
+        return compile(rules);
+    }
+
+    /**
+     * 対応表をコンパイルする（JSONのパスを階層ごとにまとめた木を作成する）
+     *
+     * @param rules 対応表の各項目（途中の階層を追加する順序もこの順序に従う）
+     * @return コンパイル済みの対応表
+     * @throws IllegalArgumentException パスが不正な場合、または同じパス・親子関係にあるパスが重複している場合
+     */
+    public static WorkMapping compile(List<Rule> rules) {
+        Node root = new Node();
+        for (Rule rule : rules) {
+            Node node = root;
+            String[] segments = rule.getPath().split("\\.", -1);
+            for (String segment : segments) {
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("JSONのパスが不正です: " + rule.getPath());
+                }
+                if (node.rule != null) {
+                    throw new IllegalArgumentException("反映先のパスの下に別の反映先があります: " + rule.getPath());
+                }
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            if (node.rule != null || !node.children.isEmpty()) {
+                throw new IllegalArgumentException("反映先のパスが重複しています: " + rule.getPath());
+            }
+            node.rule = rule;
+        }
+        return new WorkMapping(Collections.unmodifiableList(new ArrayList<>(rules)), root);
+    }
+
+    /**
+     * YamlInfoの内容をJsonObjectに反映する
+     * 途中の階層が存在しない（またはオブジェクトでない）場合は、反映する値の有無に関わらず作成する
+     *
+     * @param work     編集対象のJsonObject（直接編集される）
+     * @param yamlInfo 反映するYamlInfo
+     * @return 編集したJsonObject（workと同じ）
+     */
+    public JsonObject apply(JsonObject work, YamlInfo yamlInfo) {
+        // 再帰せず、親の階層をスタックに積みながら反映手順を順に実行する
+        JsonObject[] parents = new JsonObject[maxDepth];
+        int depth = 0;
+        JsonObject current = work;
+        for (Step step : steps) {
+            switch (step.type) {
+                case Step.ENTER:
+                    parents[depth++] = current;
+                    current = getOrCreateObject(current, step.key);
+                    break;
+                case Step.EXIT:
+                    current = parents[--depth];
+                    break;
+                default:
+                    Rule rule = step.rule;
+                    Object value = rule.getValue(yamlInfo);
+                    if (value != null) {
+                        Transform transform = rule.transform;
+                        current.add(step.key, transform.apply(value,
+                                transform.usesFirstElement() ? current.get(step.key) : null));
+                    }
+                    break;
+            }
+        }
+        return work;
+    }
+
+    private static JsonObject getOrCreateObject(JsonObject parent, String key) {
+        JsonElement child = parent.get(key);
+        if (child != null && child.isJsonObject()) {
+            return child.getAsJsonObject();
+        }
+        JsonObject newObject = new JsonObject();
+        parent.add(key, newObject);
+        return newObject;
+    }
+
+    /**
+     * 対応表の各項目を取得する
+     */
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * YamlInfoのフィールド以外に、YamlInfo#getValuesから参照するYAMLのキーを取得する（対応表の順序）
+     */
+    public Set<String> getValueKeys() {
+        return valueKeys;
+    }
+
+    /**
+     * コンパイル済みの木の根（ワークのルート階層）を取得する
+     */
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * 対応表の内容のハッシュ（差分ビルドで、対応表が変わった場合に前回の出力を再利用しないために使用する）
+     */
+    public String hash() {
+        StringBuilder text = new StringBuilder();
+        for (Rule rule : rules) {
+            text.append(rule.getYamlKey()).append('\t').append(rule.getPath()).append('\t')
+                    .append(rule.getTransform()).append('\n');
+        }
+        return ContentHash.sha256(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 対応表の1項目（YAMLのキー → JSONのパス + 変換方法）
+     */
+    public static class Rule {
+        private final String yamlKey;
+        private final String path;
+        private final Transform transform;
+        /** YAMLの値の取得方法（YamlInfoのgetter、またはYamlInfo#getValuesの検索） */
+        private final Function<YamlInfo, Object> accessor;
+
+        /**
+         * @param yamlKey   YAMLのキー
+         * @param path      JSON内の反映先（ドット区切り）
+         * @param transform 変換方法
+         */
+        public Rule(String yamlKey, String path, Transform transform) {
+            this.yamlKey = yamlKey;
+            this.path = path;
+            this.transform = transform;
+            Function<YamlInfo, Object> fieldAccessor = FIELD_ACCESSORS.get(yamlKey);
+            this.accessor = fieldAccessor != null ? fieldAccessor
+                    : yamlInfo -> yamlInfo.getValues() != null ? yamlInfo.getValues().get(yamlKey) : null;
+        }
+
+        /**
+         * YamlInfoから反映する値を取得する
+         *
+         * @return 反映する値（null、空の配列の場合は反映しないためnull）
+         */
+        Object getValue(YamlInfo yamlInfo) {
+            Object value = accessor.apply(yamlInfo);
+            if (value instanceof Collection && ((Collection<?>) value).isEmpty()) {
+                return null;
+            }
+            return value;
+        }
+
+        public String getYamlKey() {
+            return yamlKey;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Transform getTransform() {
+            return transform;
+        }
+    }
+
+    /**
+     * YAMLの値をJSONの値に変換する方法
+     */
+    public enum Transform {
+        /** 文字列として設定する */
+        STRING {
+            @Override
+            public JsonElement apply(Object value, JsonElement current) {
+                return new JsonPrimitive(toText(value));
+            }
+        },
+        /** 文字列の配列として設定する */
+        STRINGS {
+            @Override
+            public JsonElement apply(Object value, JsonElement current) {
+                JsonArray array = new JsonArray();
+                for (Object element : toList(value)) {
+                    array.add(toText(element));
+                }
+                return array;
+            }
+        },
+        /** 各要素を[項目名]形式に変換した配列として設定する */
+        BRACKETED {
+            @Override
+            public JsonElement apply(Object value, JsonElement current) {
+                JsonArray array = new JsonArray();
+                for (Object element : toList(value)) {
+                    array.add("[" + toText(element) + "]");
+                }
+                return array;
+            }
+        },
+        /** 雛型の最初のパラメータを引き継ぎ、テキストデータセットのパラメータ1件で置き換える */
+        TEXT_DATASET_PARAMS {
+            @Override
+            public JsonElement apply(Object value, JsonElement current) {
+                JsonObject baseParam = null;
+                if (current != null && current.isJsonArray() && !current.getAsJsonArray().isEmpty()
+                        && current.getAsJsonArray().get(0).isJsonObject()) {
+                    baseParam = current.getAsJsonArray().get(0).getAsJsonObject();
+                }
+                JsonArray params = new JsonArray();
+                params.add(JsonEditor.newTextDatasetParam(baseParam, toStrings(value)));
+                return params;
+            }
+
+            @Override
+            public boolean usesFirstElement() {
+                return true;
+            }
+        };
+
+        /**
+         * YAMLの値をJSONの値に変換する
+         *
+         * @param value   YAMLの値（nullでない）
+         * @param current 雛型の現在の値（存在しない場合はnull。usesFirstElementがtrueの場合のみ参照する）
+         * @return 設定するJSONの値
+         */
+        public abstract JsonElement apply(Object value, JsonElement current);
+
+        /**
+         * 変換に雛型の現在の値（配列の最初の要素）を使用するか
+         * ストリーミングでの反映時は、現在の値が配列の場合、最初の要素だけを読み込んで渡す
+         */
+        public boolean usesFirstElement() {
+            return false;
+        }
+
+        /**
+         * 対応表に記述する名前（text-dataset-params等）から取得する
+         */
+        public static Transform fromName(String name) {
+            try {
+                return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不明な変換方法です: " + name);
+            }
+        }
+
+        private static String toText(Object value) {
+            if (value instanceof String) {
+                return (String) value;
+            }
+            if (value instanceof Map || value instanceof Collection) {
+                throw new IllegalArgumentException("文字列でない値は反映できません: " + value);
+            }
+            return value.toString();
+        }
+
+        /**
+         * 文字列のリストに変換する（すべての要素が文字列の場合はコピーしない）
+         */
+        @SuppressWarnings("unchecked")
+        private static List<String> toStrings(Object value) {
+            List<?> list = toList(value);
+            for (Object element : list) {
+                if (!(element instanceof String)) {
+                    List<String> strings = new ArrayList<>(list.size());
+                    for (Object e : list) {
+                        strings.add(toText(e));
+                    }
+                    return strings;
+                }
+            }
+            return (List<String>) list;
+        }
+
+        private static List<?> toList(Object value) {
+            if (!(value instanceof List)) {
+                throw new IllegalArgumentException("配列でない値は反映できません: " + value);
+            }
+            return (List<?>) value;
+        }
+    }
+
+    /**
+     * コンパイル済みの木の節（JSONの1階層）
+     * 葉（ruleがnullでない）は反映先、それ以外は途中の階層を表す
+     */
+    static class Node {
+        /** 子の階層（対応表の順序） */
+        final Map<String, Node> children = new LinkedHashMap<>();
+        Rule rule;
+    }
+
+    /**
+     * JsonObjectへの反映手順の1命令
+     */
+    private static class Step {
+        /** 子の階層に移動する（存在しない、またはオブジェクトでない場合は作成する） */
+        static final int ENTER = 0;
+        /** 親の階層に戻る */
+        static final int EXIT = 1;
+        /** 現在の階層に値を反映する */
+        static final int SET = 2;
+
+        final int type;
+        final String key;
+        final Rule rule;
+
+        Step(int type, String key, Rule rule) {
+            this.type = type;
+            this.key = key;
+            this.rule = rule;
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final WorkMapping INSTANCE = loadDefault();
+
+        private static WorkMapping loadDefault() {
+            try (InputStream in = WorkMapping.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("標準の対応表が見つかりません: " + DEFAULT_RESOURCE);
+                }
+                return load(in);
+            } catch (IOException e) {
+                throw new IllegalStateException("標準の対応表を読み込めません: " + e.getMessage(), e);
+            }
+        }
+    }
+}
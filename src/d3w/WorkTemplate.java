@@ -0,0 +1,115 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+import d3w.model.YamlInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 雛型ワーク（w1）を1回だけ読み込んで保持するクラス
+ * <p>
+ * ワークの生成（render）は、保持している雛型のJSONを WorkTransformer でトークン単位に
+ * 書き写しながら編集対象のパスだけを置き換えるため、JsonObjectのツリーは構築しない。
+ * ワーク1件あたりのメモリ使用量は雛型の大きさに依存しない。
+ * <p>
+ * JsonObjectとして編集する場合（newInstance、newDeepInstance）は、初回の呼び出し時に1回だけ解析し、
+ * 解析済みのJsonObjectからワークごとに編集可能なインスタンスを払い出す。
+ * 保持しているJsonObjectは直接編集しないこと。
+ */
+public class WorkTemplate {
+
+    private final byte[] content;
+    private JsonObject source;
+
+    private WorkTemplate(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * 雛型ワークのバイト列からWorkTemplateを生成する
+     * JSONオブジェクトであることのみ検証し、ツリーは構築しない
+     *
+     * @param jsonContent 雛型ワークのJSON（UTF-8）
+     * @return WorkTemplateインスタンス
+     */
+    public static WorkTemplate compile(byte[] jsonContent) {
+        try (Utf8Reader reader = newReader(jsonContent)) {
+            WorkTransformer.validate(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("雛型ワークのJSONが不正です: " + e.getMessage(), e);
+        }
+        return new WorkTemplate(jsonContent);
+    }
+
+    /**
+     * 雛型ワークのファイルからWorkTemplateを生成する
+     *
+     * @param jsonFilePath 雛型ワークのファイルパス
+     * @return WorkTemplateインスタンス
+     * @throws IOException ファイル読み込みに失敗した場合
+     */
+    public static WorkTemplate compile(Path jsonFilePath) throws IOException {
+        return compile(Files.readAllBytes(jsonFilePath));
+    }
+
+    /**
+     * 雛型ワークにYamlInfoの内容を適用したワーク1件分のJSON（UTF-8）を書き出す
+     * 出力は newInstance に JsonEditor#applyYamlInfo を適用し、key を空にした結果と同じ
+     *
+     * @param yamlInfo 適用するYamlInfo
+     * @param out      書き込み先（閉じない）
+     * @return _ファイルのworksに登録するワークの情報
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public WorkTransformer.Result render(YamlInfo yamlInfo, OutputStream out) throws IOException {
+        try (Utf8Reader reader = newReader(content); Utf8Writer writer = new Utf8Writer(out)) {
+            return WorkTransformer.transform(reader, yamlInfo, writer);
+        }
+    }
+
+    /**
+     * 雛型ワークのJSONのサイズ（バイト数）を取得する
+     */
+    public int size() {
+        return content.length;
+    }
+
+    /**
+     * ワーク1件分の編集可能なJsonObjectを生成する
+     * 返却したJsonObjectにJsonEditor#applyYamlInfoを適用しても雛型や他のワークには影響しない
+     *
+     * @return 雛型ワークのコピーオンライトなコピー
+     */
+    public JsonObject newInstance() {
+        return JsonEditor.copyOnWrite(getSource());
+    }
+
+    /**
+     * ワーク1件分の完全に独立したJsonObjectを生成する
+     * applyYamlInfoが編集しない階層も変更する場合に使用する
+     *
+     * @return 雛型ワークのディープコピー
+     */
+    public JsonObject newDeepInstance() {
+        return JsonEditor.deepCopy(getSource());
+    }
+
+    /**
+     * 解析済みの雛型ワークを取得する（初回のみ解析する）
+     */
+    private synchronized JsonObject getSource() {
+        if (source == null) {
+            source = JsonEditor.readJson(content);
+        }
+        return source;
+    }
+
+    private static Utf8Reader newReader(byte[] jsonContent) {
+        return new Utf8Reader(new ByteArrayInputStream(jsonContent));
+    }
+}
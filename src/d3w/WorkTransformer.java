@@ -0,0 +1,346 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import d3w.model.YamlInfo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 雛型ワークのJSONをトークン単位で書き写しながらYamlInfoの内容を適用するクラス
+ * <p>
+ * JsonReaderで雛型を読みながらJsonWriterにそのまま書き写し、
+ * 対応表（WorkMapping）の反映先（標準ではname、note、content.subject、content.datasource.fields、
+ * content.document.name、content.document.template.name、content.document.template.params）と
+ * key だけを置き換える。
+ * JsonObjectのツリーを構築しないため、ワーク1件あたりのメモリ使用量は雛型の大きさに依存しない
+ * （datasourceのフィールドが数千件ある雛型でも、保持するのは読み書き中のトークンのみ）。
+ * <p>
+ * 出力は、雛型を解析したJsonObjectに WorkMapping#apply を適用し、
+ * key を空にしてから JsonEditor#toJson で出力した結果と一致する
+ * （置き換えたプロパティの位置、存在しない階層の追加位置、null のプロパティの省略も含む）。
+ */
+public class WorkTransformer {
+
+    /**
+     * 雛型ワークに標準の対応表でYamlInfoの内容を適用して書き出す
+     * キーはインポートした際に採番されるので空にする
+     *
+     * @param template 雛型ワークのJSON
+     * @param yamlInfo 適用するYamlInfo
+     * @param out      書き込み先（閉じない）
+     * @return _ファイルのworksに登録するワークの情報
+     * @throws IOException 読み書きに失敗した場合、またはJSONの形式が不正な場合
+     */
+    public static Result transform(Reader template, YamlInfo yamlInfo, Writer out) throws IOException {
+        return transform(template, WorkMapping.getDefault(), yamlInfo, out);
+    }
+
+    /**
+     * 雛型ワークに、指定した対応表でYamlInfoの内容を適用して書き出す
+     * キーはインポートした際に採番されるので空にする
+     *
+     * @param template 雛型ワークのJSON
+     * @param mapping  コンパイル済みの対応表
+     * @param yamlInfo 適用するYamlInfo
+     * @param out      書き込み先（閉じない）
+     * @return _ファイルのworksに登録するワークの情報
+     * @throws IOException 読み書きに失敗した場合、またはJSONの形式が不正な場合
+     */
+    public static Result transform(Reader template, WorkMapping mapping, YamlInfo yamlInfo, Writer out)
+            throws IOException {
+        JsonReader reader = new JsonReader(template);
+        reader.setLenient(true);
+        JsonWriter writer = new JsonWriter(out);
+        // Gson#toJson(JsonElement) と同じ設定（HTMLセーフ、nullのプロパティは出力しない）
+        writer.setLenient(true);
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalStateException("雛型ワークがJSONオブジェクトではありません: " + reader.peek());
+        }
+        Result result = new Result();
+        transformObject(reader, writer, mapping.getRoot(), yamlInfo, result);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("雛型ワークの末尾に余分なデータがあります");
+        }
+        writer.flush();
+        return result;
+    }
+
+    /**
+     * 雛型ワークのJSONが1つのJSONオブジェクトであることを、ツリーを構築せずに検証する
+     *
+     * @param template 雛型ワークのJSON
+     * @throws IOException 読み込みに失敗した場合、またはJSONの形式が不正な場合
+     */
+    public static void validate(Reader template) throws IOException {
+        JsonReader reader = new JsonReader(template);
+        reader.setLenient(true);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalStateException("雛型ワークがJSONオブジェクトではありません: " + reader.peek());
+        }
+        reader.skipValue();
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("雛型ワークの末尾に余分なデータがあります");
+        }
+    }
+
+    /**
+     * オブジェクト1つ分を書き写しながら、対応表の木の節に従って反映先を置き換える
+     * <p>
+     * 反映先のプロパティは元の位置で置き換え、途中の階層はオブジェクトであれば再帰的に書き写し、
+     * オブジェクトでなければ新規に作成する。雛型に存在しない反映先・途中の階層は末尾に追加する
+     * （JsonObject#add と同じ位置）。
+     *
+     * @param result ルート階層の場合はワークの情報の記録先（それ以外はnull）
+     */
+    private static void transformObject(JsonReader reader, JsonWriter writer, WorkMapping.Node node,
+                                        YamlInfo yamlInfo, Result result) throws IOException {
+        Set<String> written = new HashSet<>();
+
+        reader.beginObject();
+        writer.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            writer.name(key);
+            WorkMapping.Node child = node.children.get(key);
+            JsonElement replaced = null;
+            if (child != null && child.rule != null) {
+                // 反映先（値がない場合は雛型の値をそのまま書き写す）
+                Object value = child.rule.getValue(yamlInfo);
+                if (value != null) {
+                    written.add(key);
+                    replaced = replaceValue(reader, writer, child.rule.getTransform(), value);
+                }
+            } else if (child != null) {
+                // 途中の階層
+                written.add(key);
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    transformObject(reader, writer, child, yamlInfo, null);
+                } else {
+                    reader.skipValue();
+                    writeObject(writer, child, yamlInfo);
+                }
+                continue;
+            }
+
+            if (result == null) {
+                if (replaced == null) {
+                    copyValue(reader, writer);
+                }
+            } else if (key.equals("name") || key.equals("content_class")) {
+                result.record(key, replaced != null ? replaced : copyElement(reader, writer));
+            } else if (replaced != null) {
+                continue;
+            } else if (key.equals("key") && isPrimitive(reader.peek())) {
+                // キーはインポートした際に採番されるので空にする
+                reader.skipValue();
+                writer.value("");
+            } else {
+                copyValue(reader, writer);
+            }
+        }
+        reader.endObject();
+
+        // 雛型に存在しない反映先・途中の階層を、対応表の順序で末尾に追加する
+        for (Map.Entry<String, WorkMapping.Node> entry : node.children.entrySet()) {
+            if (!written.contains(entry.getKey())) {
+                JsonElement added = writeMissing(writer, entry.getKey(), entry.getValue(), yamlInfo);
+                if (result != null && added != null) {
+                    result.record(entry.getKey(), added);
+                }
+            }
+        }
+        writer.endObject();
+    }
+
+    /**
+     * 雛型に存在しない（またはオブジェクトでない）階層を、対応表の木の節に従って新規に書き込む
+     */
+    private static void writeObject(JsonWriter writer, WorkMapping.Node node, YamlInfo yamlInfo)
+            throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, WorkMapping.Node> entry : node.children.entrySet()) {
+            writeMissing(writer, entry.getKey(), entry.getValue(), yamlInfo);
+        }
+        writer.endObject();
+    }
+
+    /**
+     * 雛型に存在しない反映先または途中の階層を1つ書き込む
+     *
+     * @return 書き込んだ反映先の値（反映する値がない場合、途中の階層の場合はnull）
+     */
+    private static JsonElement writeMissing(JsonWriter writer, String key, WorkMapping.Node node,
+                                            YamlInfo yamlInfo) throws IOException {
+        if (node.rule == null) {
+            writer.name(key);
+            writeObject(writer, node, yamlInfo);
+            return null;
+        }
+        Object value = node.rule.getValue(yamlInfo);
+        if (value == null) {
+            return null;
+        }
+        JsonElement element = node.rule.getTransform().apply(value, null);
+        writer.name(key);
+        JsonEditor.GSON.toJson(element, writer);
+        return element;
+    }
+
+    /**
+     * 雛型の値を読み飛ばし、YAMLの値を変換した値で置き換える
+     * 変換に雛型の値を使用する場合は、配列の最初の要素だけを読み込んで渡す
+     *
+     * @return 書き込んだ値
+     */
+    private static JsonElement replaceValue(JsonReader reader, JsonWriter writer, WorkMapping.Transform transform,
+                                            Object value) throws IOException {
+        JsonElement current = null;
+        if (transform.usesFirstElement()) {
+            current = readFirstElement(reader);
+        } else {
+            reader.skipValue();
+        }
+        JsonElement element = transform.apply(value, current);
+        JsonEditor.GSON.toJson(element, writer);
+        return element;
+    }
+
+    /**
+     * 配列の最初の要素だけを読み込み、残りの要素は読み飛ばす
+     * 最初の要素がオブジェクトでない場合は読み込まず、JsonNullに置き換える
+     *
+     * @return 最初の要素だけを持つ配列（配列でない場合はnull、空の配列の場合は空の配列）
+     */
+    private static JsonElement readFirstElement(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        JsonArray first = new JsonArray(1);
+        reader.beginArray();
+        if (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                first.add(JsonParser.parseReader(reader));
+            } else {
+                reader.skipValue();
+                first.add(JsonNull.INSTANCE);
+            }
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+        return first;
+    }
+
+    /**
+     * 値を1つ読み込んでJsonElementとして書き写す（name、content_class等の小さい値のみに使用する）
+     */
+    private static JsonElement copyElement(JsonReader reader, JsonWriter writer) {
+        JsonElement element = JsonParser.parseReader(reader);
+        JsonEditor.GSON.toJson(element, writer);
+        return element;
+    }
+
+    /**
+     * 値を1つ、トークン単位でそのまま書き写す
+     * 入れ子の深さは数えるだけで再帰しないため、深い階層でもスタックを消費しない
+     */
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                    break;
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    writer.name(reader.nextName());
+                    break;
+                case STRING:
+                    writer.value(reader.nextString());
+                    break;
+                case NUMBER:
+                    // 数値は元の表記のまま書き写す（JsonParserのLazilyParsedNumberと同じ）
+                    writer.jsonValue(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    writer.value(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    writer.nullValue();
+                    break;
+                default:
+                    throw new IllegalStateException("JSONの形式が不正です: " + reader.peek());
+            }
+        } while (depth > 0);
+    }
+
+    private static boolean isPrimitive(JsonToken token) {
+        return token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN;
+    }
+
+    /**
+     * _ファイルのworksに登録するワークの情報
+     */
+    public static class Result {
+        private String contentClass;
+        private String name;
+
+        /**
+         * ルート階層に書き込んだ name、content_class を記録する
+         */
+        private void record(String key, JsonElement value) {
+            if (key.equals("name")) {
+                name = value.getAsString();
+            } else if (key.equals("content_class")) {
+                contentClass = value.getAsString();
+            }
+        }
+
+        /**
+         * content_class（雛型に存在しない場合はnull）
+         */
+        public String getContentClass() {
+            return contentClass;
+        }
+
+        /**
+         * ワーク名（YamlInfoのワーク名、未指定の場合は雛型のワーク名）
+         */
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -1,23 +1,73 @@
 package d3w;
 
 import d3w.model.YamlInfo;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.representer.Representer;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * YAMLファイルからYamlInfoオブジェクトを読み込むユーティリティクラス
+ * <p>
+ * 通常は1つのYAMLファイルに1つのワーク設定を記載する。ワーク数が多い場合は、
+ * 1つのYAMLファイルに `---` 区切りで複数のワーク設定（ドキュメント）を記載し、openDocuments で1件ずつ読み込める。
+ * <p>
+ * ワークの生成に使用する読み込み（loadAll、load、iterate、openDocuments）では、YamlInfoのフィールド以外の項目は
+ * 標準の対応表が参照するもの（WorkMapping#getValueKeys）のみ YamlInfo#getValues に保持する。
+ * ワーク数が多い場合に、反映しない項目までワークごとに保持しないため。
+ * loadFromYaml、loadFromString はすべての項目を保持する（別の対応表を反映する場合に使用する）。
  */
 public class YamlInfoLoader {
 
+    /**
+     * スレッドごとに再利用するYamlインスタンス
+     * Yamlはスレッドセーフではないため、スレッド間では共有しない。
+     * 呼び出しごとにConstructor、Resolver、Representerを生成し直すコストを避ける。
+     */
+    private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(() -> newSafeYaml(new LoaderOptions()));
+
+    /**
+     * 複数のワーク設定を記載したYAMLファイルの読み込みで許容するコードポイント数
+     * SnakeYAMLの既定（3,145,728）はドキュメントごとではなくファイル全体に適用されるため、
+     * ワーク数が1万件程度を超えると読み込めなくなる。手元で用意したファイルのみを読み込むため、上限は設けない。
+     */
+    static final int DOCUMENTS_CODE_POINT_LIMIT = Integer.MAX_VALUE;
+
+    /**
+     * Map、List、スカラー値のみを生成するYamlインスタンスを作成する
+     * 既定のConstructorはグローバルタグ（!!クラス名）で任意のクラスを生成するため、
+     * サーバーモードで受け取るYAML等、外部から渡されるYAMLを読み込むと任意のコードを実行される（CVE-2022-1471）。
+     * ワーク設定・対応表・マニフェストはMap、List、スカラー値しか使用しないため、常にSafeConstructorで読み込む。
+     *
+     * @param loaderOptions 読み込みの設定（コードポイント数の上限等）
+     * @return 作成したYamlインスタンス（スレッドセーフではない）
+     */
+    static Yaml newSafeYaml(LoaderOptions loaderOptions) {
+        // Yaml(BaseConstructor) はLoaderOptionsを引き継がないため、読み込みの設定も明示的に渡す
+        DumperOptions dumperOptions = new DumperOptions();
+        return new Yaml(new SafeConstructor(loaderOptions), new Representer(dumperOptions), dumperOptions,
+                loaderOptions);
+    }
+
     /**
      * YAMLファイルから単一のYamlInfoを読み込む
      *
@@ -26,22 +76,149 @@ public class YamlInfoLoader {
      * @throws Exception 読み込みに失敗した場合
      */
     public static YamlInfo loadFromYaml(String yamlFilePath) throws Exception {
-        Yaml yaml = new Yaml();
         try (InputStream inputStream = Files.newInputStream(Paths.get(yamlFilePath))) {
-            Map<String, Object> data = yaml.load(inputStream);
+            Map<String, Object> data = YAML.get().load(inputStream);
             return mapToYamlInfo(data);
         }
     }
 
     /**
-     * MapをYamlInfoオブジェクトに変換
+     * YAML文字列から単一のYamlInfoを読み込む
+     *
+     * @param yamlText YAML形式の文字列
+     * @return YamlInfoオブジェクト
+     */
+    public static YamlInfo loadFromString(String yamlText) {
+        Map<String, Object> data = YAML.get().load(yamlText);
+        return mapToYamlInfo(data);
+    }
+
+    /**
+     * 複数のYAMLファイルからYamlInfoを読み込む
+     * 並列度が2以上の場合は複数ファイルを並行して読み込む（ファイルアクセスの待ち時間を重ねる）。
+     *
+     * @param yamlFilePaths YAMLファイルのパスリスト
+     * @param parallelism   並列度（1以下の場合は逐次処理）
+     * @return YamlInfoオブジェクトのリスト（入力と同じ順序）
+     * @throws Exception 読み込みに失敗した場合
+     */
+    public static List<YamlInfo> loadAll(List<String> yamlFilePaths, int parallelism) throws Exception {
+        return loadAll(yamlFilePaths, parallelism, CancellationToken.NONE);
+    }
+
+    /**
+     * 複数のYAMLファイルからYamlInfoを読み込む（ファイル1件ごとに中断の要求を確認する）
+     *
+     * @param yamlFilePaths YAMLファイルのパスリスト
+     * @param parallelism   並列度（1以下の場合は逐次処理）
+     * @param token         中断の要求を確認するトークン
+     * @return YamlInfoオブジェクトのリスト（入力と同じ順序）
+     * @throws ProcessCancelledException 中断が要求された場合
+     * @throws Exception 読み込みに失敗した場合
+     */
+    public static List<YamlInfo> loadAll(List<String> yamlFilePaths, int parallelism, CancellationToken token)
+            throws Exception {
+        return load(yamlFilePaths, parallelism, token).getYamlInfos();
+    }
+
+    /**
+     * 複数のYAMLファイルからYamlInfoを読み込み、読み込んだバイト数とともに返す（ファイル1件ごとに中断の要求を確認する）
+     * ファイルの内容は1回だけ読み込み、そのバイト数を集計する（ファイルサイズを別途問い合わせない）。
+     *
+     * @param yamlFilePaths YAMLファイルのパスリスト
+     * @param parallelism   並列度（1以下の場合は逐次処理）
+     * @param token         中断の要求を確認するトークン
+     * @return 読み込み結果（YamlInfoは入力と同じ順序）
+     * @throws ProcessCancelledException 中断が要求された場合
+     * @throws Exception 読み込みに失敗した場合
+     */
+    public static LoadResult load(List<String> yamlFilePaths, int parallelism, CancellationToken token)
+            throws Exception {
+        // 各スレッドは自分の担当するインデックスにのみ書き込む（ParallelMapperが全タスクの完了を待ってから返す）
+        long[] sizes = new long[yamlFilePaths.size()];
+        List<YamlInfo> yamlInfos = ParallelMapper.map(yamlFilePaths, parallelism, (index, yamlFilePath) -> {
+            token.throwIfCancelled();
+            byte[] content = Files.readAllBytes(Paths.get(yamlFilePath));
+            sizes[index] = content.length;
+            Map<String, Object> data = YAML.get().load(new ByteArrayInputStream(content));
+            return mapToYamlInfo(data, WorkMapping.getDefault().getValueKeys());
+        });
+        long bytesRead = 0;
+        for (long size : sizes) {
+            bytesRead += size;
+        }
+        return new LoadResult(yamlInfos, bytesRead);
+    }
+
+    /**
+     * 複数のYAMLファイルを、取り出すたびに1件ずつ読み込むイテレーターを返す（ストリーミング生成用）
+     * 読み込んだYamlInfoは保持しないため、ファイル数が多くてもメモリ使用量は増えない。
+     *
+     * @param yamlFilePaths YAMLファイルのパスリスト
+     * @return YamlInfoのイテレーター（入力と同じ順序。読み込みに失敗した場合、next は
+     * IOExceptionをUncheckedIOExceptionで包んで投げる）
+     */
+    public static Iterator<YamlInfo> iterate(List<String> yamlFilePaths) {
+        Iterator<String> paths = yamlFilePaths.iterator();
+        return new Iterator<YamlInfo>() {
+            @Override
+            public boolean hasNext() {
+                return paths.hasNext();
+            }
+
+            @Override
+            public YamlInfo next() {
+                if (!paths.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String yamlFilePath = paths.next();
+                try (InputStream inputStream = Files.newInputStream(Paths.get(yamlFilePath))) {
+                    Map<String, Object> data = YAML.get().load(inputStream);
+                    return mapToYamlInfo(data, WorkMapping.getDefault().getValueKeys());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (Exception e) {
+                    throw new IllegalStateException("YAMLファイルの読み込みに失敗しました: " + yamlFilePath, e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 1つのYAMLファイルに `---` 区切りで記載した複数のワーク設定を、取り出すたびに1件ずつ読み込むイテレーターを開く
+     * SnakeYAMLのloadAllでドキュメントを1つずつ解析するため、ファイル全体の解析結果をメモリ上に保持しない。
+     * 空のドキュメント（末尾の `---` 等）は読み飛ばす。
+     *
+     * @param yamlFilePath YAMLファイルのパス
+     * @return YamlInfoのイテレーター（ファイルの先頭から順に返す。使い終わったら閉じること）
+     * @throws IOException ファイルを開けない場合
+     */
+    public static DocumentIterator openDocuments(String yamlFilePath) throws IOException {
+        return new DocumentIterator(yamlFilePath);
+    }
+
+    /**
+     * MapをYamlInfoオブジェクトに変換（すべての項目を保持する）
      *
      * @param map YAMLから読み込んだMap
      * @return YamlInfoオブジェクト
      */
-    @SuppressWarnings("unchecked")
     private static YamlInfo mapToYamlInfo(Map<String, Object> map) {
-        return new YamlInfo(
+        return mapToYamlInfo(map, null);
+    }
+
+    /**
+     * MapをYamlInfoオブジェクトに変換
+     *
+     * @param map       YAMLから読み込んだMap
+     * @param valueKeys YamlInfo#getValuesに保持する項目（nullの場合はすべての項目、空の場合は保持しない）
+     * @return YamlInfoオブジェクト
+     */
+    @SuppressWarnings("unchecked")
+    private static YamlInfo mapToYamlInfo(Map<String, Object> map, Set<String> valueKeys) {
+        YamlInfo yamlInfo = new YamlInfo(
                 (String) map.get("workName"),
                 (String) map.get("memoText"),
                 (String) map.get("subject"),
@@ -50,6 +227,73 @@ public class YamlInfoLoader {
                 (List<String>) map.get("textDatasetFields"),
                 (List<String>) map.get("datasourceFields")
         );
+        // 対応表（work-mapping.yml）に追加した項目も参照できるように保持する
+        if (valueKeys == null) {
+            yamlInfo.setValues(map);
+        } else if (!valueKeys.isEmpty()) {
+            Map<String, Object> values = new HashMap<>();
+            for (String key : valueKeys) {
+                if (map.containsKey(key)) {
+                    values.put(key, map.get(key));
+                }
+            }
+            yamlInfo.setValues(values);
+        }
+        return yamlInfo;
+    }
+
+    /**
+     * 1つのYAMLファイルに記載した複数のワーク設定を1件ずつ読み込むイテレーター
+     * 解析中の状態を持つため、ThreadLocalのYamlインスタンスは使用せず、イテレーターごとに作成する。
+     */
+    public static class DocumentIterator implements Iterator<YamlInfo>, Closeable {
+        private final String yamlFilePath;
+        private final InputStream inputStream;
+        private final Iterator<Object> documents;
+        private YamlInfo next;
+        private int documentNumber;
+
+        private DocumentIterator(String yamlFilePath) throws IOException {
+            this.yamlFilePath = yamlFilePath;
+            this.inputStream = Files.newInputStream(Paths.get(yamlFilePath));
+            LoaderOptions loaderOptions = new LoaderOptions();
+            loaderOptions.setCodePointLimit(DOCUMENTS_CODE_POINT_LIMIT);
+            this.documents = newSafeYaml(loaderOptions).loadAll(inputStream).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && documents.hasNext()) {
+                Object document = documents.next();
+                documentNumber++;
+                if (document == null) {
+                    continue;
+                }
+                if (!(document instanceof Map)) {
+                    throw new IllegalStateException(String.format(
+                            "ワーク設定ではありません: %s（%d番目のドキュメント）", yamlFilePath, documentNumber));
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = (Map<String, Object>) document;
+                next = mapToYamlInfo(map, WorkMapping.getDefault().getValueKeys());
+            }
+            return next != null;
+        }
+
+        @Override
+        public YamlInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            YamlInfo yamlInfo = next;
+            next = null;
+            return yamlInfo;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
     }
 
     /**
@@ -77,4 +321,32 @@ public class YamlInfoLoader {
                 })
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 複数のYAMLファイルの読み込み結果
+     */
+    public static class LoadResult {
+        private final List<YamlInfo> yamlInfos;
+        private final long bytesRead;
+
+        LoadResult(List<YamlInfo> yamlInfos, long bytesRead) {
+            this.yamlInfos = yamlInfos;
+            this.bytesRead = bytesRead;
+        }
+
+        /**
+         * 読み込んだYamlInfoのリスト（入力と同じ順序）
+         */
+        public List<YamlInfo> getYamlInfos() {
+            return yamlInfos;
+        }
+
+        /**
+         * 読み込んだYAMLファイルの合計バイト数
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+    }
+
 }
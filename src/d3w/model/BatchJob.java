@@ -0,0 +1,22 @@
+package d3w.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchJob {
+    /**
+     * 出力する.d3wファイルのパス
+     */
+    private String output;
+    /**
+     * ワークの設定を記載したYAMLファイルのパスリスト
+     */
+    private List<String> yamls;
+
+    public BatchJob(String output, List<String> yamls) {
+        this.output = output;
+        this.yamls = yamls;
+    }
+}
@@ -1,8 +1,11 @@
 package d3w.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class YamlInfo {
@@ -34,6 +37,14 @@ public class YamlInfo {
      * データソース:content.datasource.fields
      */
     private List<String> datasourceFields;
+    /**
+     * YAMLから読み込んだ上記以外の項目（対応表で上記以外の項目をワークに反映する場合に使用する。未設定の場合はnull）
+     * ワークの生成で読み込んだ場合は、標準の対応表が参照する項目のみ保持する。
+     * 上記の項目と重複し、大きくなる場合もあるため、equals・hashCode・toStringには含めない。
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Map<String, Object> values;
 
     public YamlInfo(String workName, String memoText, String subject, String documentName, String templateName, List<String> textDatasetFields, List<String> datasourceFields) {
         this.workName = workName;
@@ -44,4 +55,5 @@ public class YamlInfo {
         this.textDatasetFields = textDatasetFields;
         this.datasourceFields = datasourceFields;
     }
+
 }
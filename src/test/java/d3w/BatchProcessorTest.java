@@ -0,0 +1,93 @@
+package d3w;
+
+import d3w.model.BatchJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchProcessorTest {
+
+    @Test
+    void testRun_GeneratesEachJobAndReportsFailures(@TempDir Path tempDir) throws Exception {
+        // 1. 雛型とYAMLファイルを準備
+        Path template = copyResource("/templates/Box20251229184004.d3w", tempDir.resolve("template.d3w"));
+        Files.createDirectories(tempDir.resolve("configs"));
+        for (int i = 1; i <= 3; i++) {
+            String fileName = "0" + i + "_TEST_YAML.yaml";
+            copyResource("/configs/" + fileName, tempDir.resolve("configs").resolve(fileName));
+        }
+
+        // 2. マニフェストを作成（3件目は存在しないYAMLを指定）
+        Path manifest = tempDir.resolve("manifest.yml");
+        String manifestText = "jobs:\n"
+                + "  - output: out/groupA.d3w\n"
+                + "    yamls:\n"
+                + "      - configs/01_TEST_YAML.yaml\n"
+                + "      - configs/02_TEST_YAML.yaml\n"
+                + "  - output: out/groupB.d3w\n"
+                + "    yamls:\n"
+                + "      - configs/03_TEST_YAML.yaml\n"
+                + "  - output: out/groupC.d3w\n"
+                + "    yamls:\n"
+                + "      - configs/missing.yaml\n";
+        Files.write(manifest, manifestText.getBytes(StandardCharsets.UTF_8));
+
+        List<BatchJob> jobs = BatchManifestLoader.load(manifest.toString());
+        assertEquals(3, jobs.size());
+        assertEquals(tempDir.resolve("out/groupA.d3w").toString(), jobs.get(0).getOutput(),
+                "相対パスはマニフェストのディレクトリを基準に解決すること");
+
+        // 3. 並行に実行
+        ProcessOptions options = new ProcessOptions();
+        options.setParallelism(3);
+        List<BatchProcessor.Result> results = BatchProcessor.run(template.toString(), jobs, options);
+
+        // 4. 成功したジョブは出力され、失敗したジョブは他のジョブに影響しないこと
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess(), "存在しないYAMLを指定したジョブは失敗すること");
+        assertNotNull(results.get(2).getError());
+
+        D3wArchive groupA = D3wArchive.read(tempDir.resolve("out/groupA.d3w"));
+        assertEquals(Arrays.asList("_", "e1", "s1", "w1", "s2", "w2"), groupA.findJsonEntryNames());
+        D3wArchive groupB = D3wArchive.read(tempDir.resolve("out/groupB.d3w"));
+        assertEquals(Arrays.asList("_", "e1", "s1", "w1", "s2"), groupB.findJsonEntryNames());
+        assertFalse(Files.exists(tempDir.resolve("out/groupC.d3w")));
+
+        // 5. 同じ雛型から生成したジョブ同士で内容が混ざらないこと
+        assertNotEquals(new String(groupA.get("w1"), StandardCharsets.UTF_8),
+                new String(groupB.get("w1"), StandardCharsets.UTF_8));
+        assertArrayEquals(groupA.get("e1"), groupB.get("e1"), "雛型から保持したエントリは同じであること");
+    }
+
+    @Test
+    void testLoad_RejectsDuplicateOutput(@TempDir Path tempDir) throws Exception {
+        Path manifest = tempDir.resolve("manifest.yml");
+        String manifestText = "jobs:\n"
+                + "  - output: out.d3w\n"
+                + "    yamls: [a.yml]\n"
+                + "  - output: out.d3w\n"
+                + "    yamls: [b.yml]\n";
+        Files.write(manifest, manifestText.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> BatchManifestLoader.load(manifest.toString()));
+    }
+
+    private Path copyResource(String resourcePath, Path target) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
+            assertNotNull(in, "Resource not found: " + resourcePath);
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,164 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CancellationToken（処理の中断・制限時間）のテスト
+ */
+class CancellationTest {
+
+    @Test
+    void testCancelledBeforeStart(@TempDir Path tempDir) throws Exception {
+        // 開始前に中断した場合は何も処理せず、出力ファイルを作成しないこと
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 3, 5, 5);
+        Path output = tempDir.resolve("output.d3w");
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        ProcessOptions options = new ProcessOptions();
+        options.setProgressListener(ProgressListener.SILENT);
+        options.setCancellationToken(token);
+
+        ProcessCancelledException exception = assertThrows(ProcessCancelledException.class,
+                () -> D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options));
+        assertEquals("キャンセルされました", exception.getReason());
+        assertNull(exception.getPhase(), "フェーズを開始していないこと");
+        assertFalse(Files.exists(output));
+    }
+
+    @Test
+    void testCancelDuringGenerate_OnDisk(@TempDir Path tempDir) throws Exception {
+        // 1. 3件目のワークを生成した時点で中断する
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 10, 5, 5);
+        Path output = tempDir.resolve("output.d3w");
+        CancellationToken token = new CancellationToken();
+        ProcessOptions options = new ProcessOptions();
+        options.setCancellationToken(token);
+        options.setProgressListener(new ProgressListener() {
+            @Override
+            public void workGenerated(String output, int completed, int total, int workNumber, String workName) {
+                if (completed == 3) {
+                    token.cancel("テストによる中断");
+                }
+            }
+        });
+        int tempDirectories = countTempDirectories();
+
+        // 2. 中断したフェーズと生成済みのワーク数が報告され、一時ディレクトリと出力ファイルが残らないこと
+        ProcessCancelledException exception = assertThrows(ProcessCancelledException.class,
+                () -> D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options));
+        assertEquals("テストによる中断", exception.getReason());
+        assertEquals(ProcessMetrics.GENERATE, exception.getPhase());
+        assertEquals(3, exception.getGeneratedWorks(), "次のワークを生成する前に中断すること");
+        assertEquals(10, exception.getTotalWorks());
+        assertTrue(exception.getMessage().contains("生成済み: 3/10個のワーク"));
+        assertEquals(tempDirectories, countTempDirectories(), "一時ディレクトリを削除すること");
+        assertFalse(Files.exists(output));
+    }
+
+    @Test
+    void testCancelDuringBuild_Parallel(@TempDir Path tempDir) throws Exception {
+        // ZIPの構築を開始した時点で中断した場合、途中まで書き込んだ出力ファイルを削除すること
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 20, 5, 5);
+        Path output = tempDir.resolve("output.d3w");
+        CancellationToken token = new CancellationToken();
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        options.setParallelism(4);
+        options.setCancellationToken(token);
+        options.setProgressListener(new ProgressListener() {
+            @Override
+            public void phaseStarted(String output, String phase) {
+                if (ProcessMetrics.BUILD.equals(phase)) {
+                    token.cancel();
+                }
+            }
+        });
+
+        ProcessCancelledException exception = assertThrows(ProcessCancelledException.class,
+                () -> D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options));
+        assertEquals(ProcessMetrics.BUILD, exception.getPhase());
+        assertEquals(20, exception.getGeneratedWorks(), "すべてのワークを生成済みであること");
+        assertFalse(Files.exists(output), "途中まで書き込んだ出力ファイルを削除すること");
+    }
+
+    @Test
+    void testTimeout(@TempDir Path tempDir) throws Exception {
+        // 制限時間を超えた場合は中断し、理由に制限時間が含まれること
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 5, 5, 5);
+        Path output = tempDir.resolve("output.d3w");
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        options.setTimeoutMillis(20);
+        options.setProgressListener(new ProgressListener() {
+            @Override
+            public void workGenerated(String output, int completed, int total, int workNumber, String workName) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        ProcessCancelledException exception = assertThrows(ProcessCancelledException.class,
+                () -> D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options));
+        assertTrue(exception.getReason().contains("制限時間（20 ミリ秒）"));
+        assertTrue(exception.getGeneratedWorks() < 5, "途中で中断すること");
+        assertFalse(Files.exists(output));
+
+        // 制限時間は処理ごとに数えるため、同じ設定でも制限時間内に終わる処理は完了すること
+        options.setTimeoutMillis(60_000);
+        options.setProgressListener(ProgressListener.SILENT);
+        D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options);
+        assertTrue(Files.exists(output));
+    }
+
+    @Test
+    void testToken() {
+        // 制限時間付きのトークンは、元のトークンの中断も引き継ぐこと
+        CancellationToken parent = new CancellationToken();
+        CancellationToken child = parent.withTimeout(60_000);
+        assertFalse(child.isCancelled());
+        parent.cancel("停止");
+        assertTrue(child.isCancelled());
+        assertEquals("停止", child.getReason());
+        assertThrows(ProcessCancelledException.class, child::throwIfCancelled);
+
+        // 最初の理由を保持すること
+        parent.cancel("2回目");
+        assertEquals("停止", parent.getReason());
+
+        // 制限しない場合は同じトークンを返し、NONEは中断できないこと
+        assertSame(parent, parent.withTimeout(0));
+        assertFalse(CancellationToken.NONE.isCancelled());
+        assertThrows(UnsupportedOperationException.class, CancellationToken.NONE::cancel);
+    }
+
+    /**
+     * 解凍用の一時ディレクトリ（d3w_extract_*）の数
+     */
+    private static int countTempDirectories() throws IOException {
+        int count = 0;
+        Path tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tmp, "d3w_extract_*")) {
+            for (Path ignored : stream) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,116 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionProfileTest {
+
+    @Test
+    void testSelect() {
+        byte[] small = json(100);
+        byte[] medium = json(20 * 1024);
+        byte[] large = json(200 * 1024);
+        byte[] random = new byte[20 * 1024];
+        new Random(0).nextBytes(random);
+
+        assertEquals(CompressionLevel.DEFAULT, CompressionProfile.DEFAULT.select("w1", small));
+        assertEquals(CompressionLevel.DEFAULT, CompressionProfile.DEFAULT.select("w1", random));
+
+        assertEquals(CompressionLevel.STORED, CompressionProfile.LATENCY.select("w1", small), "小さいエントリは無圧縮");
+        assertEquals(CompressionLevel.FAST, CompressionProfile.LATENCY.select("w1", medium));
+        assertEquals(CompressionLevel.STORED, CompressionProfile.LATENCY.select("w1", random), "圧縮が効かないエントリは無圧縮");
+
+        assertEquals(CompressionLevel.MAX, CompressionProfile.SIZE.select("w1", small));
+        assertEquals(CompressionLevel.MAX, CompressionProfile.SIZE.select("w1", large));
+        assertEquals(CompressionLevel.STORED, CompressionProfile.SIZE.select("w1", random), "圧縮が効かないエントリは無圧縮");
+
+        assertEquals(CompressionLevel.STORED, CompressionProfile.BALANCED.select("w1", small));
+        assertEquals(CompressionLevel.FAST, CompressionProfile.BALANCED.select("w1", medium));
+        assertEquals(CompressionLevel.DEFAULT, CompressionProfile.BALANCED.select("w1", large));
+        assertEquals(CompressionLevel.STORED, CompressionProfile.BALANCED.select("w1", random));
+
+        assertEquals(CompressionProfile.BALANCED, CompressionProfile.fromName("Balanced"));
+        assertNull(CompressionProfile.fromName("unknown"));
+    }
+
+    @Test
+    void testBuild_WithPolicy(@TempDir Path tempDir) throws Exception {
+        // 1. サイズの異なるエントリを持つアーカイブを作成
+        D3wArchive archive = new D3wArchive();
+        archive.put("_", json(100));
+        archive.put("w1", json(20 * 1024));
+        archive.put("w2", json(200 * 1024));
+
+        // 2. BALANCEDプロファイルでZIP化
+        Path output = tempDir.resolve("output.d3w");
+        CompressionReport report = D3wBuilder.build(archive, output.toString(), 2, CompressionProfile.BALANCED);
+
+        // 3. エントリごとに選択したレベルが記録されていること（書き込み順）
+        assertEquals(3, report.getEntries().size());
+        assertEquals("_", report.getEntries().get(0).getName());
+        assertEquals("STORED", report.getEntries().get(0).getLevel());
+        assertEquals(100, report.getEntries().get(0).getCompressedSize(), "無圧縮のため圧縮後も同じサイズ");
+        assertEquals("FAST", report.getEntries().get(1).getLevel());
+        assertEquals("DEFAULT", report.getEntries().get(2).getLevel());
+        assertTrue(report.getTotalCompressedSize() < report.getTotalSize());
+
+        // 4. 標準のZipFileで読み込めること（無圧縮のエントリも含む）
+        try (ZipFile zipFile = new ZipFile(output.toFile())) {
+            assertEquals(3, zipFile.size());
+            for (String name : new String[]{"_", "w1", "w2"}) {
+                ZipEntry entry = zipFile.getEntry(name);
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    assertArrayEquals(archive.get(name), readAll(in), name);
+                }
+            }
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("_").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("w1").getMethod());
+        }
+
+        // 5. JSON形式のレポートを出力できること
+        Path reportPath = tempDir.resolve("output.d3w.compression.json");
+        report.writeJson(reportPath);
+        JsonObject json = JsonParser.parseString(
+                new String(Files.readAllBytes(reportPath), StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray entries = json.getAsJsonArray("entries");
+        assertEquals(3, entries.size());
+        assertEquals("w1", entries.get(1).getAsJsonObject().get("name").getAsString());
+        assertEquals(report.getTotalSize(), json.get("totalSize").getAsLong());
+    }
+
+    /**
+     * 指定サイズの（よく圧縮できる）JSON風のデータを生成する
+     */
+    private static byte[] json(int size) {
+        StringBuilder sb = new StringBuilder("{\"fields\":[");
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("{\"name\":\"field").append(i).append("\",\"value\":\"text\"},");
+        }
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.US_ASCII), size);
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+}
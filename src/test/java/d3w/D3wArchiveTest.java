@@ -0,0 +1,106 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class D3wArchiveTest {
+
+    @Test
+    void testOpen_IndexesEntriesWithoutInflating(@TempDir Path tempDir) throws Exception {
+        // 1. ZipOutputStreamでD3Wファイルを作成（JSONエントリ以外も含む）
+        Map<String, String> contents = new LinkedHashMap<>();
+        contents.put("s2", "{\"name\":\"サービス2\"}");
+        contents.put("w1", "{\"name\":\"ワーク1\"}");
+        contents.put("_", "{\"works\":[]}");
+        contents.put("e1", "{\"name\":\"エンベロープ\"}");
+        contents.put("s1", "{\"name\":\"サービス1\"}");
+        contents.put("w10", "{\"name\":\"ワーク10\"}");
+        contents.put("readme.txt", "JSONではないエントリ");
+
+        Path d3wFile = tempDir.resolve("template.d3w");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(d3wFile))) {
+            for (Map.Entry<String, String> entry : contents.entrySet()) {
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                zos.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+
+        // 2. セントラルディレクトリのみを読み込む
+        D3wArchive archive = D3wArchive.read(d3wFile);
+        assertEquals(7, archive.size());
+
+        // 3. 種別と番号で検索できること
+        assertEquals("w1", archive.find(D3wEntryName.Kind.WORK, 1).getName());
+        assertEquals("_", archive.find(D3wEntryName.Kind.MAIN, 0).getName());
+        assertNull(archive.find(D3wEntryName.Kind.WORK, 2));
+        List<D3wEntryName> works = archive.findEntries(D3wEntryName.Kind.WORK);
+        assertEquals(2, works.size());
+        assertEquals("w1", works.get(0).getName());
+        assertEquals("w10", works.get(1).getName(), "番号順であること");
+
+        // 4. findJsonFilesと同じ順序であること（JSONエントリ以外は含まない）
+        assertEquals(Arrays.asList("_", "e1", "s1", "w1", "s2", "w10"), archive.findJsonEntryNames());
+
+        // 5. 内容は要求した時点で解凍されること
+        assertNotNull(archive.getRaw("w1"), "読み込み直後は圧縮済みのまま保持していること");
+        assertEquals(contents.get("w1"), new String(archive.get("w1"), StandardCharsets.UTF_8));
+        assertEquals(contents.get("readme.txt"), new String(archive.get("readme.txt"), StandardCharsets.UTF_8));
+
+        // 6. 削除・置き換えが索引に反映されること
+        archive.remove("w10");
+        assertNull(archive.find(D3wEntryName.Kind.WORK, 10));
+        archive.put("w2", "{}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("w2", archive.find(D3wEntryName.Kind.WORK, 2).getName());
+        assertNull(archive.getRaw("w2"));
+        assertEquals(Arrays.asList("_", "e1", "s1", "w1", "s2", "w2"), archive.findJsonEntryNames());
+    }
+
+    @Test
+    void testReadArchive_SurvivesOverwrite(@TempDir Path tempDir) throws Exception {
+        // 1. 雛型を読み込む
+        Path d3wFile = tempDir.resolve("template.d3w");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(d3wFile))) {
+            zos.putNextEntry(new ZipEntry("_"));
+            zos.write("{\"works\":[]}".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("w1"));
+            zos.write("{\"name\":\"ワーク1\"}".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+        D3wArchive archive = D3wExtractor.readArchive(d3wFile.toString());
+
+        // 2. 読み込んだ後にファイルを上書き（切り詰め）する
+        // メモリマップしている場合は、切り詰めた範囲へのアクセスがエラーになる
+        Files.write(d3wFile, new byte[]{0});
+
+        // 3. 読み込んだ内容は変わらないこと
+        assertEquals("{\"name\":\"ワーク1\"}", new String(archive.get("w1"), StandardCharsets.UTF_8));
+        assertEquals("{\"works\":[]}", new String(archive.get("_"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testParseEntryName() {
+        assertEquals(D3wEntryName.Kind.MAIN, D3wEntryName.parse("_").getKind());
+        assertEquals(D3wEntryName.Kind.ENVELOPE, D3wEntryName.parse("e3").getKind());
+        assertEquals(12, D3wEntryName.parse("w12").getNumber());
+
+        assertNull(D3wEntryName.parse("w"));
+        assertNull(D3wEntryName.parse("x1"));
+        assertNull(D3wEntryName.parse("w1a"));
+        assertNull(D3wEntryName.parse("w99999999999"), "intに収まらない番号は対象外");
+        assertNull(D3wEntryName.parse("__"));
+    }
+}
@@ -5,13 +5,19 @@ import com.google.gson.JsonObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -177,6 +183,335 @@ class D3wProcessorTest {
         assertEquals("w3", work3.get("path").getAsString());
     }
 
+    @Test
+    void testProcess_InMemory(@TempDir Path tempDir) throws Exception {
+        // 1. テスト用の雛型.d3wファイルとYAMLファイルを作成
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        Path yaml1 = createTestYaml(tempDir, "work1.yaml",
+                "テストワーク1", "メモ1", "件名1", "template1",
+                Arrays.asList("項目01", "項目02"),
+                Arrays.asList("Id", "Name", "Amount__c"));
+        Path yaml2 = createTestYaml(tempDir, "work2.yaml",
+                "テストワーク2", "メモ2", "件名2", "template2",
+                Arrays.asList("項目A", "項目B"),
+                Arrays.asList("Id", "Status__c"));
+        List<String> yamlPaths = Arrays.asList(yaml1.toString(), yaml2.toString());
+
+        // 2. 一時ディレクトリ経由とメモリ上の両方で処理を実行
+        Path diskOutput = tempDir.resolve("output_disk.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, diskOutput.toString());
+
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        Path memoryOutput = tempDir.resolve("output_memory.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, memoryOutput.toString(), options);
+
+        // 3. 同じエントリが同じ内容で生成されていること
+        D3wArchive diskArchive = D3wExtractor.readArchive(diskOutput.toString());
+        D3wArchive memoryArchive = D3wExtractor.readArchive(memoryOutput.toString());
+
+        assertEquals(Arrays.asList("_", "w1", "w2"), memoryArchive.findJsonEntryNames());
+        assertEquals(diskArchive.findJsonEntryNames(), memoryArchive.findJsonEntryNames());
+        for (String name : diskArchive.findJsonEntryNames()) {
+            assertArrayEquals(diskArchive.get(name), memoryArchive.get(name), name + "の内容が一致すること");
+        }
+
+        JsonObject w2Content = JsonEditor.readJson(memoryArchive.get("w2"));
+        assertEquals("テストワーク2", w2Content.get("name").getAsString());
+        assertEquals("", w2Content.get("key").getAsString());
+    }
+
+    @Test
+    void testProcess_InMemory_PassesThroughUnchangedEntries(@TempDir Path tempDir) throws Exception {
+        // 1. e1, s1, s2を含むテストリソースの雛型を使用
+        Path templateD3w = tempDir.resolve("Box.d3w");
+        try (InputStream in = Objects.requireNonNull(
+                getClass().getResourceAsStream("/templates/Box20251229184004.d3w"))) {
+            Files.copy(in, templateD3w);
+        }
+        Path yaml1 = createTestYaml(tempDir, "work1.yaml",
+                "テストワーク1", "メモ1", "件名1", "template1",
+                Arrays.asList("項目01", "項目02"),
+                Arrays.asList("Id", "Name"));
+
+        // 2. メモリ上で処理を実行
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        Path outputD3w = tempDir.resolve("output.d3w");
+        D3wProcessor.process(templateD3w.toString(),
+                Collections.singletonList(yaml1.toString()), outputD3w.toString(), options);
+
+        // 3. 変更していないエントリは圧縮済みデータがそのまま書き写されていること
+        D3wArchive template = D3wExtractor.readArchive(templateD3w.toString());
+        D3wArchive output = D3wExtractor.readArchive(outputD3w.toString());
+        for (String name : Arrays.asList("e1", "s1", "s2")) {
+            assertArrayEquals(template.getRaw(name).getCompressedData(), output.getRaw(name).getCompressedData(),
+                    name + "の圧縮済みデータが一致すること");
+            assertEquals(template.getRaw(name).getCrc(), output.getRaw(name).getCrc());
+        }
+
+        // 4. ZipInputStreamで解凍しても正しく読めること
+        Path extractedDir = D3wExtractor.extractToTemp(outputD3w.toString());
+        assertArrayEquals(template.get("e1"), Files.readAllBytes(extractedDir.resolve("e1")));
+        assertEquals("テストワーク1", JsonEditor.readJson(extractedDir.resolve("w1")).get("name").getAsString());
+    }
+
+    @Test
+    void testProcess_Parallel(@TempDir Path tempDir) throws Exception {
+        // 1. テスト用の雛型.d3wファイルとYAMLファイルを20個作成
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        List<String> yamlPaths = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Path yaml = createTestYaml(tempDir, "work" + i + ".yaml",
+                    "テストワーク" + i, "メモ" + i, "件名" + i, "template" + i,
+                    Arrays.asList("項目" + i, "項目X"),
+                    Arrays.asList("Id", "Name" + i));
+            yamlPaths.add(yaml.toString());
+        }
+
+        // 2. 逐次と並列の両方で処理を実行
+        ProcessOptions sequentialOptions = new ProcessOptions();
+        sequentialOptions.setInMemory(true);
+        Path sequentialOutput = tempDir.resolve("output_sequential.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, sequentialOutput.toString(), sequentialOptions);
+
+        ProcessOptions parallelOptions = new ProcessOptions();
+        parallelOptions.setInMemory(true);
+        parallelOptions.setParallelism(4);
+        Path parallelOutput = tempDir.resolve("output_parallel.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, parallelOutput.toString(), parallelOptions);
+
+        // 3. 並列でもYAMLの順序どおりに同じ内容が生成されていること
+        D3wArchive sequentialArchive = D3wExtractor.readArchive(sequentialOutput.toString());
+        D3wArchive parallelArchive = D3wExtractor.readArchive(parallelOutput.toString());
+        assertEquals(sequentialArchive.findJsonEntryNames(), parallelArchive.findJsonEntryNames());
+        for (String name : sequentialArchive.findJsonEntryNames()) {
+            assertArrayEquals(sequentialArchive.get(name), parallelArchive.get(name), name + "の内容が一致すること");
+        }
+
+        // 一時ディレクトリ経由でも並列に構築したZIPが正しく読めること
+        ProcessOptions parallelDiskOptions = new ProcessOptions();
+        parallelDiskOptions.setParallelism(4);
+        Path parallelDiskOutput = tempDir.resolve("output_parallel_disk.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, parallelDiskOutput.toString(), parallelDiskOptions);
+        Path extractedDir = D3wExtractor.extractToTemp(parallelDiskOutput.toString());
+        for (String name : sequentialArchive.findJsonEntryNames()) {
+            assertArrayEquals(sequentialArchive.get(name), Files.readAllBytes(extractedDir.resolve(name)),
+                    name + "の内容が一致すること");
+        }
+
+        JsonArray works = JsonEditor.readJson(parallelArchive.get("_")).getAsJsonArray("works");
+        assertEquals(20, works.size());
+        for (int i = 0; i < works.size(); i++) {
+            JsonObject work = works.get(i).getAsJsonObject();
+            assertEquals("テストワーク" + (i + 1), work.get("name").getAsString());
+            assertEquals("w" + (i + 1), work.get("path").getAsString());
+        }
+    }
+
+    @Test
+    void testProcess_Streaming(@TempDir Path tempDir) throws Exception {
+        // 1. テスト用の雛型.d3wファイルとYAMLファイルを20個作成
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        List<String> yamlPaths = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Path yaml = createTestYaml(tempDir, "work" + i + ".yaml",
+                    "テストワーク" + i, "メモ" + i, "件名" + i, "template" + i,
+                    Arrays.asList("項目" + i, "項目X"),
+                    Arrays.asList("Id", "Name" + i));
+            yamlPaths.add(yaml.toString());
+        }
+
+        // 2. 通常の処理と、ストリーミング生成（逐次・並列）を実行
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        Path expectedOutput = tempDir.resolve("output_expected.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, expectedOutput.toString(), options);
+        D3wArchive expected = D3wExtractor.readArchive(expectedOutput.toString());
+
+        for (int parallelism : new int[]{1, 4}) {
+            ProcessOptions streamingOptions = new ProcessOptions();
+            streamingOptions.setStreaming(true);
+            streamingOptions.setParallelism(parallelism);
+            Path output = tempDir.resolve("output_streaming_" + parallelism + ".d3w");
+            D3wProcessor.process(templateD3w.toString(), yamlPaths, output.toString(), streamingOptions);
+
+            // 3. 同じ内容のエントリが生成され、_ファイルが最後のエントリであること
+            D3wArchive actual = D3wExtractor.readArchive(output.toString());
+            assertEquals(expected.findJsonEntryNames(), actual.findJsonEntryNames());
+            for (String name : expected.findJsonEntryNames()) {
+                assertArrayEquals(expected.get(name), actual.get(name), name + "の内容が一致すること");
+            }
+            List<RawZipEntry> entries = RawZipReader.read(Files.readAllBytes(output));
+            assertEquals("_", entries.get(entries.size() - 1).getName(), "_ファイルを最後に書き込むこと");
+        }
+    }
+
+    @Test
+    void testProcessDocuments(@TempDir Path tempDir) throws Exception {
+        // 1. ワークごとのYAMLファイルと、それらを「---」区切りで1つにまとめたYAMLファイルを作成
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        List<String> yamlPaths = new ArrayList<>();
+        ByteArrayOutputStream documents = new ByteArrayOutputStream();
+        for (int i = 1; i <= 10; i++) {
+            Path yaml = createTestYaml(tempDir, "work" + i + ".yaml",
+                    "テストワーク" + i, "メモ" + i, "件名" + i, "template" + i,
+                    Arrays.asList("項目" + i, "項目X"),
+                    Arrays.asList("Id", "Name" + i));
+            yamlPaths.add(yaml.toString());
+            documents.write("---\n".getBytes(StandardCharsets.UTF_8));
+            documents.write(Files.readAllBytes(yaml));
+        }
+        Path worksYaml = tempDir.resolve("works.yml");
+        Files.write(worksYaml, documents.toByteArray());
+
+        // 2. ワークごとのYAMLファイルから生成した場合と同じ内容になること
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        Path expectedOutput = tempDir.resolve("output_files.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamlPaths, expectedOutput.toString(), options);
+        Path output = tempDir.resolve("output_documents.d3w");
+        options.setParallelism(4);
+        D3wProcessor.processDocuments(templateD3w.toString(), worksYaml.toString(), output.toString(), options);
+
+        D3wArchive expected = D3wExtractor.readArchive(expectedOutput.toString());
+        D3wArchive actual = D3wExtractor.readArchive(output.toString());
+        assertEquals(expected.findJsonEntryNames(), actual.findJsonEntryNames());
+        for (String name : expected.findJsonEntryNames()) {
+            assertArrayEquals(expected.get(name), actual.get(name), name + "の内容が一致すること");
+        }
+    }
+
+    @Test
+    void testProcessStream_DuplicateWorkName_ShouldFail(@TempDir Path tempDir) throws Exception {
+        // 途中でワーク名の重複が見つかった場合、途中まで書き込んだ出力ファイルを削除すること
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        PreparedTemplate template = PreparedTemplate.prepare(templateD3w.toString(), ProgressListener.SILENT);
+        List<String> yamlPaths = new ArrayList<>();
+        for (String workName : Arrays.asList("テストワーク1", "テストワーク2", "テストワーク1")) {
+            yamlPaths.add(createTestYaml(tempDir, "work" + yamlPaths.size() + ".yaml",
+                    workName, "メモ", "件名", "template",
+                    Collections.singletonList("項目01"),
+                    Arrays.asList("Id", "Name")).toString());
+        }
+        Path outputD3w = tempDir.resolve("output.d3w");
+        ProcessOptions options = new ProcessOptions();
+        options.setProgressListener(ProgressListener.SILENT);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+                D3wProcessor.processStream(template, YamlInfoLoader.iterate(yamlPaths), -1, outputD3w.toString(),
+                        options));
+        assertTrue(exception.getMessage().contains("重複したワーク名"));
+        assertFalse(Files.exists(outputD3w));
+    }
+
+    @Test
+    void testProcess_Metrics(@TempDir Path tempDir) throws Exception {
+        // 1. 3つのYAMLで計測レポートを出力して処理を実行
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        List<String> yamlPaths = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            yamlPaths.add(createTestYaml(tempDir, "work" + i + ".yaml",
+                    "テストワーク" + i, "メモ" + i, "件名" + i, "template" + i,
+                    Arrays.asList("項目" + i), Arrays.asList("Id")).toString());
+        }
+        for (boolean inMemory : new boolean[]{false, true}) {
+            ProcessOptions options = new ProcessOptions();
+            options.setInMemory(inMemory);
+            options.setMetrics(true);
+            Path outputD3w = tempDir.resolve("output_" + inMemory + ".d3w");
+            D3wProcessor.process(templateD3w.toString(), yamlPaths, outputD3w.toString(), options);
+
+            // 2. 「出力ファイル名.metrics.json」にフェーズごとの計測結果が書き出されていること
+            Path metricsPath = tempDir.resolve(outputD3w.getFileName() + ".metrics.json");
+            assertTrue(Files.exists(metricsPath), "計測レポートが出力されること");
+            JsonObject metrics = JsonEditor.readJson(metricsPath);
+            assertEquals(3, metrics.get("works").getAsInt());
+
+            JsonArray phases = metrics.getAsJsonArray("phases");
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < phases.size(); i++) {
+                names.add(phases.get(i).getAsJsonObject().get("name").getAsString());
+            }
+            assertEquals(Arrays.asList(ProcessMetrics.YAML, ProcessMetrics.EXTRACT, ProcessMetrics.GENERATE,
+                    ProcessMetrics.MAIN, ProcessMetrics.BUILD), names, "フェーズが処理順に記録されること");
+
+            JsonObject yaml = phases.get(0).getAsJsonObject();
+            assertEquals(3, yaml.get("entries").getAsInt());
+            long yamlBytes = 0;
+            for (String yamlPath : yamlPaths) {
+                yamlBytes += Files.size(Paths.get(yamlPath));
+            }
+            assertEquals(yamlBytes, yaml.get("bytesRead").getAsLong(), "YAMLファイルのサイズの合計であること");
+
+            JsonObject generate = phases.get(2).getAsJsonObject();
+            assertEquals(3, generate.getAsJsonObject("latency").get("count").getAsInt(), "ワーク1件ごとに記録されること");
+            assertTrue(generate.getAsJsonObject("latency").get("p50Millis").getAsDouble()
+                    <= generate.getAsJsonObject("latency").get("maxMillis").getAsDouble());
+
+            JsonObject build = phases.get(4).getAsJsonObject();
+            assertEquals(Files.size(outputD3w), build.get("bytesWritten").getAsLong(), "出力ファイルのサイズであること");
+        }
+    }
+
+    @Test
+    void testProcess_Incremental(@TempDir Path tempDir) throws Exception {
+        // 1. 3つのYAMLで初回ビルド（初回は全ワークを生成。再利用を判別するため無圧縮で出力）
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        Path yaml1 = createTestYaml(tempDir, "work1.yaml", "ワーク1", "メモ1", "件名1", "template1",
+                Arrays.asList("項目01"), Arrays.asList("Id"));
+        Path yaml2 = createTestYaml(tempDir, "work2.yaml", "ワーク2", "メモ2", "件名2", "template2",
+                Arrays.asList("項目02"), Arrays.asList("Id"));
+        Path yaml3 = createTestYaml(tempDir, "work3.yaml", "ワーク3", "メモ3", "件名3", "template3",
+                Arrays.asList("項目03"), Arrays.asList("Id"));
+
+        ProcessOptions options = new ProcessOptions();
+        options.setIncremental(true);
+        options.setCompressionPolicy((name, content) -> CompressionLevel.STORED);
+        Path outputD3w = tempDir.resolve("output.d3w");
+        D3wProcessor.process(templateD3w.toString(),
+                Arrays.asList(yaml1.toString(), yaml2.toString(), yaml3.toString()), outputD3w.toString(), options);
+        assertTrue(Files.exists(BuildManifest.pathFor(outputD3w.toString())), "マニフェストが出力されること");
+
+        // 2. ワーク1を削除、ワーク3を変更、ワーク4を追加して差分ビルド（順序: 3, 2, 4）
+        Path yaml3Changed = createTestYaml(tempDir, "work3.yaml", "ワーク3", "メモ3（変更）", "件名3", "template3",
+                Arrays.asList("項目03"), Arrays.asList("Id"));
+        Path yaml4 = createTestYaml(tempDir, "work4.yaml", "ワーク4", "メモ4", "件名4", "template4",
+                Arrays.asList("項目04"), Arrays.asList("Id"));
+        options.setCompressionPolicy(CompressionProfile.DEFAULT);
+        List<String> yamls = Arrays.asList(yaml3Changed.toString(), yaml2.toString(), yaml4.toString());
+        D3wProcessor.process(templateD3w.toString(), yamls, outputD3w.toString(), options);
+
+        // 3. 変更のないワーク2は前回の出力から書き写され（無圧縮のまま）、w2に番号が変わっていること
+        D3wArchive output = D3wExtractor.readArchive(outputD3w.toString());
+        assertEquals(Arrays.asList("_", "w1", "w2", "w3"), output.findJsonEntryNames());
+        assertEquals(RawZipEntry.STORED, output.getRaw("w2").getMethod(), "ワーク2は再利用されること");
+        assertEquals(RawZipEntry.DEFLATED, output.getRaw("w1").getMethod(), "変更したワーク3は生成されること");
+        assertEquals(RawZipEntry.DEFLATED, output.getRaw("w3").getMethod(), "追加したワーク4は生成されること");
+
+        // 4. 全体を生成し直した場合と同じ内容であること
+        Path fullD3w = tempDir.resolve("full.d3w");
+        D3wProcessor.process(templateD3w.toString(), yamls, fullD3w.toString(), new ProcessOptions());
+        D3wArchive full = D3wExtractor.readArchive(fullD3w.toString());
+        for (String name : full.findJsonEntryNames()) {
+            assertEquals(JsonEditor.readJson(full.get(name)), JsonEditor.readJson(output.get(name)), name);
+        }
+        JsonArray works = JsonEditor.readJson(output.get("_")).getAsJsonArray("works");
+        assertEquals(3, works.size());
+        assertEquals("ワーク2", works.get(1).getAsJsonObject().get("name").getAsString());
+        assertEquals("w2", works.get(1).getAsJsonObject().get("path").getAsString());
+
+        // 5. 雛型が変わった場合はすべて生成し直すこと
+        try (InputStream in = Objects.requireNonNull(
+                getClass().getResourceAsStream("/templates/Box20251229184004.d3w"))) {
+            Files.copy(in, templateD3w, StandardCopyOption.REPLACE_EXISTING);
+        }
+        D3wProcessor.process(templateD3w.toString(), yamls, outputD3w.toString(), options);
+        output = D3wExtractor.readArchive(outputD3w.toString());
+        assertEquals(RawZipEntry.DEFLATED, output.getRaw("w2").getMethod(), "雛型が変わった場合は再利用しないこと");
+        assertNotNull(output.getRaw("e1"), "新しい雛型のエントリが含まれること");
+    }
+
     @Test
     void testProcess_NoW1File_ShouldFail(@TempDir Path tempDir) throws Exception {
         // 1. w1ファイルが存在しない雛型.d3wファイルを作成
@@ -227,6 +562,30 @@ class D3wProcessorTest {
         assertTrue(exception.getMessage().contains("w2以降のファイルが存在します"));
     }
 
+    @Test
+    void testProcess_DuplicateWorkName_ShouldFail(@TempDir Path tempDir) throws Exception {
+        // 1. 同じワーク名のYAMLファイルを2つ作成
+        Path templateD3w = createRealisticTemplateD3w(tempDir);
+        Path yaml1 = createTestYaml(tempDir, "work1.yaml",
+                "テストワーク1", "メモ1", "件名1", "template1",
+                Collections.singletonList("項目01"),
+                Arrays.asList("Id", "Name"));
+        Path yaml2 = createTestYaml(tempDir, "work2.yaml",
+                "テストワーク1", "メモ2", "件名2", "template2",
+                Collections.singletonList("項目01"),
+                Arrays.asList("Id", "Name"));
+        Path outputD3w = tempDir.resolve("output.d3w");
+
+        // 2. プロセスを終了せずに例外となり、出力ファイルが作成されないこと
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> D3wProcessor.process(
+                templateD3w.toString(),
+                Arrays.asList(yaml1.toString(), yaml2.toString()),
+                outputD3w.toString()
+        ));
+        assertTrue(exception.getMessage().contains("重複したワーク名"));
+        assertFalse(Files.exists(outputD3w));
+    }
+
     /**
      * 実際の構造に近いテスト用の雛型.d3wファイルを作成
      */
@@ -0,0 +1,243 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class D3wServerTest {
+
+    @Test
+    void testProcess_ViaClient(@TempDir Path tempDir) throws Exception {
+        Path template = copyResource("/templates/Box20251229184004.d3w", tempDir.resolve("template.d3w"));
+        Path yaml1 = copyResource("/configs/01_TEST_YAML.yaml", tempDir.resolve("01_TEST_YAML.yaml"));
+        Path yaml2 = copyResource("/configs/02_TEST_YAML.yaml", tempDir.resolve("02_TEST_YAML.yaml"));
+
+        ProcessOptions options = new ProcessOptions();
+        options.setParallelism(2);
+        D3wServer server = new D3wServer(0, options);
+        server.start();
+        try {
+            // 1. ファイルパスで指定したジョブ
+            Path output1 = tempDir.resolve("out1.d3w");
+            JsonObject response = D3wClient.process(server.getPort(), template.toString(),
+                    Arrays.asList(yaml1.toString(), yaml2.toString()), output1.toString());
+            assertTrue(response.get("success").getAsBoolean(), response.toString());
+            assertEquals(2, response.get("works").getAsInt());
+            assertEquals(Arrays.asList("_", "e1", "s1", "w1", "s2", "w2"),
+                    D3wArchive.read(output1).findJsonEntryNames());
+
+            // 2. インラインYAMLで指定したジョブ（同じサーバーで続けて処理できること）
+            Path output2 = tempDir.resolve("out2.d3w");
+            JsonObject request = new JsonObject();
+            request.addProperty("template", template.toString());
+            JsonArray inlineYamls = new JsonArray();
+            inlineYamls.add("workName: インラインワーク\ntemplateName: 帳票\n");
+            request.add("inlineYamls", inlineYamls);
+            request.addProperty("output", output2.toString());
+            response = D3wClient.post(server.getPort(), "/process", request);
+            assertTrue(response.get("success").getAsBoolean(), response.toString());
+            JsonObject work = JsonEditor.readJson(D3wArchive.read(output2).get("w1"));
+            assertEquals("インラインワーク", work.get("name").getAsString());
+
+            // 3. 失敗したジョブはエラーを返し、サーバーは動作を続けること
+            response = D3wClient.process(server.getPort(), tempDir.resolve("missing.d3w").toString(),
+                    Collections.singletonList(yaml1.toString()), tempDir.resolve("out3.d3w").toString());
+            assertFalse(response.get("success").getAsBoolean());
+            assertNotNull(response.get("error"));
+
+            request = new JsonObject();
+            request.addProperty("template", template.toString());
+            response = D3wClient.post(server.getPort(), "/process", request);
+            assertFalse(response.get("success").getAsBoolean(), "outputがない場合はエラー");
+            assertEquals("IllegalArgumentException", response.get("errorType").getAsString());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testPost_RejectsNonJsonContentType() throws Exception {
+        D3wServer server = new D3wServer(0, new ProcessOptions());
+        server.start();
+        try {
+            String body = "{\"template\": \"/data/template.d3w\"}";
+            // フォームやtext/plainはブラウザから送信できるため拒否すること
+            assertEquals(415, postRaw(server.getPort(), "/process", "text/plain", null, body));
+            assertEquals(415, postRaw(server.getPort(), "/process",
+                    "application/x-www-form-urlencoded", null, body));
+            assertEquals(415, postRaw(server.getPort(), "/process", null, null, body));
+            assertEquals(415, postRaw(server.getPort(), "/shutdown", "text/plain", null, "{}"));
+
+            // 拒否した後もサーバーは動作を続けること
+            JsonObject response = D3wClient.post(server.getPort(), "/process", new JsonObject());
+            assertEquals("IllegalArgumentException", response.get("errorType").getAsString(),
+                    "application/jsonのリクエストは受け付ける");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testPost_RejectsOrigin() throws Exception {
+        D3wServer server = new D3wServer(0, new ProcessOptions());
+        server.start();
+        try {
+            // Content-Typeがapplication/jsonでも、ブラウザのページからのリクエストは拒否すること
+            assertEquals(403, postRaw(server.getPort(), "/process", "application/json",
+                    "http://example.com", "{}"));
+            assertEquals(403, postRaw(server.getPort(), "/shutdown", "application/json",
+                    "http://example.com", "{}"));
+
+            // 停止していないこと
+            JsonObject response = D3wClient.post(server.getPort(), "/process", new JsonObject());
+            assertEquals("IllegalArgumentException", response.get("errorType").getAsString(),
+                    "/shutdownが拒否され、サーバーが動作を続けている");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testProcess_RejectsUnsafeOutput(@TempDir Path tempDir) throws Exception {
+        Path template = copyResource("/templates/Box20251229184004.d3w", tempDir.resolve("template.d3w"));
+        Path outputRoot = Files.createDirectories(tempDir.resolve("out"));
+        Path victim = tempDir.resolve("victim.txt");
+        Files.write(victim, "上書きされないこと".getBytes(StandardCharsets.UTF_8));
+
+        ProcessOptions options = new ProcessOptions();
+        options.setServerOutputRoot(outputRoot.toString());
+        D3wServer server = new D3wServer(0, options);
+        server.start();
+        try {
+            String[] rejected = {
+                    victim.toString(),                                       // .d3w以外
+                    "out/relative.d3w",                                      // 相対パス
+                    template.toString(),                                     // 雛型
+                    tempDir.resolve("other.d3w").toString(),                 // 出力を許可するディレクトリの外
+                    outputRoot.resolve("../escaped.d3w").toString(),         // ..で外に出る
+            };
+            for (String output : rejected) {
+                JsonObject response = D3wClient.process(server.getPort(), template.toString(),
+                        Collections.<String>emptyList(), output);
+                assertFalse(response.get("success").getAsBoolean(), "受け付けないこと: " + output);
+                assertEquals("IllegalArgumentException", response.get("errorType").getAsString(), output);
+            }
+            assertEquals("上書きされないこと", new String(Files.readAllBytes(victim), StandardCharsets.UTF_8));
+            assertFalse(Files.exists(tempDir.resolve("other.d3w")));
+            assertFalse(Files.exists(tempDir.resolve("escaped.d3w")));
+
+            // 出力を許可するディレクトリ以下の.d3wファイルには出力できること
+            Path output = outputRoot.resolve("sub/result.d3w");
+            JsonObject request = new JsonObject();
+            request.addProperty("template", template.toString());
+            JsonArray inlineYamls = new JsonArray();
+            inlineYamls.add("workName: ワーク\n");
+            request.add("inlineYamls", inlineYamls);
+            request.addProperty("output", output.toString());
+            JsonObject response = D3wClient.post(server.getPort(), "/process", request);
+            assertTrue(response.get("success").getAsBoolean(), response.toString());
+            assertTrue(Files.exists(output));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testProcess_RejectsGlobalTag(@TempDir Path tempDir) throws Exception {
+        Path template = copyResource("/templates/Box20251229184004.d3w", tempDir.resolve("template.d3w"));
+        D3wServer server = new D3wServer(0, new ProcessOptions());
+        server.start();
+        try {
+            // グローバルタグで任意のクラスを生成させるYAML（CVE-2022-1471）
+            JsonObject request = new JsonObject();
+            request.addProperty("template", template.toString());
+            JsonArray inlineYamls = new JsonArray();
+            inlineYamls.add("workName: ワーク\nextra: !!d3w.D3wServerTest$Gadget {}\n");
+            request.add("inlineYamls", inlineYamls);
+            request.addProperty("output", tempDir.resolve("out.d3w").toString());
+
+            JsonObject response = D3wClient.post(server.getPort(), "/process", request);
+            assertFalse(response.get("success").getAsBoolean(), response.toString());
+            assertFalse(Gadget.created, "タグで指定したクラスを生成しないこと");
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * YAMLのタグで生成されたかを記録するクラス
+     */
+    public static class Gadget {
+        static volatile boolean created;
+
+        public Gadget() {
+            created = true;
+        }
+    }
+
+    @Test
+    void testIsJsonContentType() {
+        assertTrue(D3wServer.isJsonContentType("application/json"));
+        assertTrue(D3wServer.isJsonContentType("application/json; charset=UTF-8"));
+        assertTrue(D3wServer.isJsonContentType("Application/JSON"));
+        assertFalse(D3wServer.isJsonContentType(null));
+        assertFalse(D3wServer.isJsonContentType("text/plain"));
+        assertFalse(D3wServer.isJsonContentType("application/jsonp"));
+    }
+
+    /**
+     * POSTリクエストを直接送信し、ステータスコードを返す
+     * （HttpURLConnectionはOriginヘッダーを設定できないため、ソケットで送信する）
+     */
+    private static int postRaw(int port, String path, String contentType, String origin, String body)
+            throws Exception {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder request = new StringBuilder();
+        request.append("POST ").append(path).append(" HTTP/1.1\r\n");
+        request.append("Host: 127.0.0.1:").append(port).append("\r\n");
+        if (contentType != null) {
+            request.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        if (origin != null) {
+            request.append("Origin: ").append(origin).append("\r\n");
+        }
+        request.append("Content-Length: ").append(bytes.length).append("\r\n");
+        request.append("Connection: close\r\n\r\n");
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.flush();
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String statusLine = in.readLine();
+            assertNotNull(statusLine, "レスポンスがない");
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+
+    private Path copyResource(String resourcePath, Path target) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
+            assertNotNull(in, "Resource not found: " + resourcePath);
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,135 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 大きい雛型・大量のYAMLファイルを合成するテスト用のジェネレーター
+ * <p>
+ * 雛型は同梱の防衛省サンプルワーク.d3wを元に、w1のdatasourceのフィールドと
+ * テキストデータセットのパラメータ（content.document.template.params[0].values）を指定件数に置き換えて生成する。
+ * フィールド名は同梱の雛型と同じ日本語の項目名を、件数に応じて連番付きで繰り返す。
+ */
+final class FixtureGenerator {
+
+    /** 元にする同梱の雛型 */
+    static final String BASE_TEMPLATE = "/templates/防衛省サンプルワーク.d3w";
+
+    /** フィールド名の元にする日本語の項目名 */
+    private static final String[] FIELD_NAMES = {
+            "申請書名", "申請区分", "組合員等記号番号", "支払予定日", "決定額",
+            "組合員氏名", "組合員氏名（フリガナ）", "組合員住所", "所属部局化（部隊）名", "連絡先電話番号（内線・携帯）",
+            "療養者氏名", "療養者生年月日", "傷病名", "保健医療機関名称", "療養に要した費用",
+    };
+
+    private FixtureGenerator() {
+    }
+
+    /**
+     * 指定件数分のフィールド名を生成する（2巡目以降は _2、_3... を付ける）
+     */
+    static List<String> fieldNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int round = i / FIELD_NAMES.length;
+            names.add(FIELD_NAMES[i % FIELD_NAMES.length] + (round == 0 ? "" : "_" + (round + 1)));
+        }
+        return names;
+    }
+
+    /**
+     * フィールド数を指定した雛型の.d3wファイルを生成する
+     *
+     * @param output               出力する.d3wファイルのパス
+     * @param datasourceFieldCount datasourceのフィールド数
+     * @param paramFieldCount      テキストデータセットのパラメータのフィールド数
+     * @return 出力した.d3wファイルのパス
+     */
+    static Path createTemplate(Path output, int datasourceFieldCount, int paramFieldCount) throws IOException {
+        D3wArchive archive = D3wArchive.read(ByteBuffer.wrap(readResource(BASE_TEMPLATE)));
+        JsonObject work = JsonEditor.readJson(archive.get("w1"));
+        JsonObject content = work.getAsJsonObject("content");
+
+        content.getAsJsonObject("datasource").add("fields", toArray(fieldNames(datasourceFieldCount), false));
+        content.getAsJsonObject("document").getAsJsonObject("template").getAsJsonArray("params")
+                .get(0).getAsJsonObject().add("values", toArray(fieldNames(paramFieldCount), true));
+
+        archive.put("w1", JsonEditor.toJsonBytes(work));
+        D3wBuilder.build(archive, output.toString());
+        return output;
+    }
+
+    /**
+     * ワーク設定のYAMLファイルを指定件数生成する
+     * ワーク名は「合成ワーク_00001」のように連番で一意にする
+     *
+     * @param dir                   出力先のディレクトリ
+     * @param count                 YAMLファイルの件数
+     * @param datasourceFieldCount  datasourceFieldsの件数
+     * @param textDatasetFieldCount textDatasetFieldsの件数
+     * @return 生成したYAMLファイルのパス（ワーク番号順）
+     */
+    static List<String> createYamls(Path dir, int count, int datasourceFieldCount, int textDatasetFieldCount)
+            throws IOException {
+        Files.createDirectories(dir);
+        // フィールドの部分はすべてのYAMLで同じなので1回だけ組み立てる
+        String fields = "textDatasetFields:\n" + toYamlList(fieldNames(textDatasetFieldCount))
+                + "datasourceFields:\n" + toYamlList(fieldNames(datasourceFieldCount));
+
+        List<String> yamlPaths = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String number = String.format("%05d", i);
+            String yaml = "workName: \"合成ワーク_" + number + "\"\n"
+                    + "memoText: \"合成したワーク設定_" + number + "\"\n"
+                    + "subject: \"合成件名_" + number + "\"\n"
+                    + "documentName: \"[文書名]\"\n"
+                    + "templateName: \"[テンプレート名]\"\n"
+                    + fields;
+            Path yamlPath = dir.resolve(number + "_合成ワーク.yaml");
+            Files.write(yamlPath, yaml.getBytes(StandardCharsets.UTF_8));
+            yamlPaths.add(yamlPath.toString());
+        }
+        return yamlPaths;
+    }
+
+    private static JsonArray toArray(List<String> names, boolean bracketed) {
+        JsonArray array = new JsonArray(names.size());
+        for (String name : names) {
+            array.add(bracketed ? "[" + name + "]" : name);
+        }
+        return array;
+    }
+
+    private static String toYamlList(List<String> names) {
+        StringBuilder builder = new StringBuilder();
+        for (String name : names) {
+            builder.append("  - \"").append(name).append("\"\n");
+        }
+        return builder.toString();
+    }
+
+    private static byte[] readResource(String resourcePath) throws IOException {
+        try (InputStream in = FixtureGenerator.class.getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                throw new IOException("リソースが見つかりません: " + resourcePath);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -2,14 +2,20 @@ package d3w;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import d3w.model.YamlInfo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -140,4 +146,76 @@ class JsonEditorTest {
         assertEquals("コピー", copy.get("name").getAsString());
         assertEquals("新しい件名", copy.getAsJsonObject("content").get("subject").getAsString());
     }
+
+    @Test
+    void testCopyOnWrite() {
+        // 元のJsonObjectを作成（datasourceとenvelopeを持つ）
+        JsonObject original = JsonParser.parseString("{"
+                + "\"content\":{\"subject\":\"件名\","
+                + "\"datasource\":{\"fields\":[\"文書名\"],\"ignore_first_row\":false,\"charset\":\"Windows-31J\"},"
+                + "\"envelope\":{\"field\":{\"name\":\"\",\"sort\":false}},"
+                + "\"document\":{\"name\":\"[文書名]\",\"template\":{\"name\":\"[テンプレート名]\","
+                + "\"params\":[{\"name\":\"TextDataset1\",\"type\":\"csv\",\"values\":[\"[項目01]\"]}]}}},"
+                + "\"name\":\"オリジナル\",\"note\":\"元のメモ\"}").getAsJsonObject();
+        JsonObject snapshot = original.deepCopy();
+
+        JsonObject copy = JsonEditor.copyOnWrite(original);
+        assertEquals(original, copy);
+
+        // 編集されない階層はコピー元と共有されること
+        JsonObject originalContent = original.getAsJsonObject("content");
+        JsonObject copyContent = copy.getAsJsonObject("content");
+        assertNotSame(originalContent, copyContent);
+        assertSame(originalContent.get("envelope"), copyContent.get("envelope"));
+        assertSame(originalContent.getAsJsonObject("datasource").get("fields"),
+                copyContent.getAsJsonObject("datasource").get("fields"));
+
+        // applyYamlInfoを適用してもコピー元は変更されないこと
+        YamlInfo yamlInfo = new YamlInfo("コピー", "新しいメモ", "新しい件名", "新しい文書名", "新しいテンプレート",
+                Arrays.asList("field1", "field2"), Arrays.asList("Id", "Name"));
+        JsonEditor.applyYamlInfo(copy, yamlInfo);
+
+        assertEquals(snapshot, original);
+        assertEquals("コピー", copy.get("name").getAsString());
+        assertEquals("新しい件名", copy.getAsJsonObject("content").get("subject").getAsString());
+        assertEquals(2, copy.getAsJsonObject("content").getAsJsonObject("datasource").getAsJsonArray("fields").size());
+    }
+
+    @Test
+    void testStreamReadAndWrite() throws Exception {
+        // バッファ（8192文字）の境界をまたぐ日本語・サロゲートペアを含む大きなJSON
+        JsonObject content = new JsonObject();
+        JsonArray fields = new JsonArray();
+        for (int i = 0; i < 3000; i++) {
+            fields.add("項目" + i + "\uD842\uDFB7<&>");
+        }
+        content.add("fields", fields);
+        content.addProperty("name", "テスト");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonEditor.writeJson(content, out);
+        assertArrayEquals(JsonEditor.toJson(content).getBytes(StandardCharsets.UTF_8), out.toByteArray(),
+                "toJsonをUTF-8にしたものと同じであること");
+        assertEquals(content, JsonEditor.readJson(new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(content, JsonEditor.readJson(out.toByteArray()));
+    }
+
+    @Test
+    void testReadJson_ZipEntryStream() throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+            zos.putNextEntry(new ZipEntry("w1"));
+            zos.write("{\"name\":\"ワーク1\"}".getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry("w2"));
+            zos.write("{\"name\":\"ワーク2\"}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // 読み込み後もストリームは閉じられず、次のエントリを読めること
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            assertEquals("w1", zis.getNextEntry().getName());
+            assertEquals("ワーク1", JsonEditor.readJson(zis).get("name").getAsString());
+            assertEquals("w2", zis.getNextEntry().getName());
+            assertEquals("ワーク2", JsonEditor.readJson(zis).get("name").getAsString());
+        }
+    }
 }
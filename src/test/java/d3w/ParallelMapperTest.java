@@ -0,0 +1,136 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelMapperTest {
+
+    @Test
+    void testMap_KeepsInputOrder() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+
+        // 後半の要素ほど早く終わるようにして、完了順と入力順をずらす
+        List<String> results = ParallelMapper.map(items, 8, (index, item) -> {
+            Thread.sleep((100 - item) % 5);
+            return index + ":" + item;
+        });
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + ":" + i, results.get(i));
+        }
+    }
+
+    @Test
+    void testMap_Sequential() throws Exception {
+        List<String> items = new ArrayList<>();
+        items.add("a");
+        items.add("b");
+
+        List<String> results = ParallelMapper.map(items, 1, (index, item) -> item + index);
+
+        assertEquals("a0", results.get(0));
+        assertEquals("b1", results.get(1));
+    }
+
+    @Test
+    void testMap_PropagatesException() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(i);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> ParallelMapper.map(items, 4, (index, item) -> {
+            if (item == 5) {
+                throw new IOException("失敗: " + item);
+            }
+            return item;
+        }));
+        assertEquals("失敗: 5", exception.getMessage());
+    }
+
+    @Test
+    void testMap_ReusesCallerExecutor() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 1. 呼び出し元のスレッドとプールのスレッドだけで処理すること
+            Set<Thread> allowed = new HashSet<>();
+            allowed.add(Thread.currentThread());
+            for (int i = 0; i < 2; i++) {
+                allowed.add(executor.submit(Thread::currentThread).get());
+            }
+            Set<Thread> used = Collections.synchronizedSet(new HashSet<>());
+            for (int call = 0; call < 3; call++) {
+                ParallelMapper.map(items, 3, executor, (index, item) -> {
+                    used.add(Thread.currentThread());
+                    Thread.sleep(1);
+                    return item;
+                });
+            }
+            assertTrue(allowed.containsAll(used), "呼び出しごとにスレッドを作成しないこと: " + used);
+
+            // 2. 呼び出し元が所有するプールは終了しないこと
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testMap_NestedOnSameExecutor() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            items.add(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // プールのスレッドがすべて外側の処理で埋まっても、内側の処理が止まらないこと
+            List<Integer> sums = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> ParallelMapper.map(items, 4, executor, (index, item) -> {
+                        int sum = 0;
+                        for (int value : ParallelMapper.map(items, 4, executor, (i, inner) -> inner * item)) {
+                            sum += value;
+                        }
+                        return sum;
+                    }));
+            for (int i = 0; i < items.size(); i++) {
+                assertEquals(28 * i, sums.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testMap_SharedPoolUsesDaemonThreads() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(i);
+        }
+        Thread caller = Thread.currentThread();
+        List<Boolean> daemons = ParallelMapper.map(items, 4, (index, item) -> {
+            Thread.sleep(1);
+            Thread thread = Thread.currentThread();
+            return thread == caller || (thread.isDaemon() && thread.getName().startsWith("d3w-worker-"));
+        });
+        assertFalse(daemons.contains(false), "共有のプールはJVMの終了を妨げないデーモンスレッドで処理すること");
+    }
+}
@@ -0,0 +1,92 @@
+package d3w;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PipelineEvents（JFRのイベント）のテスト
+ */
+class PipelineEventsTest {
+
+    @Test
+    void testProcess_RecordsEvents(@TempDir Path tempDir) throws Exception {
+        // 1. d3w.* のイベントを有効にして記録を開始し、3ワークを生成
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 3, 5, 5);
+        Path output = tempDir.resolve("output.d3w");
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+
+        Path recordingFile = tempDir.resolve("d3w.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : Arrays.asList("d3w.TemplateExtract", "d3w.YamlParse", "d3w.WorksGenerate",
+                    "d3w.WorkGenerate", "d3w.MainRewrite", "d3w.ArchiveBuild")) {
+                recording.enable(name);
+            }
+            recording.start();
+            D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        // 2. フェーズごとのイベントが雛型・出力ファイルのパスとバイト数とともに記録されていること
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            if (event.getEventType().getName().startsWith("d3w.")) {
+                events.add(event);
+            }
+        }
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        List<String> phaseNames = events.stream()
+                .map(event -> event.getEventType().getName())
+                .filter(name -> !name.equals("d3w.WorkGenerate"))
+                .distinct()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("d3w.YamlParse", "d3w.TemplateExtract", "d3w.WorksGenerate",
+                "d3w.MainRewrite", "d3w.ArchiveBuild"), phaseNames, "フェーズが処理順に記録されること");
+
+        RecordedEvent build = find(events, "d3w.ArchiveBuild").get(0);
+        assertEquals(template.toString(), build.getString("template"));
+        assertEquals(output.toString(), build.getString("output"));
+        assertEquals(Files.size(output), build.getLong("bytesWritten"), "出力ファイルのサイズであること");
+
+        // 3. ワーク1件ごとのイベントがワーク番号・ワーク名とともに記録されていること
+        List<RecordedEvent> works = find(events, "d3w.WorkGenerate");
+        works.sort((a, b) -> Integer.compare(a.getInt("workNumber"), b.getInt("workNumber")));
+        assertEquals(3, works.size(), "ワーク数分記録されること");
+        for (int i = 0; i < works.size(); i++) {
+            RecordedEvent work = works.get(i);
+            assertEquals(i + 1, work.getInt("workNumber"));
+            assertEquals(String.format("合成ワーク_%05d", i + 1), work.getString("workName"));
+            assertTrue(work.getLong("bytesWritten") > 0);
+        }
+    }
+
+    @Test
+    void testProcess_NotRecording() throws Exception {
+        // 記録していない場合もイベントの開始・終了で例外にならないこと
+        Object event = PipelineEvents.beginWork();
+        PipelineEvents.commitWork(event, "template.d3w", "output.d3w", 1, "ワーク", 0);
+        Object phase = PipelineEvents.beginPhase("unknown");
+        assertNull(phase, "不明なフェーズはイベントを作成しないこと");
+        PipelineEvents.commitPhase(phase, "template.d3w", "output.d3w", 0, 0, 0);
+    }
+
+    private static List<RecordedEvent> find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,56 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessMetricsTest {
+
+    @Test
+    void testRecordLatency_KeepsAllSamplesWithoutLimit() {
+        ProcessMetrics metrics = new ProcessMetrics("template.d3w", "output.d3w", ProgressListener.SILENT);
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.GENERATE)) {
+            for (int i = 1; i <= 100; i++) {
+                phase.recordLatency(i * 1_000_000L);
+            }
+        }
+
+        ProcessMetrics.Phase phase = metrics.getPhase(ProcessMetrics.GENERATE);
+        assertEquals(100, phase.getLatencyCount());
+        assertEquals(100, phase.getLatencySampleCount());
+        assertEquals(50.0, phase.getLatencyPercentileMillis(50), "最近傍順位法で求めること");
+        assertEquals(99.0, phase.getLatencyPercentileMillis(99));
+        assertEquals(100.0, phase.getLatencyPercentileMillis(100));
+    }
+
+    @Test
+    void testRecordLatency_LimitsSamples() {
+        ProcessMetrics metrics = new ProcessMetrics("template.d3w", "output.d3w", ProgressListener.SILENT);
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.GENERATE)) {
+            phase.limitLatencySamples(1_000);
+            // 1～100,000ミリ秒を昇順に記録する（後半の値も標本に入らないと中央値がずれる）
+            for (int i = 1; i <= 100_000; i++) {
+                phase.recordLatency(i * 1_000_000L);
+            }
+        }
+
+        ProcessMetrics.Phase phase = metrics.getPhase(ProcessMetrics.GENERATE);
+        assertEquals(100_000, phase.getLatencyCount(), "記録した件数は上限を超えた分も数えること");
+        assertEquals(1_000, phase.getLatencySampleCount(), "標本は上限の件数までしか保持しないこと");
+        assertEquals(100_000.0, phase.getLatencyPercentileMillis(100), "最大値は常に正確であること");
+        double p50 = phase.getLatencyPercentileMillis(50);
+        assertTrue(p50 > 45_000 && p50 < 55_000, "全件から一様に標本を選ぶこと: p50=" + p50);
+    }
+
+    @Test
+    void testLimitLatencySamples_Invalid() {
+        ProcessMetrics metrics = new ProcessMetrics("template.d3w", "output.d3w", ProgressListener.SILENT);
+        try (ProcessMetrics.Phase phase = metrics.start(ProcessMetrics.GENERATE)) {
+            assertThrows(IllegalArgumentException.class, () -> phase.limitLatencySamples(0));
+            phase.recordLatency(1);
+            phase.recordLatency(2);
+            assertThrows(IllegalStateException.class, () -> phase.limitLatencySamples(1),
+                    "すでに上限を超えて記録している場合は設定できないこと");
+        }
+    }
+}
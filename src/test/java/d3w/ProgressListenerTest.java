@@ -0,0 +1,130 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProgressListener（ConsoleProgressListener、JsonLinesProgressListener）のテスト
+ */
+class ProgressListenerTest {
+
+    @Test
+    void testJsonLines_Process(@TempDir Path tempDir) throws Exception {
+        // 1. JSON Linesで進捗を出力して5ワークを並列に生成
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 5, 5, 5);
+        Path output = tempDir.resolve("output.d3w");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+        options.setParallelism(4);
+        options.setProgressListener(new JsonLinesProgressListener(out));
+        D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options);
+
+        // 2. すべての行がJSONで、フェーズの開始・終了、ワークの生成、書き込みのイベントを含むこと
+        List<JsonObject> events = new ArrayList<>();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            events.add(JsonParser.parseString(line).getAsJsonObject());
+        }
+        List<String> phases = new ArrayList<>();
+        List<Integer> completed = new ArrayList<>();
+        JsonObject written = null;
+        for (JsonObject event : events) {
+            assertTrue(event.has("time"), "時刻を含むこと");
+            switch (event.get("event").getAsString()) {
+                case "phaseStarted":
+                    phases.add(event.get("phase").getAsString());
+                    break;
+                case "workGenerated":
+                    assertEquals(5, event.get("total").getAsInt());
+                    completed.add(event.get("completed").getAsInt());
+                    break;
+                case "bytesWritten":
+                    written = event;
+                    break;
+                default:
+                    break;
+            }
+        }
+        assertEquals(Arrays.asList(ProcessMetrics.YAML, ProcessMetrics.EXTRACT, ProcessMetrics.GENERATE,
+                ProcessMetrics.MAIN, ProcessMetrics.BUILD), phases);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), completed, "生成済みのワーク数が1ずつ増えること");
+        assertNotNull(written, "出力ファイルの書き込みが通知されること");
+        assertEquals(output.toString(), written.get("path").getAsString());
+        assertEquals(Files.size(output), written.get("bytes").getAsLong());
+    }
+
+    @Test
+    void testConsole_RateLimitsWorkLines() {
+        // 表示間隔を長くした場合、ワークの生成は最後の1件だけ表示されること
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        ConsoleProgressListener listener = new ConsoleProgressListener(out, 60_000);
+        listener.phaseStarted("output.d3w", ProcessMetrics.GENERATE);
+        for (int i = 1; i <= 1000; i++) {
+            listener.workGenerated("output.d3w", i, 1000, i, "ワーク" + i);
+        }
+        listener.phaseFinished("output.d3w", ProcessMetrics.GENERATE, 1_000_000_000L);
+
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        assertFalse(text.contains("ワーク999"), "途中のワークは表示しないこと");
+        assertTrue(text.contains("[1000/1000]"), "最後のワークは表示すること");
+        assertTrue(text.contains("1,000個のワーク"), "生成したワーク数を表示すること");
+    }
+
+    @Test
+    void testConsole_ShowsEta() {
+        // 表示間隔が0の場合は1件ごとに、残り時間の見込みとともに表示されること
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleProgressListener listener = new ConsoleProgressListener(new PrintStream(bytes, true), 0);
+        listener.phaseStarted("output.d3w", ProcessMetrics.GENERATE);
+        listener.workGenerated("output.d3w", 1, 3, 1, "ワーク1");
+        listener.workGenerated("output.d3w", 2, 3, 2, "ワーク2");
+
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(text.contains("[1/3]") && text.contains("[2/3]"));
+        assertTrue(text.contains("残り約"), "残り時間の見込みを表示すること");
+        assertEquals("0:05", ConsoleProgressListener.formatDuration(5));
+        assertEquals("1:01:01", ConsoleProgressListener.formatDuration(3661));
+    }
+
+    @Test
+    void testConsole_UnknownTotal() {
+        // ワーク数が不明な場合（-1）は、割合と残り時間を表示しないこと
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleProgressListener listener = new ConsoleProgressListener(new PrintStream(bytes, true), 0);
+        listener.phaseStarted("output.d3w", ProcessMetrics.GENERATE);
+        listener.workGenerated("output.d3w", 1, -1, 1, "ワーク1");
+        listener.workGenerated("output.d3w", 2, -1, 2, "ワーク2");
+
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(text.contains("[1]") && text.contains("[2]"));
+        assertFalse(text.contains("%"), "割合を表示しないこと");
+        assertFalse(text.contains("残り約"), "残り時間の見込みを表示しないこと");
+    }
+
+    @Test
+    void testSilent_Process(@TempDir Path tempDir) throws Exception {
+        // SILENTの場合も処理は正常に完了すること
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 10, 5);
+        List<String> yamlPaths = FixtureGenerator.createYamls(tempDir.resolve("configs"), 2, 5, 5);
+        ProcessOptions options = new ProcessOptions();
+        options.setProgressListener(ProgressListener.SILENT);
+        Path output = tempDir.resolve("output.d3w");
+        D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options);
+        assertEquals(2, D3wArchive.read(output).findEntries(D3wEntryName.Kind.WORK).size());
+    }
+}
@@ -0,0 +1,111 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawZipWriterTest {
+
+    @Test
+    void testWrite_CopiesCompressedEntries(@TempDir Path tempDir) throws Exception {
+        // 1. ZipOutputStreamで元のZIPを作成（データディスクリプタ付き）
+        Map<String, String> contents = new HashMap<>();
+        contents.put("_", "{\"works\":[]}");
+        contents.put("e1", "{\"name\":\"エンベロープ\",\"values\":[\"あいうえお\",\"かきくけこ\"]}");
+        contents.put("s1", "{\"name\":\"サービス\"}");
+
+        Path source = tempDir.resolve("source.d3w");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(source))) {
+            for (Map.Entry<String, String> entry : contents.entrySet()) {
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                zos.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+
+        // 2. 圧縮済みのまま読み込み、別のZIPへ書き写す（新規エントリも追加）
+        List<RawZipEntry> entries = RawZipReader.read(Files.readAllBytes(source));
+        assertEquals(3, entries.size());
+
+        Path copy = tempDir.resolve("copy.d3w");
+        try (RawZipWriter writer = new RawZipWriter(Files.newOutputStream(copy))) {
+            for (RawZipEntry entry : entries) {
+                writer.write(entry);
+            }
+            writer.write(RawZipEntry.deflate("w1", "{\"name\":\"ワーク1\"}".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // 3. 標準のZipFileで読み込めること（CRC・サイズが正しいこと）
+        contents.put("w1", "{\"name\":\"ワーク1\"}");
+        try (ZipFile zipFile = new ZipFile(copy.toFile())) {
+            assertEquals(4, zipFile.size());
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                try (InputStream in = zipFile.getInputStream(zipEntry)) {
+                    assertEquals(contents.get(zipEntry.getName()), readAll(in), zipEntry.getName());
+                }
+            }
+        }
+
+        // 4. 書き写したエントリの圧縮済みデータが元と同一であること
+        List<RawZipEntry> copied = RawZipReader.read(Files.readAllBytes(copy));
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(entries.get(i).getName(), copied.get(i).getName());
+            assertEquals(entries.get(i).getCrc(), copied.get(i).getCrc());
+            assertArrayEquals(entries.get(i).getCompressedData(), copied.get(i).getCompressedData());
+            assertArrayEquals(contents.get(entries.get(i).getName()).getBytes(StandardCharsets.UTF_8),
+                    copied.get(i).inflate());
+        }
+    }
+
+    @Test
+    void testWrite_Zip64_ManyEntries(@TempDir Path tempDir) throws Exception {
+        // 1. エントリ数が65,535を超えるZIPを作成（ZIP64形式の終端レコードを書き込む）
+        int count = 70_000;
+        Path zip = tempDir.resolve("many.d3w");
+        try (RawZipWriter writer = new RawZipWriter(Files.newOutputStream(zip))) {
+            for (int i = 1; i <= count; i++) {
+                writer.write(RawZipEntry.store("w" + i, String.valueOf(i).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        // 2. 標準のZipFileで読み込めること
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertEquals(count, zipFile.size());
+            try (InputStream in = zipFile.getInputStream(zipFile.getEntry("w" + count))) {
+                assertEquals(String.valueOf(count), readAll(in));
+            }
+        }
+
+        // 3. RawZipReaderでも読み込めること
+        List<RawZipEntry> entries = RawZipReader.read(Files.readAllBytes(zip));
+        assertEquals(count, entries.size());
+        assertEquals("w" + count, entries.get(count - 1).getName());
+        assertArrayEquals(String.valueOf(count).getBytes(StandardCharsets.UTF_8), entries.get(count - 1).inflate());
+    }
+
+    private static String readAll(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+            out.write(buffer, 0, len);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * ワーク数を増やしたときの処理時間・メモリ割り当て量の伸びを検証するスケーリングテスト
+ * <p>
+ * FixtureGeneratorで合成した大きい雛型（datasourceフィールド2,000件）とYAMLファイルを使用し、
+ * メモリ上での処理（--in-memory、逐次処理）でワーク1件あたりの値がワーク数に関わらずほぼ一定であることを確認する。
+ * ワーク数に対してO(n²)になる処理や、ワークごとのファイル入出力が入り込むと、
+ * 大きいワーク数でワーク1件あたりの値が基準（1,000ワーク）より大きくなって失敗する。
+ * <p>
+ * 通常のテストでは実行環境の負荷に左右されないメモリ割り当て量のみを5,000ワークまで検証する。
+ * 処理時間を含めて50,000ワークまで検証する場合は -Dd3w.scaling=true を指定する（実行に数十秒かかる）。
+ */
+class ScalingTest {
+
+    private static final int[] WORK_COUNTS = {1_000, 5_000};
+    private static final int[] FULL_WORK_COUNTS = {10, 1_000, 10_000, 50_000};
+    private static final int BASELINE_WORK_COUNT = 1_000;
+
+    /** ワーク1件あたりの処理時間の、基準に対する倍率の上限 */
+    private static final double TIME_RATIO_BUDGET = 3.0;
+    /** ワーク1件あたりのメモリ割り当て量の、基準に対する倍率の上限 */
+    private static final double ALLOCATION_RATIO_BUDGET = 1.5;
+    /** ワーク1件あたりの処理時間の上限（ミリ秒） */
+    private static final double MILLIS_PER_WORK_BUDGET = 5.0;
+    /** ワーク1件あたりのメモリ割り当て量の上限（バイト） */
+    private static final long ALLOCATED_BYTES_PER_WORK_BUDGET = 512 * 1024;
+
+    @Test
+    void testProcess_AllocationScalesLinearly(@TempDir Path tempDir) throws Exception {
+        verifyScaling(tempDir, WORK_COUNTS, false);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "d3w.scaling", matches = "true")
+    void testProcess_ScalesLinearly(@TempDir Path tempDir) throws Exception {
+        verifyScaling(tempDir, FULL_WORK_COUNTS, true);
+    }
+
+    /**
+     * ワーク数ごとに計測し、ワーク1件あたりのメモリ割り当て量（checkTimeの場合は処理時間も）が
+     * 上限以内かつ基準からほぼ増えないことを検証する
+     */
+    private static void verifyScaling(Path tempDir, int[] workCounts, boolean checkTime) throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+        Path template = FixtureGenerator.createTemplate(tempDir.resolve("template.d3w"), 2_000, 200);
+        ProcessOptions options = new ProcessOptions();
+        options.setInMemory(true);
+
+        // JITの影響を除くため、基準のワーク数で一度実行しておく
+        run(template, tempDir.resolve("warmup"), BASELINE_WORK_COUNT, options, threadMXBean);
+
+        Measurement baseline = null;
+        for (int workCount : workCounts) {
+            Measurement measurement = run(template, tempDir.resolve("works_" + workCount), workCount, options,
+                    threadMXBean);
+            if (workCount == BASELINE_WORK_COUNT) {
+                baseline = measurement;
+            }
+            if (baseline == null) {
+                continue;
+            }
+            assertTrue(measurement.allocatedBytesPerWork() <= ALLOCATED_BYTES_PER_WORK_BUDGET,
+                    "ワーク1件あたりのメモリ割り当て量が上限以内であること: " + measurement);
+            assertTrue(measurement.allocatedBytesPerWork()
+                            <= baseline.allocatedBytesPerWork() * ALLOCATION_RATIO_BUDGET,
+                    "ワーク1件あたりのメモリ割り当て量がワーク数に比例して増えないこと: " + measurement
+                            + " 基準: " + baseline);
+            if (checkTime) {
+                assertTrue(measurement.millisPerWork() <= MILLIS_PER_WORK_BUDGET,
+                        "ワーク1件あたりの処理時間が上限以内であること: " + measurement);
+                assertTrue(measurement.millisPerWork() <= baseline.millisPerWork() * TIME_RATIO_BUDGET,
+                        "ワーク1件あたりの処理時間がワーク数に比例して増えないこと: " + measurement
+                                + " 基準: " + baseline);
+            }
+        }
+    }
+
+    /**
+     * YAMLファイルを生成し、.d3wファイルの生成にかかった時間とメモリ割り当て量を計測する
+     * YAMLファイルの生成は計測に含めない
+     */
+    private static Measurement run(Path template, Path dir, int workCount, ProcessOptions options,
+                                   com.sun.management.ThreadMXBean threadMXBean) throws Exception {
+        List<String> yamlPaths = FixtureGenerator.createYamls(dir.resolve("configs"), workCount, 20, 10);
+        Path output = dir.resolve("output.d3w");
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        D3wProcessor.process(template.toString(), yamlPaths, output.toString(), options);
+        long nanos = System.nanoTime() - start;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        D3wArchive archive = D3wArchive.read(ByteBuffer.wrap(Files.readAllBytes(output)));
+        assertEquals(workCount, archive.findEntries(D3wEntryName.Kind.WORK).size(),
+                "ワーク数分のwNが生成されること");
+        return new Measurement(workCount, nanos, allocated);
+    }
+
+    /**
+     * スレッドごとのメモリ割り当て量を取得できるThreadMXBean（HotSpot以外では検証をスキップする）
+     */
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "メモリ割り当て量を取得できないJVM");
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "メモリ割り当て量を取得できないJVM");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return threadMXBean;
+    }
+
+    /**
+     * 1回分の計測結果
+     */
+    private static class Measurement {
+        private final int workCount;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        Measurement(int workCount, long nanos, long allocatedBytes) {
+            this.workCount = workCount;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        double millisPerWork() {
+            return nanos / 1_000_000.0 / workCount;
+        }
+
+        long allocatedBytesPerWork() {
+            return allocatedBytes / workCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("works=%,d time/work=%.3f ms allocated/work=%,d bytes",
+                    workCount, millisPerWork(), allocatedBytesPerWork());
+        }
+    }
+}
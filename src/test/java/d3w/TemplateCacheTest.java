@@ -0,0 +1,94 @@
+package d3w;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateCacheTest {
+
+    @Test
+    void testGet_KeyedByContentWithLruEviction(@TempDir Path tempDir) throws Exception {
+        Path templateA = copyResource("/templates/Box20251229184004.d3w", tempDir.resolve("a.d3w"));
+        Path templateACopy = copyResource("/templates/Box20251229184004.d3w", tempDir.resolve("a_copy.d3w"));
+        Path templateB = createTemplate(tempDir.resolve("b.d3w"), "B");
+        Path templateC = createTemplate(tempDir.resolve("c.d3w"), "C");
+
+        TemplateCache cache = new TemplateCache(2);
+
+        // 1. 初回はミス、2回目はヒット（同じインスタンスを返す）
+        PreparedTemplate a = cache.get(templateA.toString());
+        assertSame(a, cache.get(templateA.toString()));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        // 2. パスが異なっても内容が同じならヒット（解析済みの内容を共有し、パスは指定したものを返す）
+        PreparedTemplate aCopy = cache.get(templateACopy.toString());
+        assertSame(a.getWorkTemplate(), aCopy.getWorkTemplate(), "内容のハッシュでキャッシュすること");
+        assertEquals(2, cache.getHits());
+        assertEquals(templateACopy.toString(), aCopy.getPath(), "メトリクス等には指定したパスを使うこと");
+        assertEquals(templateA.toString(), cache.get(templateA.toString()).getPath());
+
+        // 3. 上限を超えると最も長く使用されていない雛型を破棄
+        cache.get(templateB.toString());
+        cache.get(templateA.toString()); // Aを使用してBを最も古くする
+        cache.get(templateC.toString());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertSame(a, cache.get(templateA.toString()), "最近使用したAは残っていること");
+
+        long misses = cache.getMisses();
+        cache.get(templateB.toString());
+        assertEquals(misses + 1, cache.getMisses(), "破棄されたBは読み込み直すこと");
+
+        // 4. 内容が変わった場合は読み込み直す
+        createTemplate(templateC, "C2");
+        misses = cache.getMisses();
+        cache.get(templateC.toString());
+        assertEquals(misses + 1, cache.getMisses());
+    }
+
+    @Test
+    void testGet_InvalidTemplateIsNotCached(@TempDir Path tempDir) throws Exception {
+        Path template = tempDir.resolve("invalid.d3w");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(template))) {
+            zos.putNextEntry(new ZipEntry("_"));
+            zos.write("{\"works\":[]}".getBytes("UTF-8"));
+            zos.closeEntry();
+        }
+
+        TemplateCache cache = new TemplateCache(2);
+        assertThrows(IllegalStateException.class, () -> cache.get(template.toString()), "w1がない雛型はエラー");
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * _ と w1 のみを含む雛型を作成する
+     */
+    private static Path createTemplate(Path path, String name) throws Exception {
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(path))) {
+            zos.putNextEntry(new ZipEntry("_"));
+            zos.write("{\"works\":[]}".getBytes("UTF-8"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("w1"));
+            zos.write(("{\"name\":\"" + name + "\"}").getBytes("UTF-8"));
+            zos.closeEntry();
+        }
+        return path;
+    }
+
+    private Path copyResource(String resourcePath, Path target) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
+            assertNotNull(in, "Resource not found: " + resourcePath);
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,86 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+import d3w.model.YamlInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkMappingTest {
+
+    @Test
+    void testDefault_AppliesDocumentName() {
+        YamlInfo yamlInfo = new YamlInfo("ワーク", null, null, "[文書名]", null, null, null);
+
+        JsonObject work = WorkMapping.getDefault().apply(new JsonObject(), yamlInfo);
+
+        assertEquals("[文書名]", work.getAsJsonObject("content").getAsJsonObject("document").get("name").getAsString(),
+                "documentNameがcontent.document.nameに反映されること");
+        assertTrue(work.getAsJsonObject("content").getAsJsonObject("document").has("template"),
+                "途中の階層は値がなくても作成されること");
+    }
+
+    @Test
+    void testLoad_AdditionalYamlKey() throws IOException {
+        // YamlInfoにない項目も、対応表に追加するだけで反映されること
+        WorkMapping mapping = load("mappings:\n"
+                + "  - yaml: workName\n"
+                + "    path: name\n"
+                + "  - yaml: charset\n"
+                + "    path: content.datasource.charset\n"
+                + "  - yaml: columns\n"
+                + "    path: content.datasource.columns\n"
+                + "    transform: bracketed\n");
+        YamlInfo yamlInfo = YamlInfoLoader.loadFromString("workName: ワーク\n"
+                + "charset: UTF-8\n"
+                + "columns: [A, B]\n");
+        String template = "{\"name\":\"雛型\",\"content\":{\"datasource\":{\"charset\":\"Windows-31J\"}},\"key\":\"k\"}";
+
+        JsonObject work = mapping.apply(JsonEditor.readJson(template.getBytes(StandardCharsets.UTF_8)), yamlInfo);
+        JsonObject datasource = work.getAsJsonObject("content").getAsJsonObject("datasource");
+        assertEquals("ワーク", work.get("name").getAsString());
+        assertEquals("UTF-8", datasource.get("charset").getAsString());
+        assertEquals("[\"[A]\",\"[B]\"]", datasource.get("columns").toString());
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("charset", "columns")), mapping.getValueKeys(),
+                "YamlInfoのフィールド以外のキーのみ返すこと");
+
+        // ストリーミングでの反映も同じ結果になること
+        StringWriter out = new StringWriter();
+        WorkTransformer.transform(new StringReader(template), mapping, yamlInfo, out);
+        work.addProperty("key", "");
+        assertEquals(JsonEditor.toJson(work), out.toString());
+    }
+
+    @Test
+    void testCompile_InvalidMapping() {
+        assertThrows(IllegalArgumentException.class, () -> WorkMapping.compile(Arrays.asList(
+                new WorkMapping.Rule("a", "content.subject", WorkMapping.Transform.STRING),
+                new WorkMapping.Rule("b", "content.subject", WorkMapping.Transform.STRING))),
+                "同じ反映先はエラー");
+        assertThrows(IllegalArgumentException.class, () -> WorkMapping.compile(Arrays.asList(
+                new WorkMapping.Rule("a", "content", WorkMapping.Transform.STRING),
+                new WorkMapping.Rule("b", "content.subject", WorkMapping.Transform.STRING))),
+                "反映先の下の反映先はエラー");
+        assertThrows(IllegalArgumentException.class, () -> WorkMapping.compile(Arrays.asList(
+                new WorkMapping.Rule("a", "content..subject", WorkMapping.Transform.STRING))),
+                "空の階層を含むパスはエラー");
+        assertThrows(IllegalArgumentException.class, () -> load("mappings:\n"
+                + "  - yaml: a\n"
+                + "    path: name\n"
+                + "    transform: unknown\n"),
+                "不明な変換方法はエラー");
+    }
+
+    private static WorkMapping load(String yaml) {
+        return WorkMapping.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,39 @@
+package d3w;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkTemplateTest {
+
+    private static final String TEMPLATE_JSON = "{"
+            + "\"content\":{\"subject\":\"\",\"datasource\":{\"fields\":[\"文書名\",\"テンプレート名\"],"
+            + "\"ignore_first_row\":false,\"charset\":\"Windows-31J\"}},"
+            + "\"content_class\":\"net.opro.product.d3w.work.csv.CsvWork\","
+            + "\"key\":\"GZvtst4WLH_GqR\",\"name\":\"雛型ワーク\",\"note\":\"雛型\""
+            + "}";
+
+    @Test
+    void testNewInstance_IsIndependentCopy() {
+        WorkTemplate template = WorkTemplate.compile(TEMPLATE_JSON.getBytes(StandardCharsets.UTF_8));
+
+        JsonObject first = template.newInstance();
+        JsonObject second = template.newInstance();
+
+        // インスタンスは別オブジェクトであること
+        assertNotSame(first, second);
+        assertEquals(first, second);
+
+        // 一方を編集しても他方・雛型には影響しないこと
+        first.addProperty("name", "ワーク1");
+        first.getAsJsonObject("content").addProperty("subject", "件名1");
+
+        assertEquals("雛型ワーク", second.get("name").getAsString());
+        assertEquals("", second.getAsJsonObject("content").get("subject").getAsString());
+        assertEquals("雛型ワーク", template.newInstance().get("name").getAsString());
+        assertEquals("", template.newInstance().getAsJsonObject("content").get("subject").getAsString());
+    }
+}
@@ -0,0 +1,135 @@
+package d3w;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import d3w.model.YamlInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkTransformerTest {
+
+    private static final String[] TEMPLATES = {
+            // 標準的な雛型（paramsあり）
+            "{\"content\":{\"subject\":\"\",\"datasource\":{\"fields\":[\"文書名\",\"テンプレート名\"],"
+                    + "\"ignore_first_row\":false,\"charset\":\"Windows-31J\"},"
+                    + "\"document\":{\"name\":\"[文書名]\",\"template\":{\"name\":\"[テンプレート名]\","
+                    + "\"params\":[{\"name\":\"TD\",\"type\":\"tsv\",\"ignore_empty_row\":true,"
+                    + "\"insert_first_empty_row\":false,\"values\":[\"[a]\"]},{\"name\":\"2件目\"}]}}},"
+                    + "\"content_class\":\"net.opro.product.d3w.work.csv.CsvWork\","
+                    + "\"key\":\"GZvtst4WLH_GqR\",\"name\":\"雛型ワーク\",\"note\":\"雛型\"}",
+            // 編集対象の階層が存在しない雛型
+            "{\"content_class\":\"net.opro.product.d3w.work.csv.CsvWork\",\"key\":\"k\"}",
+            // 編集対象の階層がオブジェクトでない雛型（null、数値、配列）
+            "{\"note\":null,\"content\":{\"datasource\":null,\"document\":{\"template\":[1,2]}},\"key\":null}",
+            "{\"content\":3,\"note\":{\"a\":1}}",
+            // paramsが配列でない、最初の要素がオブジェクトでない
+            "{\"content\":{\"document\":{\"template\":{\"params\":\"x\"}}}}",
+            "{\"content\":{\"document\":{\"template\":{\"params\":[[{\"name\":\"a\"}],{\"name\":\"b\"}]}}}}",
+            // 数値の表記、エスケープ、null、入れ子の深い値は元のまま書き写すこと
+            "{\"n\":[1.50,-0,1e3,12345678901234567890,0.1],\"s\":\"<a href='x'>&amp;</a>\\u2028\\\"\\n\","
+                    + "\"nul\":null,\"arr\":[null,true,{\"x\":null}],\"deep\":[[[[{\"a\":[[]]}]]]],"
+                    + "\"content\":{\"x\":{},\"subject\":1}}",
+    };
+
+    private static final YamlInfo[] YAML_INFOS = {
+            new YamlInfo("ワーク<1>", "メモ&", "件名", "文書名", "テンプレート",
+                    Arrays.asList("項目1", "項目2"), Arrays.asList("A", "B", "C")),
+            // 未指定の項目は雛型のまま
+            new YamlInfo(null, null, null, null, null, null, null),
+            new YamlInfo("ワーク", null, "件名", null, null, Collections.emptyList(), Collections.emptyList()),
+            new YamlInfo(null, "メモ", null, null, "テンプレート", Collections.singletonList("項目"), null),
+    };
+
+    @Test
+    void testTransform_MatchesApplyYamlInfo() throws IOException {
+        for (String template : TEMPLATES) {
+            for (YamlInfo yamlInfo : YAML_INFOS) {
+                // JsonObjectを使用した編集結果
+                JsonObject expected = JsonEditor.applyYamlInfo(JsonEditor.readJson(bytes(template)), yamlInfo);
+                if (expected.has("key") && expected.get("key").isJsonPrimitive()) {
+                    expected.addProperty("key", "");
+                }
+
+                StringWriter out = new StringWriter();
+                WorkTransformer.Result result = WorkTransformer.transform(new StringReader(template), yamlInfo, out);
+
+                String message = "雛型: " + template + " / " + yamlInfo;
+                assertEquals(JsonEditor.toJson(expected), out.toString(), "出力がapplyYamlInfoと一致すること: " + message);
+                assertEquals(expected.has("name") ? expected.get("name").getAsString() : null, result.getName(),
+                        "ワーク名: " + message);
+                assertEquals(expected.has("content_class") ? expected.get("content_class").getAsString() : null,
+                        result.getContentClass(), "content_class: " + message);
+            }
+        }
+    }
+
+    @Test
+    void testRender_LargeTemplate() throws IOException {
+        // datasourceフィールドが多い雛型でも、ツリーを構築した場合と同じ結果になること
+        JsonObject work = createTemplate(5_000);
+        byte[] content = JsonEditor.toJsonBytes(work);
+        WorkTemplate template = WorkTemplate.compile(content);
+        YamlInfo yamlInfo = new YamlInfo("ワーク", "メモ", "件名", null, "テンプレート",
+                Arrays.asList("項目1", "項目2"), null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.render(yamlInfo, out);
+
+        JsonObject expected = JsonEditor.applyYamlInfo(template.newInstance(), yamlInfo);
+        expected.addProperty("key", "");
+        assertEquals(JsonEditor.toJson(expected), new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        JsonArray fields = JsonEditor.readJson(out.toByteArray())
+                .getAsJsonObject("content").getAsJsonObject("datasource").getAsJsonArray("fields");
+        assertEquals(5_000, fields.size(), "YAMLで指定していないフィールドは雛型のまま");
+    }
+
+    @Test
+    void testCompile_InvalidTemplate() {
+        assertThrows(RuntimeException.class, () -> WorkTemplate.compile(bytes("[1,2]")),
+                "JSONオブジェクトでない雛型はエラー");
+        assertThrows(RuntimeException.class, () -> WorkTemplate.compile(bytes("{\"a\":")),
+                "途中で終わっている雛型はエラー");
+        assertThrows(RuntimeException.class, () -> WorkTemplate.compile(bytes("{\"a\":1}{}")),
+                "余分なデータがある雛型はエラー");
+    }
+
+    /**
+     * datasourceフィールドを指定件数持つ雛型ワークを生成
+     */
+    private static JsonObject createTemplate(int fieldCount) {
+        JsonArray fields = new JsonArray();
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add("項目" + i);
+        }
+        JsonObject datasource = new JsonObject();
+        datasource.add("fields", fields);
+        datasource.addProperty("ignore_first_row", false);
+        datasource.addProperty("charset", "Windows-31J");
+
+        JsonObject content = new JsonObject();
+        content.addProperty("subject", "");
+        content.add("datasource", datasource);
+
+        JsonObject work = new JsonObject();
+        work.add("content", content);
+        work.addProperty("content_class", "net.opro.product.d3w.work.csv.CsvWork");
+        work.addProperty("key", "GZvtst4WLH_GqR");
+        work.addProperty("name", "雛型ワーク");
+        work.addProperty("note", "雛型");
+        return work;
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -2,11 +2,16 @@ package d3w;
 
 import d3w.model.YamlInfo;
 import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.error.YAMLException;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -51,6 +56,148 @@ class YamlInfoLoaderTest {
         assertTrue(yamlInfo.getDatasourceFields().contains("たちつてと"));
     }
 
+    @Test
+    void testLoadAll_KeepsInputOrder() throws Exception {
+        // テストリソースのYAMLファイルを逆順に並べる
+        List<String> paths = new ArrayList<>();
+        for (int i = 5; i >= 1; i--) {
+            paths.add(Objects.requireNonNull(getClass().getClassLoader()
+                    .getResource("configs/0" + i + "_TEST_YAML.yaml")).getPath());
+        }
+
+        // 並列に読み込んでも入力順で返ること
+        List<YamlInfo> yamlInfos = YamlInfoLoader.loadAll(paths, 4);
+
+        assertEquals(5, yamlInfos.size());
+        for (int i = 0; i < yamlInfos.size(); i++) {
+            assertEquals("ワーク生成_テスト岡谷_" + (5 - i), yamlInfos.get(i).getWorkName());
+        }
+    }
+
+    @Test
+    void testLoad_ReturnsBytesRead() throws Exception {
+        List<String> paths = new ArrayList<>();
+        long expectedBytes = 0;
+        for (int i = 1; i <= 5; i++) {
+            String path = Objects.requireNonNull(getClass().getClassLoader()
+                    .getResource("configs/0" + i + "_TEST_YAML.yaml")).getPath();
+            paths.add(path);
+            expectedBytes += new File(path).length();
+        }
+
+        YamlInfoLoader.LoadResult result = YamlInfoLoader.load(paths, 4, CancellationToken.NONE);
+
+        assertEquals(5, result.getYamlInfos().size());
+        assertEquals("ワーク生成_テスト岡谷_1", result.getYamlInfos().get(0).getWorkName());
+        assertEquals(expectedBytes, result.getBytesRead(), "読み込んだファイルサイズの合計であること");
+    }
+
+    @Test
+    void testLoad_KeepsOnlyMappedValues(@TempDir Path tempDir) throws Exception {
+        // 標準の対応表が参照しない項目（remarks）を含むYAML
+        String yaml = "workName: ワーク\n"
+                + "subject: 件名\n"
+                + "remarks: 反映しない備考\n";
+        Path yamlFile = tempDir.resolve("work.yml");
+        Files.write(yamlFile, yaml.getBytes(StandardCharsets.UTF_8));
+        List<String> paths = Collections.singletonList(yamlFile.toString());
+
+        // ワークの生成に使用する読み込みでは、対応表が参照しない項目を保持しないこと
+        assertTrue(WorkMapping.getDefault().getValueKeys().isEmpty(), "標準の対応表はYamlInfoのフィールドのみ参照する");
+        YamlInfo loaded = YamlInfoLoader.load(paths, 1, CancellationToken.NONE).getYamlInfos().get(0);
+        assertEquals("件名", loaded.getSubject());
+        assertNull(loaded.getValues());
+        assertNull(YamlInfoLoader.iterate(paths).next().getValues());
+
+        // 単体の読み込みでは、別の対応表で参照できるようにすべての項目を保持すること
+        YamlInfo single = YamlInfoLoader.loadFromString(yaml);
+        assertEquals("反映しない備考", single.getValues().get("remarks"));
+
+        // valuesはequals・toStringに含めないこと
+        assertEquals(loaded, single);
+        assertFalse(single.toString().contains("反映しない備考"));
+    }
+
+    @Test
+    void testLoad_RejectsGlobalTag(@TempDir Path tempDir) throws Exception {
+        // グローバルタグでJavaのクラスを生成させるYAMLは読み込まないこと（CVE-2022-1471）
+        String yaml = "workName: ワーク\nextra: !!java.io.File [\"/tmp\"]\n";
+        assertThrows(YAMLException.class, () -> YamlInfoLoader.loadFromString(yaml));
+
+        Path works = tempDir.resolve("works.yml");
+        Files.write(works, ("---\n" + yaml).getBytes(StandardCharsets.UTF_8));
+        try (YamlInfoLoader.DocumentIterator documents = YamlInfoLoader.openDocuments(works.toString())) {
+            assertThrows(YAMLException.class, documents::hasNext);
+        }
+    }
+
+    @Test
+    void testOpenDocuments(@TempDir Path tempDir) throws Exception {
+        // 1. 1つのYAMLファイルに「---」区切りで3つのワーク設定と空のドキュメントを記載
+        Path works = tempDir.resolve("works.yml");
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 1; i <= 3; i++) {
+            yaml.append("---\n")
+                    .append("workName: \"ワーク").append(i).append("\"\n")
+                    .append("subject: \"件名").append(i).append("\"\n")
+                    .append("textDatasetFields: [項目").append(i).append("]\n");
+        }
+        yaml.append("---\n");
+        Files.write(works, yaml.toString().getBytes(StandardCharsets.UTF_8));
+
+        // 2. ファイルの順序で1件ずつ読み込まれ、空のドキュメントは読み飛ばすこと
+        List<YamlInfo> yamlInfos = new ArrayList<>();
+        try (YamlInfoLoader.DocumentIterator iterator = YamlInfoLoader.openDocuments(works.toString())) {
+            iterator.forEachRemaining(yamlInfos::add);
+        }
+        assertEquals(3, yamlInfos.size());
+        for (int i = 0; i < yamlInfos.size(); i++) {
+            assertEquals("ワーク" + (i + 1), yamlInfos.get(i).getWorkName());
+            assertEquals("件名" + (i + 1), yamlInfos.get(i).getSubject());
+            assertEquals(Collections.singletonList("項目" + (i + 1)), yamlInfos.get(i).getTextDatasetFields());
+        }
+    }
+
+    @Test
+    void testOpenDocuments_LargerThanDefaultCodePointLimit(@TempDir Path tempDir) throws Exception {
+        // SnakeYAMLの既定の上限（ファイル全体で3,145,728コードポイント）を超えるファイルも読み込めること
+        Path works = tempDir.resolve("works.yml");
+        int count = 20_000;
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            yaml.append("---\n")
+                    .append("workName: \"ワーク").append(i).append("\"\n")
+                    .append("memoText: \"").append(String.join("", Collections.nCopies(120, "メ"))).append("\"\n")
+                    .append("textDatasetFields: [項目1, 項目2]\n");
+        }
+        assertTrue(yaml.codePointCount(0, yaml.length()) > 3_145_728, "既定の上限を超える大きさであること");
+        Files.write(works, yaml.toString().getBytes(StandardCharsets.UTF_8));
+
+        int read = 0;
+        String lastWorkName = null;
+        try (YamlInfoLoader.DocumentIterator iterator = YamlInfoLoader.openDocuments(works.toString())) {
+            while (iterator.hasNext()) {
+                lastWorkName = iterator.next().getWorkName();
+                read++;
+            }
+        }
+        assertEquals(count, read);
+        assertEquals("ワーク" + count, lastWorkName);
+    }
+
+    @Test
+    void testOpenDocuments_NotMapping(@TempDir Path tempDir) throws Exception {
+        // マッピング以外のドキュメントはエラーとし、何番目のドキュメントかを示すこと
+        Path works = tempDir.resolve("works.yml");
+        Files.write(works, "workName: ワーク1\n---\n- リスト\n".getBytes(StandardCharsets.UTF_8));
+
+        try (YamlInfoLoader.DocumentIterator iterator = YamlInfoLoader.openDocuments(works.toString())) {
+            assertEquals("ワーク1", iterator.next().getWorkName());
+            IllegalStateException exception = assertThrows(IllegalStateException.class, iterator::next);
+            assertTrue(exception.getMessage().contains("2番目のドキュメント"));
+        }
+    }
+
     @Test
     void testLoadFromYaml_WithNullValues(@TempDir Path tempDir) throws Exception {
         // memoTextがnullのYAMLファイルを作成